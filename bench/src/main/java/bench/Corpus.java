@@ -0,0 +1,83 @@
+package bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 性能测试用的 SysY 程序
+ *
+ * small 和 medium 是 resources/corpus 下的固定程序；huge 由同一段函数模板
+ * 按编号重复生成，规模足以体现各阶段随程序大小的增长。
+ * 程序内容固定不变，不同版本的编译器之间的测试结果可以直接比较。
+ */
+final class Corpus {
+    private static final int HUGE_FUNCTIONS = 400;
+
+    private Corpus() {
+    }
+
+    static String load(String name) {
+        if (name.equals("huge")) {
+            return huge();
+        }
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + name + ".sy")) {
+            if (in == null) {
+                throw new IllegalArgumentException("没有这个测试程序: " + name);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                bytes.write(buffer, 0, n);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String huge() {
+        StringBuilder program = new StringBuilder();
+        program.append("const int SIZE = 16;\n");
+        program.append("int shared[16];\n");
+        program.append("int table[4][16];\n\n");
+        for (int k = 0; k < HUGE_FUNCTIONS; k++) {
+            program.append("int work_").append(k).append("(int a[], int n, int seed) {\n")
+                    .append("    int i = 0, acc = seed;\n")
+                    .append("    int local[8];\n")
+                    .append("    while (i < n) {\n")
+                    .append("        a[i] = (a[i] * ").append(k % 7 + 3).append(" + i) % 1000;\n")
+                    .append("        if (a[i] > 500 && i % 2 == 0 || a[i] == ").append(k).append(") {\n")
+                    .append("            acc = acc + a[i] / 4;\n")
+                    .append("        } else if (!(a[i] % 3)) {\n")
+                    .append("            acc = acc - a[i] * 2;\n")
+                    .append("        } else {\n")
+                    .append("            acc = acc + i * ").append(k % 5 + 1).append(";\n")
+                    .append("        }\n")
+                    .append("        local[i % 8] = acc % 97;\n")
+                    .append("        table[i % 4][i] = local[i % 8] + ").append(k).append(";\n")
+                    .append("        i = i + 1;\n")
+                    .append("    }\n")
+                    .append("    if (acc < 0) {\n")
+                    .append("        acc = -acc;\n")
+                    .append("    }\n")
+                    .append("    return acc % 10007;\n")
+                    .append("}\n\n");
+        }
+        program.append("int main() {\n");
+        program.append("    int i = 0, total = 0;\n");
+        program.append("    while (i < SIZE) {\n");
+        program.append("        shared[i] = i * 37 % 101;\n");
+        program.append("        i = i + 1;\n");
+        program.append("    }\n");
+        for (int k = 0; k < HUGE_FUNCTIONS; k++) {
+            program.append("    total = (total + work_").append(k).append("(shared, SIZE, ").append(k)
+                    .append(")) % 10007;\n");
+        }
+        program.append("    printf(\"total=%d\\n\", total);\n");
+        program.append("    return 0;\n");
+        program.append("}\n");
+        return program.toString();
+    }
+}
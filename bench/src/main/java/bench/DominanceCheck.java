@@ -0,0 +1,200 @@
+package bench;
+
+import AST.CompilationContext;
+import Midcode.midCode;
+import Optim.BasicBlock;
+import Optim.ControlFlowGraph;
+import Optim.DominatorTree;
+import Optim.Optimize;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 支配关系自检：在生成的程序上比较 {@link DominatorTree#dominates} 与沿直接支配者链向上走的结果
+ *
+ * dominates 靠支配树的先序、后序区间编号做 O(1) 查询，这里用最直接的办法重新判断：
+ * 从 b 出发沿直接支配者一路走到树根，途中遇到 a 就说明 a 支配 b。
+ * 树中有哪些块也另外用一次图遍历算出，与 contains 对照。
+ * 支配树和后支配树都检查，优化前后的中间代码各建一次图。
+ * 块数不多的函数检查所有块对，块多的函数随机抽样。
+ *
+ * 用法: java -cp benchmarks.jar bench.DominanceCheck [--programs N] [--seed N] [--samples N]
+ */
+public final class DominanceCheck {
+    /* 块数不超过它的函数检查所有块对 */
+    private static final int EXHAUSTIVE_BLOCKS = 64;
+
+    private final Random random;
+    private final int samples;
+    private long queries = 0;
+    private long graphs = 0;
+    private int mismatches = 0;
+
+    private DominanceCheck(long seed, int samples) {
+        this.random = new Random(seed);
+        this.samples = samples;
+    }
+
+    public static void main(String[] args) {
+        int programs = 50;
+        long seed = 1;
+        int samples = 20000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--programs":
+                    programs = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--samples":
+                    samples = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+
+        DominanceCheck check = new DominanceCheck(seed, samples);
+        for (int p = 0; p < programs; p++) {
+            check.checkProgram(SysYGenerator.generate(check.randomShape(), seed + p));
+        }
+        System.out.printf("dominance: %d graphs, %d queries, %d mismatches%n",
+                check.graphs, check.queries, check.mismatches);
+        if (check.mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    // 各个形状维度随机取值，既有很多小函数，也有深度嵌套、长 if 链的大函数
+    private SysYGenerator.Shape randomShape() {
+        SysYGenerator.Shape shape = new SysYGenerator.Shape();
+        shape.functions = 1 + random.nextInt(6);
+        shape.statements = 10 + random.nextInt(200);
+        shape.depth = random.nextInt(12);
+        shape.ifChain = random.nextInt(20);
+        shape.logical = 1 + random.nextInt(6);
+        return shape;
+    }
+
+    // 建图会把四元组挂进各块的链表，所以优化后的中间代码要从源码重新生成
+    private void checkProgram(String source) {
+        checkFunctions(Frontend.generate(source).getMidCodes());
+        CompilationContext context = Frontend.generate(source);
+        new Optimize(context);
+        checkFunctions(context.getMidCodes());
+    }
+
+    // 与 Optimize 相同的切分方式：每个 FUNC/MAIN 开始一个函数，之前的全局声明不建图
+    private void checkFunctions(List<midCode> program) {
+        int from = -1;
+        for (int index = 0; index <= program.size(); index++) {
+            boolean boundary = index == program.size() || program.get(index).op == midCode.operation.FUNC
+                    || program.get(index).op == midCode.operation.MAIN;
+            if (boundary) {
+                if (from >= 0) {
+                    checkGraph(ControlFlowGraph.build(new ArrayList<>(program.subList(from, index))));
+                }
+                from = index;
+            }
+        }
+    }
+
+    private void checkGraph(ControlFlowGraph graph) {
+        graphs++;
+        List<BasicBlock> blocks = graph.getBlocks();
+        boolean[] reachable = reachable(blocks, false, graph.getEntry());
+        checkTree(DominatorTree.dominators(graph), blocks, reachable, "dominators");
+        checkTree(DominatorTree.postDominators(graph), blocks, reachable(blocks, true, null), "postDominators");
+    }
+
+    private void checkTree(DominatorTree tree, List<BasicBlock> blocks, boolean[] inTree, String kind) {
+        for (BasicBlock block : blocks) {
+            if (tree.contains(block) != inTree[block.getId()]) {
+                report(kind + ".contains", block, block, inTree[block.getId()]);
+            }
+        }
+        int count = blocks.size();
+        if (count <= EXHAUSTIVE_BLOCKS) {
+            for (BasicBlock a : blocks) {
+                for (BasicBlock b : blocks) {
+                    compare(tree, a, b, inTree, kind);
+                }
+            }
+        } else {
+            for (int i = 0; i < samples; i++) {
+                BasicBlock b = blocks.get(random.nextInt(count));
+                // 一半取 b 的某个真支配者，否则随机抽到的块对几乎都不构成支配关系
+                BasicBlock a = random.nextBoolean() ? randomAncestor(tree, b) : blocks.get(random.nextInt(count));
+                compare(tree, a, b, inTree, kind);
+            }
+        }
+    }
+
+    private BasicBlock randomAncestor(DominatorTree tree, BasicBlock block) {
+        List<BasicBlock> chain = new ArrayList<>();
+        for (BasicBlock runner = block; runner != null; runner = tree.getImmediateDominator(runner)) {
+            chain.add(runner);
+        }
+        return chain.get(random.nextInt(chain.size()));
+    }
+
+    private void compare(DominatorTree tree, BasicBlock a, BasicBlock b, boolean[] inTree, String kind) {
+        queries++;
+        boolean expected = inTree[a.getId()] && inTree[b.getId()] && onIdomChain(tree, a, b);
+        if (tree.dominates(a, b) != expected) {
+            report(kind + ".dominates", a, b, expected);
+        }
+        if (tree.strictlyDominates(a, b) != (expected && a != b)) {
+            report(kind + ".strictlyDominates", a, b, expected && a != b);
+        }
+    }
+
+    // 从 b 沿直接支配者走到树根，看是否经过 a
+    private static boolean onIdomChain(DominatorTree tree, BasicBlock a, BasicBlock b) {
+        for (BasicBlock runner = b; runner != null; runner = tree.getImmediateDominator(runner)) {
+            if (runner == a) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 支配树中是从入口可达的块；后支配树中是能走到出口（没有后继的块）的块
+    private static boolean[] reachable(List<BasicBlock> blocks, boolean backward, BasicBlock entry) {
+        boolean[] seen = new boolean[blocks.size()];
+        Deque<BasicBlock> work = new ArrayDeque<>();
+        if (backward) {
+            for (BasicBlock block : blocks) {
+                if (block.getSuccessors().isEmpty()) {
+                    seen[block.getId()] = true;
+                    work.push(block);
+                }
+            }
+        } else {
+            seen[entry.getId()] = true;
+            work.push(entry);
+        }
+        while (!work.isEmpty()) {
+            BasicBlock block = work.pop();
+            for (BasicBlock next : backward ? block.getPredecessors() : block.getSuccessors()) {
+                if (!seen[next.getId()]) {
+                    seen[next.getId()] = true;
+                    work.push(next);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private void report(String query, BasicBlock a, BasicBlock b, boolean expected) {
+        mismatches++;
+        if (mismatches <= 20) {
+            System.out.println("mismatch: " + query + "(B" + a.getId() + ", B" + b.getId() + ") expected " + expected);
+        }
+    }
+}
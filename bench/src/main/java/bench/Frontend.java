@@ -0,0 +1,116 @@
+package bench;
+
+import AST.CompilationContext;
+import Word.TokenBuffer;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.CharBuffer;
+
+/**
+ * 访问前端的入口
+ *
+ * Sym 和 Parsing_mid 位于无名包中，具名包里的代码无法直接引用它们，
+ * 而 JMH 又要求测试类必须有包名，所以这里在类加载时一次性查好方法句柄，
+ * 之后的调用与直接调用的开销相当。
+ */
+final class Frontend {
+    /* 丢弃所有提示信息，避免输出影响测量 */
+    static final PrintStream QUIET = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    });
+
+    private static final MethodHandle NEW_SYM;
+    private static final MethodHandle GET_TOKENS;
+    private static final MethodHandle NEW_PARSER;
+    private static final MethodHandle COMP_UNIT;
+    private static final MethodHandle HAS_ERRORS;
+    private static final MethodHandle ANALYSE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> sym = Class.forName("Sym");
+            Class<?> parser = Class.forName("Parsing_mid");
+            NEW_SYM = lookup.findConstructor(sym, MethodType.methodType(void.class, Readable.class, PrintStream.class));
+            GET_TOKENS = lookup.findVirtual(sym, "getTokens", MethodType.methodType(TokenBuffer.class));
+            NEW_PARSER = lookup.findConstructor(parser,
+                    MethodType.methodType(void.class, TokenBuffer.class, CompilationContext.class));
+            COMP_UNIT = lookup.findVirtual(parser, "CompUnit", MethodType.methodType(void.class));
+            HAS_ERRORS = lookup.findVirtual(parser, "hasErrors", MethodType.methodType(boolean.class));
+            ANALYSE = lookup.findVirtual(parser, "analyse", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Frontend() {
+    }
+
+    /**
+     * 创建词法分析器，返回它按需填充的词法单元流
+     */
+    static TokenBuffer tokens(String source) {
+        try {
+            Object lexer = NEW_SYM.invoke((Readable) CharBuffer.wrap(source), QUIET);
+            return (TokenBuffer) GET_TOKENS.invoke(lexer);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * 完成词法和语法分析，返回建好AST的语法分析器；程序有错误时抛出异常
+     */
+    static Object parse(String source, CompilationContext context) {
+        try {
+            Object parser = NEW_PARSER.invoke(tokens(source), context);
+            COMP_UNIT.invoke(parser);
+            if ((boolean) HAS_ERRORS.invoke(parser)) {
+                throw new IllegalArgumentException("测试程序有语法或语义错误");
+            }
+            return parser;
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * 对 {@link #parse} 返回的语法分析器生成中间代码，结果写入创建它时的会话
+     */
+    static void analyse(Object parser) {
+        try {
+            ANALYSE.invoke(parser);
+        } catch (Throwable e) {
+            throw rethrow(e);
+        }
+    }
+
+    /**
+     * 运行完整的前端，返回持有中间代码的会话
+     */
+    static CompilationContext generate(String source) {
+        CompilationContext context = new CompilationContext(QUIET);
+        analyse(parse(source, context));
+        return context;
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new IllegalStateException(e);
+    }
+}
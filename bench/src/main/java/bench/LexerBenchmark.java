@@ -0,0 +1,49 @@
+package bench;
+
+import Word.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 词法分析：从源码字符串读出全部词法单元
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({ "small", "medium", "huge" })
+    public String program;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        source = Corpus.load(program);
+    }
+
+    @Benchmark
+    public int lex() {
+        TokenBuffer tokens = Frontend.tokens(source);
+        int checksum = 0;
+        for (int i = 0; tokens.has(i); i++) {
+            checksum += tokens.kind(i);
+            tokens.release(i);
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,74 @@
+package bench;
+
+import AST.CompilationContext;
+import Mipscode.Mips;
+import Optim.Optimize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 后端：由优化后的中间代码生成MIPS指令（generateMips），以及把指令格式化输出（printMips）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MipsBenchmark {
+
+    /* 只统计写出的字符数，不保存内容 */
+    private static final class CountingWriter extends Writer {
+        long chars = 0;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            chars += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Param({ "small", "medium", "huge" })
+    public String program;
+
+    private CompilationContext context;
+    private Mips generated;
+
+    @Setup
+    public void setup() {
+        context = Frontend.generate(Corpus.load(program));
+        new Optimize(context);
+        generated = new Mips(context.getMidCodes(), context.getStrings(), Frontend.QUIET);
+    }
+
+    @Benchmark
+    public Mips generateMips() {
+        return new Mips(context.getMidCodes(), context.getStrings(), Frontend.QUIET);
+    }
+
+    @Benchmark
+    public long printMips() {
+        CountingWriter out = new CountingWriter();
+        generated.printMips(out);
+        return out.chars;
+    }
+}
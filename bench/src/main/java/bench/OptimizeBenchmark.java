@@ -0,0 +1,65 @@
+package bench;
+
+import AST.CompilationContext;
+import Midcode.IrCodec;
+import Midcode.midCode;
+import Optim.Optimize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 中间代码优化：对前端生成的四元组运行全部优化遍
+ *
+ * 优化器会原地改写四元组（例如 BZ、GOTO 的跳转目标），同一份中间代码再优化一次时面对的已是另一份输入。
+ * 因此前端的结果先按 {@link IrCodec} 编码成字节，每次调用前在不计时的 setup 中解码出一份全新的四元组，
+ * 每次测量的都是对原始中间代码的完整优化。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimizeBenchmark {
+
+    @Param({ "small", "medium", "huge" })
+    public String program;
+
+    private byte[] encoded;
+    private ArrayList<midCode> midCodes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        CompilationContext context = Frontend.generate(Corpus.load(program));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        IrCodec.write(out, context.getMidCodes(), context.getStrings());
+        encoded = out.toByteArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void decode() throws IOException {
+        midCodes = IrCodec.read(new ByteArrayInputStream(encoded)).getMidCodes();
+    }
+
+    @Benchmark
+    public List<midCode> optimize() {
+        return new Optimize(midCodes).getNewmidCodes();
+    }
+}
@@ -0,0 +1,68 @@
+package bench;
+
+import AST.CompilationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 语法分析：构建AST（含语义检查，词法分析按需穿插其中），以及由AST生成中间代码
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Source {
+        @Param({ "small", "medium", "huge" })
+        public String program;
+
+        String text;
+
+        @Setup
+        public void setup() {
+            text = Corpus.load(program);
+        }
+    }
+
+    /**
+     * 生成中间代码会改写会话，每次调用前重新建一棵AST；
+     * 准备工作不计入测量，但小程序上调用级别的 Setup 本身会带来一些误差
+     */
+    @State(Scope.Thread)
+    public static class Parsed {
+        CompilationContext context;
+        Object parser;
+
+        @Setup(Level.Invocation)
+        public void setup(Source source) {
+            context = new CompilationContext(Frontend.QUIET);
+            parser = Frontend.parse(source.text, context);
+        }
+    }
+
+    @Benchmark
+    public Object parse(Source source) {
+        return Frontend.parse(source.text, new CompilationContext(Frontend.QUIET));
+    }
+
+    @Benchmark
+    public int gen(Parsed parsed) {
+        Frontend.analyse(parsed.parser);
+        return parsed.context.getMidCodes().size();
+    }
+}
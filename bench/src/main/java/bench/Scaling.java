@@ -0,0 +1,226 @@
+package bench;
+
+import AST.CompilationContext;
+import Mipscode.Mips;
+import Optim.Optimize;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 规模测试：沿某一个形状维度成倍放大生成的程序，测量每个阶段的耗时
+ *
+ * 输出 CSV（可直接交给 gnuplot 或表格软件画图），随后是每个阶段的文字柱状图，
+ * 以及相邻两个规模之间的增长指数 log(t2/t1)/log(n2/n1)：
+ * 线性阶段约为 1，明显大于 1 的阶段标记为 SUPERLINEAR。
+ *
+ * 深度嵌套和长条件链会让递归下降的语法分析和代码生成用到很深的栈，
+ * 因此每次编译都在一个栈足够大的线程里运行，栈溢出时记为 overflow。
+ *
+ * 用法: java -cp benchmarks.jar bench.Scaling [--dimension statements|functions|depth|if-chain|const-array|logical]
+ *       [--from N] [--to N] [--seed N] [--repeat N]
+ */
+public final class Scaling {
+    private static final String[] PHASES = { "parse", "gen", "optimize", "lower", "emit" };
+    private static final long STACK_SIZE = 1L << 30;
+    /* 增长指数超过它就认为该阶段超线性 */
+    private static final double SUPERLINEAR = 1.3;
+
+    private Scaling() {
+    }
+
+    /* 丢弃输出的 Writer */
+    private static final class NullWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // 编译一次，返回各阶段耗时（纳秒）
+    private static long[] compileOnce(String source) {
+        long[] nanos = new long[PHASES.length];
+        long start = System.nanoTime();
+        CompilationContext context = new CompilationContext(Frontend.QUIET);
+        Object parser = Frontend.parse(source, context);
+        long t1 = System.nanoTime();
+        Frontend.analyse(parser);
+        long t2 = System.nanoTime();
+        new Optimize(context);
+        long t3 = System.nanoTime();
+        Mips mips = new Mips(context.getMidCodes(), context.getStrings(), Frontend.QUIET);
+        long t4 = System.nanoTime();
+        mips.printMips(new NullWriter());
+        long t5 = System.nanoTime();
+        nanos[0] = t1 - start;
+        nanos[1] = t2 - t1;
+        nanos[2] = t3 - t2;
+        nanos[3] = t4 - t3;
+        nanos[4] = t5 - t4;
+        return nanos;
+    }
+
+    // 重复编译，每个阶段取最小值以减少噪声；栈溢出时返回 null
+    private static long[] measure(String source, int repeat) throws InterruptedException {
+        long[][] best = new long[1][];
+        Throwable[] failure = new Throwable[1];
+        Thread worker = new Thread(null, () -> {
+            try {
+                for (int r = 0; r < repeat; r++) {
+                    long[] nanos = compileOnce(source);
+                    if (best[0] == null) {
+                        best[0] = nanos;
+                    } else {
+                        for (int p = 0; p < nanos.length; p++) {
+                            best[0][p] = Math.min(best[0][p], nanos[p]);
+                        }
+                    }
+                }
+            } catch (StackOverflowError e) {
+                best[0] = null;
+            } catch (Throwable e) {
+                failure[0] = e;
+            }
+        }, "scaling", STACK_SIZE);
+        worker.start();
+        worker.join();
+        if (failure[0] != null) {
+            throw new IllegalStateException("编译生成的程序失败", failure[0]);
+        }
+        return best[0];
+    }
+
+    private static void apply(SysYGenerator.Shape shape, String dimension, int size) {
+        switch (dimension) {
+            case "statements":
+                shape.statements = size;
+                break;
+            case "functions":
+                shape.functions = size;
+                break;
+            case "depth":
+                shape.depth = size;
+                break;
+            case "if-chain":
+                shape.ifChain = size;
+                break;
+            case "const-array":
+                shape.constArray = size;
+                break;
+            case "logical":
+                shape.logical = size;
+                break;
+            default:
+                throw new IllegalArgumentException("未知维度: " + dimension);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String dimension = "statements";
+        int from = 100;
+        int to = 12800;
+        long seed = 1;
+        int repeat = 5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--dimension":
+                    dimension = args[i + 1];
+                    break;
+                case "--from":
+                    from = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--to":
+                    to = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[i + 1]);
+                    break;
+                case "--repeat":
+                    repeat = Integer.parseInt(args[i + 1]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+
+        // 先用最小规模预热，避免第一行的数据里混入 JIT 编译的时间
+        SysYGenerator.Shape warmup = new SysYGenerator.Shape();
+        apply(warmup, dimension, from);
+        measure(SysYGenerator.generate(warmup, seed), 20);
+
+        List<Integer> sizes = new ArrayList<>();
+        List<long[]> results = new ArrayList<>();
+        StringBuilder header = new StringBuilder(dimension).append(",source_bytes");
+        for (String phase : PHASES) {
+            header.append(',').append(phase).append("_ms");
+        }
+        System.out.println(header);
+        for (int size = from; size <= to; size *= 2) {
+            SysYGenerator.Shape shape = new SysYGenerator.Shape();
+            apply(shape, dimension, size);
+            String source = SysYGenerator.generate(shape, seed);
+            long[] nanos = measure(source, repeat);
+            StringBuilder row = new StringBuilder().append(size).append(',').append(source.length());
+            for (int p = 0; p < PHASES.length; p++) {
+                row.append(',').append(nanos == null ? "overflow"
+                        : String.format(Locale.ROOT, "%.3f", nanos[p] / 1e6));
+            }
+            System.out.println(row);
+            sizes.add(size);
+            results.add(nanos);
+            if (nanos == null) {
+                break;
+            }
+            if (size > Integer.MAX_VALUE / 2) {
+                break;
+            }
+        }
+
+        System.out.println();
+        for (int p = 0; p < PHASES.length; p++) {
+            plot(PHASES[p], p, sizes, results);
+        }
+    }
+
+    // 一个阶段的文字柱状图和增长指数
+    private static void plot(String phase, int p, List<Integer> sizes, List<long[]> results) {
+        long max = 1;
+        for (long[] nanos : results) {
+            if (nanos != null) {
+                max = Math.max(max, nanos[p]);
+            }
+        }
+        System.out.println(phase + ":");
+        for (int i = 0; i < sizes.size(); i++) {
+            long[] nanos = results.get(i);
+            if (nanos == null) {
+                System.out.printf(Locale.ROOT, "%10d | overflow%n", sizes.get(i));
+                continue;
+            }
+            int width = (int) Math.round(50.0 * nanos[p] / max);
+            StringBuilder bar = new StringBuilder();
+            for (int k = 0; k < width; k++) {
+                bar.append('#');
+            }
+            String growth = "";
+            long[] previous = i > 0 ? results.get(i - 1) : null;
+            if (previous != null && previous[p] > 0) {
+                double exponent = Math.log((double) nanos[p] / previous[p])
+                        / Math.log((double) sizes.get(i) / sizes.get(i - 1));
+                growth = String.format(Locale.ROOT, "  x^%.2f%s", exponent,
+                        exponent > SUPERLINEAR ? " SUPERLINEAR" : "");
+            }
+            System.out.printf(Locale.ROOT, "%10d | %-50s %10.3f ms%s%n", sizes.get(i), bar, nanos[p] / 1e6, growth);
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,394 @@
+package bench;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * 可调规模的 SysY 程序生成器
+ *
+ * 按随机种子生成语法和语义都合法的程序，相同的种子和形状参数总是得到相同的程序。
+ * 形状参数分别控制函数个数、每个函数的语句数、嵌套深度、else if 链长度、
+ * 全局常量数组长度以及条件中 &&/|| 的项数，用来单独放大某一个维度，
+ * 观察编译器各阶段随之增长的趋势。
+ *
+ * 生成的程序只用到本编译器支持的文法：关系运算和 ! 只出现在条件里，
+ * 循环都有计数上界，除数都是非零常量，数组下标先取模再使用。
+ *
+ * 用法: java -cp benchmarks.jar bench.SysYGenerator [--seed N] [--functions N] [--statements N]
+ *       [--depth N] [--if-chain N] [--const-array N] [--logical N] > testfile.txt
+ */
+public final class SysYGenerator {
+
+    /**
+     * 程序形状
+     */
+    public static final class Shape {
+        /* 除 main 以外的函数个数 */
+        public int functions = 8;
+        /* 每个函数体中的语句总数，包括嵌套在内层的语句 */
+        public int statements = 40;
+        /* 每个函数末尾一段连续嵌套的 if/while/块 的层数 */
+        public int depth = 4;
+        /* if ... else if ... 链的长度 */
+        public int ifChain = 3;
+        /* 全局常量数组的长度 */
+        public int constArray = 16;
+        /* 条件表达式中用 && 和 || 连接的项数 */
+        public int logical = 3;
+
+        public Shape copy() {
+            Shape shape = new Shape();
+            shape.functions = functions;
+            shape.statements = statements;
+            shape.depth = depth;
+            shape.ifChain = ifChain;
+            shape.constArray = constArray;
+            shape.logical = logical;
+            return shape;
+        }
+    }
+
+    private static final int LOCALS = 4;
+    private static final int GLOBALS = 2;
+    private static final int ARRAY_LENGTH = 32;
+    /* 普通语句块内最多再嵌套的层数，深度嵌套由 Shape.depth 单独控制 */
+    private static final int MAX_RANDOM_DEPTH = 3;
+    /* 前几个函数不调用其他函数，其余函数只调用它们，避免调用树随函数个数指数增长 */
+    private static final int LEAF_FUNCTIONS = 4;
+
+    private final Shape shape;
+    private final Random random;
+    private final StringBuilder out = new StringBuilder();
+    private int indent = 0;
+    private int budget;
+    private int loopCounter = 0;
+    private int currentFunction;
+    private String arrayName;
+
+    private SysYGenerator(Shape shape, long seed) {
+        this.shape = shape;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 生成一个完整的程序
+     *
+     * @param shape 形状参数
+     * @param seed  随机种子
+     * @return 程序源码
+     */
+    public static String generate(Shape shape, long seed) {
+        SysYGenerator generator = new SysYGenerator(shape, seed);
+        generator.program();
+        return generator.out.toString();
+    }
+
+    private void program() {
+        int constLength = Math.max(1, shape.constArray);
+        line("const int CN = " + constLength + ";");
+        StringBuilder init = new StringBuilder("const int C_TABLE[" + constLength + "] = {");
+        for (int i = 0; i < constLength; i++) {
+            if (i > 0) {
+                init.append(i % 16 == 0 ? ",\n    " : ", ");
+            }
+            init.append(random.nextInt(1000));
+        }
+        line(init.append("};").toString());
+        line("int g_arr[" + ARRAY_LENGTH + "];");
+        for (int g = 0; g < GLOBALS; g++) {
+            line("int g" + g + " = " + random.nextInt(100) + ";");
+        }
+        out.append('\n');
+
+        for (int f = 0; f < shape.functions; f++) {
+            currentFunction = f;
+            arrayName = "arr";
+            line("int f_" + f + "(int a, int b, int arr[]) {");
+            body();
+            line("    return (x0 + x1 + x2 + x3) % 1009;");
+            line("}");
+            out.append('\n');
+        }
+
+        currentFunction = shape.functions;
+        arrayName = "g_arr";
+        line("int main() {");
+        indent++;
+        line("int a = " + random.nextInt(100) + ", b = " + (1 + random.nextInt(100)) + ";");
+        indent--;
+        body();
+        indent++;
+        for (int f = 0; f < shape.functions; f++) {
+            line("x" + (f % LOCALS) + " = (x" + (f % LOCALS) + " + f_" + f + "(a, b, g_arr)) % 1009;");
+        }
+        line("printf(\"%d %d %d %d\\n\", x0, x1, x2, x3);");
+        line("return 0;");
+        indent--;
+        line("}");
+    }
+
+    // 函数体：声明局部变量，生成随机语句，最后是一段深度嵌套
+    private void body() {
+        indent++;
+        StringBuilder locals = new StringBuilder("int ");
+        for (int i = 0; i < LOCALS; i++) {
+            locals.append(i > 0 ? ", " : "").append('x').append(i).append(" = ")
+                    .append(random.nextBoolean() ? (random.nextBoolean() ? "a" : "b") : "g" + random.nextInt(GLOBALS))
+                    .append(" % 1009");
+        }
+        line(locals.append(';').toString());
+        budget = shape.statements;
+        while (budget > 0) {
+            statement(0);
+        }
+        deepNest(shape.depth);
+        indent--;
+    }
+
+    private void statement(int depth) {
+        budget--;
+        int choice = random.nextInt(depth < MAX_RANDOM_DEPTH ? 10 : 6);
+        switch (choice) {
+            case 0:
+            case 1:
+            case 2:
+                assignment();
+                break;
+            case 3:
+                arrayStore();
+                break;
+            case 4:
+                if (currentFunction >= LEAF_FUNCTIONS) {
+                    call();
+                } else {
+                    assignment();
+                }
+                break;
+            case 5:
+                line("printf(\"%d\\n\", " + local() + ");");
+                break;
+            case 6:
+                ifChain(depth);
+                break;
+            case 7:
+                loop(depth);
+                break;
+            case 8:
+                line("{");
+                indent++;
+                line("int y = " + expression(2) + ";");
+                line(local() + " = (y + " + atom() + ") % 1009;");
+                nested(depth + 1, 2);
+                indent--;
+                line("}");
+                break;
+            default:
+                line("if (" + condition() + ") {");
+                indent++;
+                nested(depth + 1, 3);
+                indent--;
+                line("}");
+        }
+    }
+
+    private void nested(int depth, int count) {
+        for (int i = 0; i < count && budget > 0; i++) {
+            statement(depth);
+        }
+    }
+
+    private void assignment() {
+        line(local() + " = (" + expression(1 + random.nextInt(4)) + ") % 1009;");
+    }
+
+    private void arrayStore() {
+        line(arrayName + "[" + index(ARRAY_LENGTH) + "] = " + expression(2) + " % 1009;");
+    }
+
+    private void call() {
+        int callee = random.nextInt(LEAF_FUNCTIONS);
+        line(local() + " = f_" + callee + "(" + local() + ", " + local() + ", " + arrayName + ") % 1009;");
+    }
+
+    private void ifChain(int depth) {
+        line("if (" + condition() + ") {");
+        indent++;
+        nested(depth + 1, 2);
+        indent--;
+        for (int i = 1; i < shape.ifChain; i++) {
+            line("} else if (" + condition() + ") {");
+            indent++;
+            assignment();
+            indent--;
+        }
+        line("} else {");
+        indent++;
+        assignment();
+        indent--;
+        line("}");
+    }
+
+    // 计数器控制的循环，循环体里可能提前 break，不使用 continue 以免跳过计数
+    private void loop(int depth) {
+        String counter = "w" + (loopCounter++);
+        line("int " + counter + " = 0;");
+        line("while (" + counter + " < " + (2 + random.nextInt(4)) + ") {");
+        indent++;
+        nested(depth + 1, 3);
+        if (random.nextBoolean()) {
+            line("if (" + local() + " > 900) break;");
+        }
+        line(counter + " = " + counter + " + 1;");
+        indent--;
+        line("}");
+    }
+
+    // 连续嵌套 depth 层，轮流使用 if、while 和普通语句块
+    private void deepNest(int depth) {
+        String counter = "d" + (loopCounter++);
+        line("int " + counter + " = 0;");
+        for (int level = 0; level < depth; level++) {
+            switch (level % 3) {
+                case 0:
+                    line("if (" + condition() + ") {");
+                    break;
+                case 1:
+                    line("while (" + counter + " < " + (level + 1) + ") {");
+                    break;
+                default:
+                    line("{");
+            }
+            indent++;
+            if (level % 3 == 1) {
+                line(counter + " = " + counter + " + 1;");
+            }
+            assignment();
+        }
+        for (int level = depth - 1; level >= 0; level--) {
+            indent--;
+            line("}");
+        }
+    }
+
+    // 条件：若干个关系表达式用 && 和 || 连接，偶尔取反
+    private String condition() {
+        int terms = Math.max(1, shape.logical);
+        StringBuilder cond = new StringBuilder();
+        for (int i = 0; i < terms; i++) {
+            if (i > 0) {
+                cond.append(random.nextBoolean() ? " && " : " || ");
+            }
+            switch (random.nextInt(4)) {
+                case 0:
+                    cond.append("!(").append(local()).append(" % ").append(2 + random.nextInt(5)).append(')');
+                    break;
+                case 1:
+                    cond.append(expression(2)).append(" == ").append(atom());
+                    break;
+                default:
+                    String[] ops = { "<", ">", "<=", ">=", "!=" };
+                    cond.append(expression(2)).append(' ').append(ops[random.nextInt(ops.length)]).append(' ')
+                            .append(atom());
+            }
+        }
+        return cond.toString();
+    }
+
+    private String expression(int operands) {
+        StringBuilder expr = new StringBuilder(atom());
+        for (int i = 1; i < operands; i++) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    expr.append(" - ").append(atom());
+                    break;
+                case 1:
+                    expr.append(" * ").append(random.nextInt(10));
+                    break;
+                case 2:
+                    expr.append(" / ").append(1 + random.nextInt(9));
+                    break;
+                case 3:
+                    expr.append(" % ").append(1 + random.nextInt(9));
+                    break;
+                default:
+                    expr.append(" + ").append(atom());
+            }
+        }
+        return expr.toString();
+    }
+
+    private String atom() {
+        switch (random.nextInt(8)) {
+            case 0:
+                return Integer.toString(random.nextInt(100));
+            case 1:
+                return "C_TABLE[" + index(Math.max(1, shape.constArray)) + "]";
+            case 2:
+                return arrayName + "[" + index(ARRAY_LENGTH) + "]";
+            case 3:
+                return "g" + random.nextInt(GLOBALS);
+            case 4:
+                return random.nextBoolean() ? "a" : "b";
+            case 5:
+                return "(" + local() + " + " + random.nextInt(10) + ")";
+            default:
+                return local();
+        }
+    }
+
+    // 下标先取模再使用，负数也落在 [0, length) 内
+    private String index(int length) {
+        String local = local();
+        return "(" + local + " % " + length + " + " + length + ") % " + length;
+    }
+
+    private String local() {
+        return "x" + random.nextInt(LOCALS);
+    }
+
+    private void line(String text) {
+        for (int i = 0; i < indent; i++) {
+            out.append("    ");
+        }
+        out.append(text).append('\n');
+    }
+
+    public static void main(String[] args) throws IOException {
+        Shape shape = new Shape();
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "--seed":
+                    seed = value;
+                    break;
+                case "--functions":
+                    shape.functions = value;
+                    break;
+                case "--statements":
+                    shape.statements = value;
+                    break;
+                case "--depth":
+                    shape.depth = value;
+                    break;
+                case "--if-chain":
+                    shape.ifChain = value;
+                    break;
+                case "--const-array":
+                    shape.constArray = value;
+                    break;
+                case "--logical":
+                    shape.logical = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+        Writer writer = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        writer.write(generate(shape, seed));
+        writer.flush();
+    }
+}
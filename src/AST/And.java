@@ -37,26 +37,27 @@ public class And extends Node {
      * 2. 如果任何一个是false(0)，就跳转到失败标签
      * 3. 只有所有条件都通过，才会继续执行后续代码
      * 
+     * @param ctx          当前编译会话
      * @param successLabel 所有条件都为true时要跳转到的标签
      */
-    public void gen(int successLabel) {
+    public void gen(CompilationContext ctx, int successLabel) {
         // 先尝试常量折叠优化
         for (Expr condition : conditionExpressions)
-            condition.canculculate();
+            condition.canculculate(ctx);
 
         // 为当前And表达式分配失败跳转标签
-        jumpLabelId = ++jumps;
+        jumpLabelId = ctx.newJump();
 
         // 为每个条件生成短路跳转代码
         for (Expr condition : conditionExpressions) {
             // 如果条件为false(0)，跳转到And表达式失败标签
-            emit(new midCode(midCode.operation.BZ, "Jump" + jumpLabelId, condition.reduce().toString()));
+            ctx.emit(new midCode(midCode.operation.BZ, ctx.label("Jump" + jumpLabelId), condition.reduce(ctx).toOperand(ctx)));
         }
 
         // 所有条件都通过，跳转到成功标签
-        emit(new midCode(midCode.operation.GOTO, "Jump" + successLabel));
+        ctx.emit(new midCode(midCode.operation.GOTO, ctx.label("Jump" + successLabel)));
 
         // 设置And表达式失败时的跳转目标
-        emit(new midCode(midCode.operation.Jump, "Jump" + jumpLabelId));
+        ctx.emit(new midCode(midCode.operation.Jump, ctx.label("Jump" + jumpLabelId)));
     }
 }
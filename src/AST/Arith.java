@@ -38,9 +38,9 @@ public class Arith extends Expr {
      * 这种编译期计算叫做"常量折叠"优化
      */
     @Override
-    public boolean canculculate() {
-        boolean leftCanCompute = leftOperand.canculculate();
-        boolean rightCanCompute = rightOperand.canculculate();
+    public boolean canculculate(CompilationContext ctx) {
+        boolean leftCanCompute = leftOperand.canculculate(ctx);
+        boolean rightCanCompute = rightOperand.canculculate(ctx);
 
         if (leftCanCompute && rightCanCompute) {
             this.isvalue = true;
@@ -69,14 +69,14 @@ public class Arith extends Expr {
      * 如果能预先计算，就返回常量节点；
      * 否则生成三地址码的形式：temp = operand1 op operand2
      */
-    public Expr reduce() {
+    public Expr reduce(CompilationContext ctx) {
         // 如果已经计算出常量值，直接返回常量节点
         if (isvalue) {
             return new Constant(new Word(String.valueOf(value)));
         }
 
         // 生成临时变量存储运算结果
-        Temp temporaryResult = new Temp(op);
+        Temp temporaryResult = new Temp(ctx, op);
         String operatorSymbol = op.getContent();
         midCode.operation operationType = midCode.operation.DEBUG;
 
@@ -94,8 +94,8 @@ public class Arith extends Expr {
         }
 
         // 发射中间代码：temp = left op right
-        emit(new midCode(operationType, temporaryResult.toString(),
-                leftOperand.reduce().toString(), rightOperand.reduce().toString()));
+        ctx.emit(new midCode(operationType, temporaryResult.toOperand(ctx),
+                leftOperand.reduce(ctx).toOperand(ctx), rightOperand.reduce(ctx).toOperand(ctx)));
         return temporaryResult;
     }
 
@@ -104,10 +104,10 @@ public class Arith extends Expr {
      * 递归计算左右操作数的值，然后根据操作符进行运算
      */
     @Override
-    public int calculate() {
+    public int calculate(CompilationContext ctx) {
         int resultValue = 0;
-        int leftValue = leftOperand.calculate();
-        int rightValue = rightOperand.calculate();
+        int leftValue = leftOperand.calculate(ctx);
+        int rightValue = rightOperand.calculate(ctx);
         String operatorSymbol = op.getContent();
 
         // 进行对应的数学运算
@@ -1,5 +1,7 @@
 package AST;
 
+import Midcode.ConstOperand;
+import Midcode.Operand;
 import Midcode.midCode;
 import Symbol_table.IntergerTable;
 import Symbol_table.Symbols.ArraySymbol;
@@ -27,7 +29,7 @@ public class Array extends Lval {
     // 临时变量 - 存储计算过程中的中间结果
     public Expr temporaryStorage;
     // 第二维信息 - 指针传递时记录维度信息
-    public String secondDimensionInfo;
+    public int secondDimensionInfo;
 
     // 索引表达式 - 数组访问的"坐标系统"
     private Expr firstIndexExpression = null;
@@ -63,9 +65,9 @@ public class Array extends Lval {
      * 这个方法就像有经验的仓库管理员，能够根据货架编号
      * 直接找到货物并告诉你里面装的是什么。
      */
-    public int calculate() {
+    public int calculate(CompilationContext ctx) {
         // 查找数组符号 - 在仓库目录中找到对应的区域信息
-        IntergerTable symbolTable = inttable;
+        IntergerTable symbolTable = ctx.getIntTable();
         ArraySymbol arraySymbol = null;
         while (symbolTable != null) {
             if (symbolTable.contains(op.getContent())) {
@@ -79,11 +81,11 @@ public class Array extends Lval {
         int primaryIndex = 0, finalIndex = 0;
         if (secondIndexExpression == null) {
             // 一维数组情况 - 直接定位
-            finalIndex = firstIndexExpression.calculate();
+            finalIndex = firstIndexExpression.calculate(ctx);
         } else {
             // 二维数组情况 - 二维坐标转一维偏移
-            primaryIndex = firstIndexExpression.calculate();
-            finalIndex = secondIndexExpression.calculate();
+            primaryIndex = firstIndexExpression.calculate(ctx);
+            finalIndex = secondIndexExpression.calculate(ctx);
         }
 
         // 返回指定位置的货物内容
@@ -97,11 +99,11 @@ public class Array extends Lval {
      * "这个货物的信息我现在就能告诉你，还是需要到现场才能确定？"
      */
     @Override
-    public boolean canculculate() {
-        boolean firstIndexCalculable = firstIndexExpression.canculculate();
+    public boolean canculculate(CompilationContext ctx) {
+        boolean firstIndexCalculable = firstIndexExpression.canculculate(ctx);
 
         // 查找数组符号信息
-        IntergerTable symbolTable = inttable;
+        IntergerTable symbolTable = ctx.getIntTable();
         ArraySymbol arraySymbol = null;
         while (symbolTable != null) {
             if (symbolTable.contains(op.getContent())) {
@@ -130,7 +132,7 @@ public class Array extends Lval {
                 }
             } else {
                 // 二维常量数组的处理
-                boolean secondIndexCalculable = secondIndexExpression.canculculate();
+                boolean secondIndexCalculable = secondIndexExpression.canculculate(ctx);
                 if (firstIndexCalculable && secondIndexCalculable) {
                     int firstIndex = firstIndexExpression.value;
                     int secondIndex = secondIndexExpression.value;
@@ -168,10 +170,10 @@ public class Array extends Lval {
      * 生成相应的取货指令。
      */
     @Override
-    public Expr reduce() {
+    public Expr reduce(CompilationContext ctx) {
         if (secondIndexExpression == null) {
             // 处理一维数组或数组指针访问
-            IntergerTable symbolTable = inttable;
+            IntergerTable symbolTable = ctx.getIntTable();
             ArraySymbol arraySymbol = null;
             while (symbolTable != null) {
                 if (symbolTable.contains(op.getContent())) {
@@ -183,8 +185,8 @@ public class Array extends Lval {
 
             if (arraySymbol.getLevel2() != 0) {
                 // 这是数组指针访问 - 特殊的取货方式
-                temporaryStorage = firstIndexExpression.reduce();
-                secondDimensionInfo = String.valueOf(arraySymbol.getLevel2());
+                temporaryStorage = firstIndexExpression.reduce(ctx);
+                secondDimensionInfo = arraySymbol.getLevel2();
                 return this;
             } else {
                 // 普通一维数组访问
@@ -194,11 +196,11 @@ public class Array extends Lval {
                 }
 
                 // 生成动态访问代码
-                Temp resultStorage = new Temp(op);
-                emit(new midCode(midCode.operation.GETARRAY,
-                        resultStorage.toString(),
-                        op.getContent(),
-                        firstIndexExpression.reduce().toString()));
+                Temp resultStorage = new Temp(ctx, op);
+                ctx.emit(new midCode(midCode.operation.GETARRAY,
+                        resultStorage.toOperand(ctx),
+                        toOperand(ctx),
+                        firstIndexExpression.reduce(ctx).toOperand(ctx)));
                 return resultStorage;
             }
         } else {
@@ -209,12 +211,12 @@ public class Array extends Lval {
             }
 
             // 生成二维数组访问的复杂计算代码
-            Temp multiplicationResult = new Temp(op);
-            Temp additionResult = new Temp(op);
-            Temp finalResult = new Temp(op);
+            Temp multiplicationResult = new Temp(ctx, op);
+            Temp additionResult = new Temp(ctx, op);
+            Temp finalResult = new Temp(ctx, op);
 
             // 获取数组的第二维大小信息
-            IntergerTable symbolTable = inttable;
+            IntergerTable symbolTable = ctx.getIntTable();
             ArraySymbol arraySymbol = null;
             while (symbolTable != null) {
                 if (symbolTable.contains(op.getContent())) {
@@ -226,40 +228,40 @@ public class Array extends Lval {
 
             int secondDimensionSize = arraySymbol.getLevel2();
             // 生成地址计算：index = first_index * second_dim_size + second_index
-            emit(new midCode(midCode.operation.MULTOP,
-                    multiplicationResult.toString(),
-                    firstIndexExpression.reduce().toString(),
-                    String.valueOf(secondDimensionSize)));
-            emit(new midCode(midCode.operation.PLUSOP,
-                    additionResult.toString(),
-                    multiplicationResult.toString(),
-                    secondIndexExpression.reduce().toString()));
-            emit(new midCode(midCode.operation.GETARRAY,
-                    finalResult.toString(),
-                    op.getContent(),
-                    additionResult.reduce().toString()));
+            ctx.emit(new midCode(midCode.operation.MULTOP,
+                    multiplicationResult.toOperand(ctx),
+                    firstIndexExpression.reduce(ctx).toOperand(ctx),
+                    new ConstOperand(secondDimensionSize)));
+            ctx.emit(new midCode(midCode.operation.PLUSOP,
+                    additionResult.toOperand(ctx),
+                    multiplicationResult.toOperand(ctx),
+                    secondIndexExpression.reduce(ctx).toOperand(ctx)));
+            ctx.emit(new midCode(midCode.operation.GETARRAY,
+                    finalResult.toOperand(ctx),
+                    toOperand(ctx),
+                    additionResult.reduce(ctx).toOperand(ctx)));
             return finalResult;
         }
     }
 
     /**
-     * 转换为字符串 - 用于赋值等需要地址的场合
+     * 计算下标地址 - 用于赋值等需要地址的场合
      * 
      * 当数组作为赋值目标时，需要返回其地址而不是值。
      * 这就像告诉搬运工："把货物放到X号货架的Y位置"。
      */
     @Override
-    public String toString() {
+    public Operand address(CompilationContext ctx) {
         if (secondIndexExpression == null) {
             // 一维数组的地址就是索引本身
-            return firstIndexExpression.reduce().toString();
+            return firstIndexExpression.reduce(ctx).toOperand(ctx);
         } else {
             // 二维数组需要计算线性地址
-            Temp multiplicationResult = new Temp(op);
-            Temp finalAddress = new Temp(op);
+            Temp multiplicationResult = new Temp(ctx, op);
+            Temp finalAddress = new Temp(ctx, op);
 
             // 获取数组维度信息
-            IntergerTable symbolTable = inttable;
+            IntergerTable symbolTable = ctx.getIntTable();
             ArraySymbol arraySymbol = null;
             while (symbolTable != null) {
                 if (symbolTable.contains(op.getContent())) {
@@ -272,15 +274,15 @@ public class Array extends Lval {
             int secondDimensionSize = arraySymbol.getLevel2();
 
             // 生成地址计算代码
-            emit(new midCode(midCode.operation.MULTOP,
-                    multiplicationResult.toString(),
-                    firstIndexExpression.reduce().toString(),
-                    String.valueOf(secondDimensionSize)));
-            emit(new midCode(midCode.operation.PLUSOP,
-                    finalAddress.toString(),
-                    multiplicationResult.toString(),
-                    secondIndexExpression.reduce().toString()));
-            return finalAddress.toString();
+            ctx.emit(new midCode(midCode.operation.MULTOP,
+                    multiplicationResult.toOperand(ctx),
+                    firstIndexExpression.reduce(ctx).toOperand(ctx),
+                    new ConstOperand(secondDimensionSize)));
+            ctx.emit(new midCode(midCode.operation.PLUSOP,
+                    finalAddress.toOperand(ctx),
+                    multiplicationResult.toOperand(ctx),
+                    secondIndexExpression.reduce(ctx).toOperand(ctx)));
+            return finalAddress.toOperand(ctx);
         }
     }
 }
@@ -40,21 +40,21 @@ public class Assign extends Stmt {
      * - 如果是数组元素：先找到正确的索引位置，再搬运
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         // 预处理右值表达式 - 准备要搬运的"货物"
-        sourceExpression.canculculate();
+        sourceExpression.canculculate(ctx);
 
         if (assignmentTarget instanceof Id) {
             // 普通变量赋值 - 直接搬运模式
-            emit(new midCode(midCode.operation.ASSIGNOP,
-                    assignmentTarget.reduce().toString(),
-                    sourceExpression.reduce().toString()));
+            ctx.emit(new midCode(midCode.operation.ASSIGNOP,
+                    assignmentTarget.reduce(ctx).toOperand(ctx),
+                    sourceExpression.reduce(ctx).toOperand(ctx)));
         } else {
             // 数组元素赋值 - 定位搬运模式
-            emit(new midCode(midCode.operation.PUTARRAY,
-                    assignmentTarget.getcontent(),
-                    assignmentTarget.toString(),
-                    sourceExpression.reduce().toString()));
+            ctx.emit(new midCode(midCode.operation.PUTARRAY,
+                    assignmentTarget.toOperand(ctx),
+                    assignmentTarget.address(ctx),
+                    sourceExpression.reduce(ctx).toOperand(ctx)));
         }
     }
 }
@@ -1,7 +1,8 @@
 package AST;
 
+import Midcode.ConstOperand;
+import Midcode.TextOperand;
 import Midcode.midCode;
-import Symbol_table.IntergerTable;
 
 import java.util.ArrayList;
 
@@ -22,8 +23,6 @@ import java.util.ArrayList;
  * - 函数体代码块：复用函数的入口标签，在结束时添加默认返回
  */
 public class Block extends Stmt {
-    // 全局计数器 - 为每个代码块分配唯一的车间号
-    static int globalBlockCounter = 0;
     // 代码块项目列表 - 车间内的具体工作内容
     ArrayList<BlockItem> blockItems;
     // 当前代码块编号 - 这个车间的门牌号
@@ -38,15 +37,6 @@ public class Block extends Stmt {
         this.blockItems = blockItems;
     }
 
-    /**
-     * 获取下一个代码块编号
-     * 
-     * @return 新的代码块编号
-     */
-    public static int getCount() {
-        return ++globalBlockCounter;
-    }
-
     /**
      * 生成中间代码 - 建立独立的"作业车间"
      * 
@@ -58,24 +48,24 @@ public class Block extends Stmt {
      * 5. 清理工作环境(恢复外层作用域)
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         // 建立新的工作环境 - 创建块级作用域
-        inttable = new IntergerTable(inttable);
+        ctx.enterScope();
 
         // 分配车间号并设置入口
-        blockNumber = ++globalBlockCounter;
-        emit(new midCode(midCode.operation.LABEL, String.valueOf(blockNumber), "start"));
+        blockNumber = ctx.newBlock();
+        ctx.emit(new midCode(midCode.operation.LABEL, new ConstOperand(blockNumber), TextOperand.START));
 
         // 运行车间内的所有工作项目
         for (BlockItem item : blockItems) {
-            item.gen();
+            item.gen(ctx);
         }
 
         // 设置车间出口
-        emit(new midCode(midCode.operation.LABEL, String.valueOf(blockNumber), "end"));
+        ctx.emit(new midCode(midCode.operation.LABEL, new ConstOperand(blockNumber), TextOperand.END));
 
         // 清理工作环境 - 恢复到外层作用域
-        inttable = inttable.getOut();
+        ctx.exitScope();
     }
 
     /**
@@ -84,23 +74,24 @@ public class Block extends Stmt {
      * 函数体代码块不需要独立的入口标签(复用函数入口)，
      * 但需要在结束时添加默认的返回语句。
      * 
+     * @param ctx                 当前编译会话
      * @param functionBlockNumber 函数的代码块编号
      */
-    public void gen(int functionBlockNumber) {
+    public void gen(CompilationContext ctx, int functionBlockNumber) {
         blockNumber = functionBlockNumber;
 
         // 运行函数体内的所有工作项目
         for (BlockItem item : blockItems) {
-            item.gen();
+            item.gen(ctx);
         }
 
         // 函数结束时添加默认返回(防止函数意外"掉出"结尾)
-        emit(new midCode(midCode.operation.RET, null));
+        ctx.emit(new midCode(midCode.operation.RET, null));
 
         // 设置函数出口标签
-        emit(new midCode(midCode.operation.LABEL, String.valueOf(blockNumber), "end"));
+        ctx.emit(new midCode(midCode.operation.LABEL, new ConstOperand(blockNumber), TextOperand.END));
 
         // 清理函数作用域
-        inttable = inttable.getOut();
+        ctx.exitScope();
     }
 }
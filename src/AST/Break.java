@@ -21,8 +21,8 @@ public class Break extends Stmt {
      * 3. 相当于告诉程序："不管现在在做什么，直接跳到循环外面去！"
      */
     @Override
-    public void gen() {
-        int currentLoopId = loopstack.peek();
-        emit(new midCode(midCode.operation.GOTO, "Loop" + String.valueOf(currentLoopId) + "end"));
+    public void gen(CompilationContext ctx) {
+        int currentLoopId = ctx.currentLoop();
+        ctx.emit(new midCode(midCode.operation.GOTO, ctx.label("Loop" + String.valueOf(currentLoopId) + "end")));
     }
 }
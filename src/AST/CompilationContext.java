@@ -0,0 +1,294 @@
+package AST;
+
+import Midcode.ConstOperand;
+import Midcode.IrDumper;
+import Midcode.LabelOperand;
+import Midcode.VarOperand;
+import Midcode.midCode;
+import Symbol_table.FuncTable;
+import Symbol_table.IntergerTable;
+import Symbol_table.Symbols.NorSymbol;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Stack;
+
+/**
+ * 编译会话 - 一次编译过程的"项目总协调中心"
+ * 
+ * 以前这些资源都挂在 Node 的静态字段上，一个JVM只能编译一个程序，
+ * 而且只能编译一次。现在每次编译都新建一个会话对象，
+ * 由它统一持有：
+ * 1. 全局资源（符号表、函数表、中间代码、字符串常量池）
+ * 2. 标签、跳转、临时变量和代码块的编号计数器
+ * 3. 循环嵌套栈
+ * 4. 变量和标签操作数的唯一实例
+ * 5. 编译过程中提示信息的输出位置和中间代码的调试输出设置
+ * 
+ * 会话对象从 Parsing_mid 传入AST的 gen()/reduce()，再交给
+ * Optimize 和 Mips。一个会话只应被一个线程使用，
+ * 不同线程使用各自的会话即可并行编译。
+ */
+public class CompilationContext {
+    // ==================== 编译环境 ====================
+
+    // 中间代码指令序列 - 编译器的"施工图纸"
+    private ArrayList<midCode> midCodes = new ArrayList<>();
+
+    // 当前作用域的符号表 - 编译器的"变量档案室"
+    private IntergerTable inttable = new IntergerTable();
+
+    // 函数定义表 - 编译器的"功能模块清单"
+    private final FuncTable funcTable = new FuncTable();
+
+    // 字符串常量池 - 编译器的"文本资料库"
+    private final LinkedList<String> strings = new LinkedList<>();
+
+    // ==================== 代码生成控制变量 ====================
+
+    // 标签计数器 - 为代码跳转生成唯一标识
+    private int labels = 0;
+
+    // 跳转计数器 - 控制流跳转的编号系统
+    private int jumps = 0;
+
+    // 临时变量计数器 - 保证每个 t&N 在本次编译内唯一
+    private int temps = 0;
+
+    // 代码块计数器 - 为每个代码块分配唯一的车间号
+    private int blocks = 0;
+
+    // 循环嵌套栈 - 跟踪break/continue的目标循环
+    private final Stack<Integer> loopstack = new Stack<>();
+
+    // ==================== 操作数 ====================
+
+    // 每个变量符号对应的唯一操作数
+    private final Map<NorSymbol, VarOperand> variableOperands = new IdentityHashMap<>();
+
+    // 找不到定义的名字对应的操作数
+    private final Map<String, VarOperand> unresolvedOperands = new HashMap<>();
+
+    // 每个标签名对应的唯一操作数
+    private final Map<String, LabelOperand> labelOperands = new HashMap<>();
+
+    // 提示信息输出 - 非法定义等不影响编译继续进行的问题写到这里
+    private final PrintStream diagnostics;
+
+    // 调试输出 - 默认不输出任何中间代码文件
+    private IrDumper dumper = IrDumper.DISABLED;
+
+    /**
+     * 创建编译会话，提示信息写到标准输出
+     */
+    public CompilationContext() {
+        this(System.out);
+    }
+
+    /**
+     * 创建编译会话
+     * 
+     * @param diagnostics 提示信息的输出位置
+     */
+    public CompilationContext(PrintStream diagnostics) {
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * 获取提示信息的输出位置
+     * 
+     * @return 本次编译的提示信息输出流
+     */
+    public PrintStream getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * 获取中间代码的调试输出设置
+     * 
+     * @return 本次编译使用的调试输出器
+     */
+    public IrDumper getDumper() {
+        return dumper;
+    }
+
+    /**
+     * 设置中间代码的调试输出，由调用方负责在编译结束后关闭
+     * 
+     * @param dumper 调试输出器
+     */
+    public void setDumper(IrDumper dumper) {
+        this.dumper = dumper;
+    }
+
+    /**
+     * 获取生成的中间代码指令列表
+     * 
+     * @return 当前编译过程中生成的所有中间代码指令
+     */
+    public ArrayList<midCode> getMidCodes() {
+        return midCodes;
+    }
+
+    /**
+     * 替换中间代码指令列表 - 优化器交回"修订后的施工图纸"
+     * 
+     * @param midCodes 新的中间代码指令列表
+     */
+    public void setMidCodes(ArrayList<midCode> midCodes) {
+        this.midCodes = midCodes;
+    }
+
+    /**
+     * 获取字符串常量池
+     * 
+     * @return 编译过程中收集的所有字符串常量
+     */
+    public LinkedList<String> getStrings() {
+        return strings;
+    }
+
+    /**
+     * 获取当前作用域的符号表
+     * 
+     * @return 当前最内层作用域的符号表
+     */
+    public IntergerTable getIntTable() {
+        return inttable;
+    }
+
+    /**
+     * 获取函数定义表
+     * 
+     * @return 本次编译的函数表
+     */
+    public FuncTable getFuncTable() {
+        return funcTable;
+    }
+
+    /**
+     * 进入新的作用域 - 建立新的"工作环境"
+     */
+    public void enterScope() {
+        inttable = new IntergerTable(inttable);
+    }
+
+    /**
+     * 退出当前作用域 - 恢复到外层"工作环境"
+     */
+    public void exitScope() {
+        inttable = inttable.getOut();
+    }
+
+    /**
+     * 生成新的标签ID - 代码跳转的"路标制作工"
+     * 
+     * @return 新的唯一标签编号
+     */
+    public int newLabel() {
+        return ++labels;
+    }
+
+    /**
+     * 生成新的跳转编号
+     * 
+     * @return 新的唯一跳转编号
+     */
+    public int newJump() {
+        return ++jumps;
+    }
+
+    /**
+     * 生成新的临时变量编号
+     * 
+     * @return 新的唯一临时变量编号
+     */
+    public int newTemp() {
+        return ++temps;
+    }
+
+    /**
+     * 生成新的代码块编号
+     * 
+     * @return 新的代码块编号
+     */
+    public int newBlock() {
+        return ++blocks;
+    }
+
+    /**
+     * 进入循环 - 将循环ID压入栈，支持嵌套循环的break/continue
+     * 
+     * @param loopId 循环的唯一编号
+     */
+    public void enterLoop(int loopId) {
+        loopstack.push(loopId);
+    }
+
+    /**
+     * 退出循环 - 弹出当前循环ID
+     */
+    public void exitLoop() {
+        loopstack.pop();
+    }
+
+    /**
+     * 获取最内层循环的ID
+     * 
+     * @return 当前循环的唯一编号
+     */
+    public int currentLoop() {
+        return loopstack.peek();
+    }
+
+    /**
+     * 获取变量操作数 - 按当前作用域链解析名字
+     * 同一个变量每次得到的都是同一个对象
+     * 
+     * @param name 变量名
+     * @return 该名字在当前作用域中对应变量的操作数
+     */
+    public VarOperand variable(String name) {
+        IntergerTable table = inttable;
+        while (table != null) {
+            if (table.contains(name)) {
+                NorSymbol symbol = table.get(name);
+                return variableOperands.computeIfAbsent(symbol, s -> new VarOperand(name, s));
+            }
+            table = table.getOut();
+        }
+        return unresolvedOperands.computeIfAbsent(name, n -> new VarOperand(n, null));
+    }
+
+    /**
+     * 获取标签操作数 - 同名标签每次得到的都是同一个对象
+     * 
+     * @param name 标签名
+     * @return 标签操作数
+     */
+    public LabelOperand label(String name) {
+        return labelOperands.computeIfAbsent(name, LabelOperand::new);
+    }
+
+    /**
+     * 发出标签指令 - 在代码中"插旗标记"
+     * 
+     * @param labelNumber 要标记的标签编号
+     */
+    public void emitlabel(int labelNumber) {
+        midCodes.add(new midCode(midCode.operation.LABEL, new ConstOperand(labelNumber)));
+    }
+
+    /**
+     * 发出中间代码指令 - 编译器的"指令下达"
+     * 
+     * @param instruction 要添加的中间代码指令
+     */
+    public void emit(midCode instruction) {
+        midCodes.add(instruction);
+    }
+}
@@ -1,5 +1,7 @@
 package AST;
 
+import Midcode.ConstOperand;
+import Midcode.Operand;
 import Midcode.midCode;
 import Symbol_table.Symbols.ArraySymbol;
 import Symbol_table.Symbols.VarSymbol;
@@ -46,49 +48,52 @@ public class ConstDef extends Def {
      * 3. 最后在符号表中登记，标记为不可修改
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         for (Expr expression : initializationExpressions) {
-            expression.canculculate();
+            expression.canculculate(ctx);
         }
 
         // 计算所有常量值 - 在编译时就把值确定下来
         for (int i = 0; i < initializationExpressions.size(); i++) {
-            computedConstantValues.add(initializationExpressions.get(i).calculate());
+            computedConstantValues.add(initializationExpressions.get(i).calculate(ctx));
         }
 
         String constantName = targetVariable.op.getContent();
 
         if (targetVariable instanceof Id) {
             int constantValue = computedConstantValues.get(0);
-            emit(new midCode(midCode.operation.CONST, constantName, String.valueOf(constantValue), null));
-            inttable.add(constantName, new VarSymbol(constantName, true, constantValue));
+            ctx.getIntTable().add(constantName, new VarSymbol(constantName, true, constantValue));
+            ctx.emit(new midCode(midCode.operation.CONST, ctx.variable(constantName),
+                    new ConstOperand(constantValue), null));
 
         } else if (targetVariable instanceof Array) {
             Array arrayTarget = (Array) targetVariable;
             Expr firstDimension = arrayTarget.getOneindex();
             Expr secondDimension = arrayTarget.getTwoindex();
-            int firstDimensionSize = firstDimension.calculate();
+            int firstDimensionSize = firstDimension.calculate(ctx);
 
             if (secondDimension == null) {
-                emit(new midCode(midCode.operation.ARRAY, constantName, String.valueOf(firstDimensionSize), null));
+                ctx.getIntTable().add(constantName, new ArraySymbol(constantName, true, 1, computedConstantValues));
+                Operand array = ctx.variable(constantName);
+                ctx.emit(new midCode(midCode.operation.ARRAY, array, new ConstOperand(firstDimensionSize), null));
                 for (int i = 0; i < initializationExpressions.size(); i++) {
-                    emit(new midCode(midCode.operation.PUTARRAY, constantName, String.valueOf(i),
-                            String.valueOf(computedConstantValues.get(i))));
+                    ctx.emit(new midCode(midCode.operation.PUTARRAY, array, new ConstOperand(i),
+                            new ConstOperand(computedConstantValues.get(i))));
                 }
-                inttable.add(constantName, new ArraySymbol(constantName, true, 1, computedConstantValues));
             } else {
-                int secondDimensionSize = secondDimension.calculate();
-                emit(new midCode(midCode.operation.ARRAY, constantName, String.valueOf(firstDimensionSize),
-                        String.valueOf(secondDimensionSize)));
+                int secondDimensionSize = secondDimension.calculate(ctx);
+                ctx.getIntTable().add(constantName,
+                        new ArraySymbol(constantName, true, 2, secondDimensionSize, computedConstantValues));
+                Operand array = ctx.variable(constantName);
+                ctx.emit(new midCode(midCode.operation.ARRAY, array, new ConstOperand(firstDimensionSize),
+                        new ConstOperand(secondDimensionSize)));
                 for (int i = 0; i < initializationExpressions.size(); i++) {
-                    emit(new midCode(midCode.operation.PUTARRAY, constantName, String.valueOf(i),
-                            String.valueOf(computedConstantValues.get(i))));
+                    ctx.emit(new midCode(midCode.operation.PUTARRAY, array, new ConstOperand(i),
+                            new ConstOperand(computedConstantValues.get(i))));
                 }
-                inttable.add(constantName,
-                        new ArraySymbol(constantName, true, 2, secondDimensionSize, computedConstantValues));
             }
         } else {
-            System.out.print("--------------常量定义类型错误-----------");
+            ctx.getDiagnostics().print("--------------常量定义类型错误-----------");
         }
     }
 }
@@ -1,5 +1,7 @@
 package AST;
 
+import Midcode.ConstOperand;
+import Midcode.Operand;
 import Word.Word;
 
 /**
@@ -28,7 +30,7 @@ public class Constant extends Expr {
      * 比如把字符串"42"转换成整数42
      */
     @Override
-    public int calculate() {
+    public int calculate(CompilationContext ctx) {
         return Integer.parseInt(op.getContent());
     }
 
@@ -38,9 +40,17 @@ public class Constant extends Expr {
      * 这个方法同时会设置内部的缓存标志，避免重复解析
      */
     @Override
-    public boolean canculculate() {
+    public boolean canculculate(CompilationContext ctx) {
         isvalue = true;
         value = Integer.parseInt(op.getContent());
         return true;
     }
+
+    /**
+     * 常量的操作数直接携带数值，后续阶段不需要再解析文本
+     */
+    @Override
+    public Operand toOperand(CompilationContext ctx) {
+        return new ConstOperand(Integer.parseInt(op.getContent()));
+    }
 }
@@ -22,8 +22,8 @@ public class Continue extends Stmt {
      * 3. 相当于说："跳过后面的代码，回到循环开头重新开始！"
      */
     @Override
-    public void gen() {
-        int currentLoopId = loopstack.peek();
-        emit(new midCode(midCode.operation.GOTO, "Loop" + String.valueOf(currentLoopId) + "begin"));
+    public void gen(CompilationContext ctx) {
+        int currentLoopId = ctx.currentLoop();
+        ctx.emit(new midCode(midCode.operation.GOTO, ctx.label("Loop" + String.valueOf(currentLoopId) + "begin")));
     }
 }
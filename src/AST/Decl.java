@@ -38,9 +38,9 @@ public class Decl extends BlockItem {
      * 都送到下一个处理环节生成对应的中间代码
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         for (Def currentDefinition : definitionList) {
-            currentDefinition.gen();
+            currentDefinition.gen(ctx);
         }
     }
 }
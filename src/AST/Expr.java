@@ -1,5 +1,6 @@
 package AST;
 
+import Midcode.Operand;
 import Word.Word;
 
 /**
@@ -42,9 +43,10 @@ public class Expr extends Stmt {
      * 这个方法就像数学老师教的"化简求值"，
      * 把复杂的表达式一步步简化成最简形式。
      * 
+     * @param ctx 当前编译会话
      * @return 化简后的表达式
      */
-    public Expr reduce() {
+    public Expr reduce(CompilationContext ctx) {
         return this;
     }
 
@@ -55,7 +57,7 @@ public class Expr extends Stmt {
      * 具体的表达式类型会重写此方法实现特定的代码生成逻辑。
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         // 默认通过表达式化简来处理
         // 子类可以重写此方法实现特定的代码生成逻辑
     }
@@ -66,9 +68,10 @@ public class Expr extends Stmt {
      * 这个方法就像有经验的数学老师，一眼就能看出
      * 哪些题目可以心算得出答案，哪些需要用到计算器。
      * 
+     * @param ctx 当前编译会话
      * @return true表示可以在编译时直接计算出结果，false表示需要运行时计算
      */
-    public boolean canculculate() {
+    public boolean canculculate(CompilationContext ctx) {
         return false;
     }
 
@@ -88,12 +91,26 @@ public class Expr extends Stmt {
      * 这个方法就像真正按下计算器的"等号"键，
      * 得出最终的计算结果。
      * 
+     * @param ctx 当前编译会话
      * @return 表达式计算的结果值
      */
-    public int calculate() {
+    public int calculate(CompilationContext ctx) {
         return 0;
     }
 
+    /**
+     * 获取表达式化简结果在中间代码中的操作数
+     * 
+     * 化简后剩下的只有常量、临时变量和变量名，
+     * 默认按变量名在当前作用域中解析，常量和临时变量由子类重写。
+     * 
+     * @param ctx 当前编译会话
+     * @return 表达式对应的操作数
+     */
+    public Operand toOperand(CompilationContext ctx) {
+        return ctx.variable(op.getContent());
+    }
+
     /**
      * 获取表达式内容的字符串形式
      * 
@@ -1,5 +1,6 @@
 package AST;
 
+import Midcode.ConstOperand;
 import Midcode.midCode;
 import Symbol_table.Symbols.ArraySymbol;
 import Symbol_table.Symbols.VarSymbol;
@@ -51,25 +52,25 @@ public class Fparam extends Node {
      * 不同类型的参数需要不同的处理方式和存储空间安排。
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         String parameterNameString = parameterName.getcontent();
 
         if (dimensionLevel == 0) {
             // 普通变量参数 - 设置普通信件接收窗口
-            emit(new midCode(midCode.operation.PARAM, parameterNameString, String.valueOf("0")));
-            inttable.add(parameterNameString, new VarSymbol(parameterNameString, false, 0));
+            ctx.getIntTable().add(parameterNameString, new VarSymbol(parameterNameString, false, 0));
+            ctx.emit(new midCode(midCode.operation.PARAM, ctx.variable(parameterNameString), new ConstOperand(0)));
 
         } else if (dimensionLevel == 1) {
             // 一维数组参数 - 设置包裹接收窗口
-            emit(new midCode(midCode.operation.PARAM, parameterNameString, String.valueOf("1")));
-            inttable.add(parameterNameString, new ArraySymbol(parameterNameString, false, 1));
+            ctx.getIntTable().add(parameterNameString, new ArraySymbol(parameterNameString, false, 1));
+            ctx.emit(new midCode(midCode.operation.PARAM, ctx.variable(parameterNameString), new ConstOperand(1)));
 
         } else {
             // 二维数组参数 - 设置大件货物接收窗口
-            int secondDimensionValue = secondDimensionSize.calculate();
-            emit(new midCode(midCode.operation.PARAM, parameterNameString, String.valueOf("2"),
-                    String.valueOf(secondDimensionValue)));
-            inttable.add(parameterNameString, new ArraySymbol(parameterNameString, false, 2, secondDimensionValue));
+            int secondDimensionValue = secondDimensionSize.calculate(ctx);
+            ctx.getIntTable().add(parameterNameString, new ArraySymbol(parameterNameString, false, 2, secondDimensionValue));
+            ctx.emit(new midCode(midCode.operation.PARAM, ctx.variable(parameterNameString), new ConstOperand(2),
+                    new ConstOperand(secondDimensionValue)));
         }
     }
 }
@@ -1,7 +1,8 @@
 package AST;
 
+import Midcode.ConstOperand;
+import Midcode.TextOperand;
 import Midcode.midCode;
-import Symbol_table.IntergerTable;
 import Symbol_table.Symbols.FuncSymbol;
 
 import java.util.ArrayList;
@@ -79,33 +80,33 @@ public class Func extends Node {
      * 5. 编译函数体(建设具体的生产线)
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         // 将函数注册到符号表(除了main函数，它是特殊的入口点)
         if (!isMainFunction) {
-            funcTable.add(functionName.getcontent(), new FuncSymbol(returnType));
+            ctx.getFuncTable().add(functionName.getcontent(), new FuncSymbol(returnType));
         }
 
-        String typeString = returnType == 0 ? "void" : "int";
+        TextOperand typeString = returnType == 0 ? TextOperand.VOID : TextOperand.INT;
         // 创建新的作用域 - 为函数建造独立的工作环境
-        inttable = new IntergerTable(inttable);
+        ctx.enterScope();
 
         // 获取函数块标识符并设置入口标签
-        int blockIdentifier = Block.getCount();
-        emit(new midCode(midCode.operation.LABEL, String.valueOf(blockIdentifier), "start"));
+        int blockIdentifier = ctx.newBlock();
+        ctx.emit(new midCode(midCode.operation.LABEL, new ConstOperand(blockIdentifier), TextOperand.START));
 
         if (isMainFunction) {
             // 处理主函数 - 程序的总开关
-            emit(new midCode(midCode.operation.MAIN, "main"));
+            ctx.emit(new midCode(midCode.operation.MAIN, ctx.label("main")));
         } else {
             // 处理普通函数 - 专门的功能车间
-            emit(new midCode(midCode.operation.FUNC, functionName.getcontent(), typeString));
+            ctx.emit(new midCode(midCode.operation.FUNC, ctx.label(functionName.getcontent()), typeString));
             // 处理形式参数 - 安装输入接口
             for (Fparam parameter : formalParameters) {
-                parameter.gen();
+                parameter.gen(ctx);
             }
         }
 
         // 编译函数体 - 建设具体的生产线
-        functionBody.gen(blockIdentifier);
+        functionBody.gen(ctx, blockIdentifier);
     }
 }
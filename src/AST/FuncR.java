@@ -1,5 +1,6 @@
 package AST;
 
+import Midcode.ConstOperand;
 import Midcode.midCode;
 import Word.Word;
 
@@ -49,15 +50,15 @@ public class FuncR extends Expr {
      * 4. 接收外卖(获取返回值)
      */
     @Override
-    public Expr reduce() {
+    public Expr reduce(CompilationContext ctx) {
         // 第一步：准备订单 - 计算所有实际参数的值
         for (Expr parameter : actualParameters) {
-            parameter.canculculate();
+            parameter.canculculate(ctx);
         }
 
         // 第二步：标准化订单 - 获取参数的最终形式
         for (Expr parameter : actualParameters) {
-            processedParameters.add(parameter.reduce());
+            processedParameters.add(parameter.reduce(ctx));
         }
 
         // 第三步：提交订单 - 将参数按顺序压入栈中
@@ -65,28 +66,28 @@ public class FuncR extends Expr {
             if (processedParameter instanceof Array) {
                 // 数组参数需要特殊处理 - 传递数组的基地址和索引信息
                 Array arrayParam = (Array) processedParameter;
-                emit(new midCode(midCode.operation.PUSH,
-                        processedParameter.op.getContent(),
-                        arrayParam.temporaryStorage.toString(),
-                        arrayParam.secondDimensionInfo));
+                ctx.emit(new midCode(midCode.operation.PUSH,
+                        processedParameter.toOperand(ctx),
+                        arrayParam.temporaryStorage.toOperand(ctx),
+                        new ConstOperand(arrayParam.secondDimensionInfo)));
             } else {
                 // 普通参数直接传递值
-                emit(new midCode(midCode.operation.PUSH, processedParameter.toString()));
+                ctx.emit(new midCode(midCode.operation.PUSH, processedParameter.toOperand(ctx)));
             }
         }
 
         // 第四步：发起调用 - 跳转到目标函数
-        emit(new midCode(midCode.operation.CALL, op.getContent()));
+        ctx.emit(new midCode(midCode.operation.CALL, ctx.label(op.getContent())));
 
         // 第五步：处理返回值 - 根据函数类型决定是否接收返回值
-        int functionReturnType = funcTable.get(op.getContent()).getReturntype();
+        int functionReturnType = ctx.getFuncTable().get(op.getContent()).getReturntype();
         if (functionReturnType == 0) {
             // void函数：没有返回值，直接返回调用表达式本身
             return this;
         } else {
             // int函数：有返回值，创建临时变量接收
-            Temp returnValueHolder = new Temp(op);
-            emit(new midCode(midCode.operation.RETVALUE, returnValueHolder.toString()));
+            Temp returnValueHolder = new Temp(ctx, op);
+            ctx.emit(new midCode(midCode.operation.RETVALUE, returnValueHolder.toOperand(ctx)));
             return returnValueHolder;
         }
     }
@@ -95,8 +96,8 @@ public class FuncR extends Expr {
      * 生成中间代码 - 简化的调用接口
      */
     @Override
-    public void gen() {
-        reduce();
+    public void gen(CompilationContext ctx) {
+        reduce(ctx);
     }
 
     /**
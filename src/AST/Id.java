@@ -31,9 +31,9 @@ public class Id extends Lval {
      * 就像在字典里查单词一样，从当前作用域开始，一层层往外找
      */
     @Override
-    public int calculate() {
+    public int calculate(CompilationContext ctx) {
         // 从当前符号表开始查找
-        IntergerTable currentScope = inttable;
+        IntergerTable currentScope = ctx.getIntTable();
         VarSymbol foundSymbol = null;
 
         // 在符号表的作用域链中查找标识符
@@ -54,7 +54,7 @@ public class Id extends Lval {
      * 这样可以优化代码，减少运行时的查表操作
      */
     @Override
-    public Expr reduce() {
+    public Expr reduce(CompilationContext ctx) {
         if (isvalue) {
             return new Constant(new Word(String.valueOf(value)));
         }
@@ -66,8 +66,8 @@ public class Id extends Lval {
      * 只有常量才能在编译期计算，普通变量需要等到运行时才知道值
      */
     @Override
-    public boolean canculculate() {
-        IntergerTable currentScope = inttable;
+    public boolean canculculate(CompilationContext ctx) {
+        IntergerTable currentScope = ctx.getIntTable();
         VarSymbol foundSymbol = null;
 
         // 在符号表链中搜索标识符定义
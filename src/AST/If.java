@@ -50,28 +50,28 @@ public class If extends Stmt {
      * - 双分支：条件假→跳转到else，if结束→跳转到整体结束
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         if (falsePathStatement == null) {
             // 处理单分支if语句 - 简单的"红灯停"逻辑
-            falseJumpLabel = ++jumps;
-            conditionalExpression.gen(falseJumpLabel);
+            falseJumpLabel = ctx.newJump();
+            conditionalExpression.gen(ctx, falseJumpLabel);
             if (truePathStatement != null) {
-                truePathStatement.gen();
+                truePathStatement.gen(ctx);
             }
-            emit(new midCode(midCode.operation.Jump, "Jump" + falseJumpLabel));
+            ctx.emit(new midCode(midCode.operation.Jump, ctx.label("Jump" + falseJumpLabel)));
         } else {
             // 处理双分支if-else语句 - 复杂的"红绿灯"控制系统
-            falseJumpLabel = ++jumps; // 条件为假时跳转到else分支
-            endJumpLabel = ++jumps; // if分支结束后跳转到整体结束
+            falseJumpLabel = ctx.newJump(); // 条件为假时跳转到else分支
+            endJumpLabel = ctx.newJump(); // if分支结束后跳转到整体结束
 
-            conditionalExpression.gen(falseJumpLabel);
+            conditionalExpression.gen(ctx, falseJumpLabel);
             if (truePathStatement != null) {
-                truePathStatement.gen();
+                truePathStatement.gen(ctx);
             }
-            emit(new midCode(midCode.operation.GOTO, "Jump" + endJumpLabel));
-            emit(new midCode(midCode.operation.Jump, "Jump" + falseJumpLabel));
-            falsePathStatement.gen();
-            emit(new midCode(midCode.operation.Jump, "Jump" + endJumpLabel));
+            ctx.emit(new midCode(midCode.operation.GOTO, ctx.label("Jump" + endJumpLabel)));
+            ctx.emit(new midCode(midCode.operation.Jump, ctx.label("Jump" + falseJumpLabel)));
+            falsePathStatement.gen(ctx);
+            ctx.emit(new midCode(midCode.operation.Jump, ctx.label("Jump" + endJumpLabel)));
         }
     }
 }
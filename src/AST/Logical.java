@@ -36,9 +36,9 @@ public class Logical extends Expr {
      * 比如 5 > 3 肯定是true，但 a > 3 需要运行时才知道结果
      */
     @Override
-    public boolean canculculate() {
-        boolean leftIsConstant = leftExpression.canculculate();
-        boolean rightIsConstant = rightExpression.canculculate();
+    public boolean canculculate(CompilationContext ctx) {
+        boolean leftIsConstant = leftExpression.canculculate(ctx);
+        boolean rightIsConstant = rightExpression.canculculate(ctx);
 
         if (leftIsConstant && rightIsConstant) {
             this.isvalue = true;
@@ -69,14 +69,14 @@ public class Logical extends Expr {
      * 如果比较结果是编译期常量，就直接返回常量节点；
      * 否则生成三地址码形式的比较指令
      */
-    public Expr reduce() {
+    public Expr reduce(CompilationContext ctx) {
         // 编译期可确定的比较直接返回结果常量
         if (isvalue) {
             return new Constant(new Word(String.valueOf(value)));
         }
 
         // 为比较结果创建临时变量
-        Temp comparisonResult = new Temp(op);
+        Temp comparisonResult = new Temp(ctx, op);
         String comparisonSymbol = op.getContent();
         midCode.operation operationType = midCode.operation.DEBUG;
 
@@ -96,8 +96,8 @@ public class Logical extends Expr {
         }
 
         // 发射比较指令的中间代码
-        emit(new midCode(operationType, comparisonResult.toString(),
-                leftExpression.reduce().toString(), rightExpression.reduce().toString()));
+        ctx.emit(new midCode(operationType, comparisonResult.toOperand(ctx),
+                leftExpression.reduce(ctx).toOperand(ctx), rightExpression.reduce(ctx).toOperand(ctx)));
         return comparisonResult;
     }
 }
@@ -1,5 +1,6 @@
 package AST;
 
+import Midcode.Operand;
 import Word.Word;
 
 /**
@@ -28,4 +29,17 @@ public class Lval extends Expr {
     public Lval(Word variableToken) {
         super(variableToken);
     }
+
+    /**
+     * 获取写入位置的操作数 - 赋值、输入语句的"收件地址"
+     * 
+     * 普通变量的地址就是它自己；数组元素会在子类中
+     * 生成下标计算代码，并返回线性化后的下标。
+     * 
+     * @param ctx 当前编译会话
+     * @return 写入位置的操作数
+     */
+    public Operand address(CompilationContext ctx) {
+        return toOperand(ctx);
+    }
 }
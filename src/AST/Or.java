@@ -36,21 +36,22 @@ public class Or extends Node {
      * 逻辑：任何一个And条件成功，就跳转到成功标签；
      * 所有And条件都失败，才跳转到失败标签
      * 
+     * @param ctx          当前编译会话
      * @param failureLabel 所有条件都为false时跳转的标签
      */
-    public void gen(int failureLabel) {
-        successJumpLabel = ++jumps;
+    public void gen(CompilationContext ctx, int failureLabel) {
+        successJumpLabel = ctx.newJump();
 
         // 为每个And条件生成代码，成功就跳到成功标签
         for (And andCondition : andConditions) {
-            andCondition.gen(successJumpLabel);
+            andCondition.gen(ctx, successJumpLabel);
         }
 
         // 所有And条件都失败，跳转到失败标签
-        emit(new midCode(midCode.operation.GOTO, "Jump" + failureLabel));
+        ctx.emit(new midCode(midCode.operation.GOTO, ctx.label("Jump" + failureLabel)));
 
         // 设置成功标签位置
-        emit(new midCode(midCode.operation.Jump, "Jump" + successJumpLabel));
+        ctx.emit(new midCode(midCode.operation.Jump, ctx.label("Jump" + successJumpLabel)));
     }
 
     /**
@@ -59,21 +60,22 @@ public class Or extends Node {
      * 这个版本专门用于while循环的条件判断，
      * 失败时不是跳到普通标签，而是跳到循环结束标签
      * 
+     * @param ctx         当前编译会话
      * @param loopId      循环的标识编号
      * @param isWhileLoop 标识这是while循环的标志
      */
-    public void gen(int loopId, boolean isWhileLoop) {
-        successJumpLabel = ++jumps;
+    public void gen(CompilationContext ctx, int loopId, boolean isWhileLoop) {
+        successJumpLabel = ctx.newJump();
 
         // 为每个And条件生成代码
         for (And andCondition : andConditions) {
-            andCondition.gen(successJumpLabel);
+            andCondition.gen(ctx, successJumpLabel);
         }
 
         // 所有条件都失败，跳出while循环
-        emit(new midCode(midCode.operation.GOTO, "Loop" + String.valueOf(loopId) + "end"));
+        ctx.emit(new midCode(midCode.operation.GOTO, ctx.label("Loop" + String.valueOf(loopId) + "end")));
 
         // 设置成功标签位置（继续循环体运行）
-        emit(new midCode(midCode.operation.Jump, "Jump" + successJumpLabel));
+        ctx.emit(new midCode(midCode.operation.Jump, ctx.label("Jump" + successJumpLabel)));
     }
 }
@@ -1,5 +1,6 @@
 package AST;
 
+import Midcode.TextOperand;
 import Midcode.midCode;
 import Word.Word;
 
@@ -50,9 +51,9 @@ public class Print extends Stmt {
      * 3. 区分文字播报和数字播报
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         for (Expr expression : outputExpressions) {
-            expression.canculculate();
+            expression.canculculate(ctx);
         }
 
         int expressionIndex = 0;
@@ -63,13 +64,13 @@ public class Print extends Stmt {
         for (String segment : parsedSegments) {
             if (!segment.equals("%d")) {
                 // 输出文本片段 - 播报文字内容
-                emit(new midCode(midCode.operation.PRINT, segment, "string"));
-                stringss.add(segment);
+                ctx.emit(new midCode(midCode.operation.PRINT, new TextOperand(segment), TextOperand.STRING));
+                ctx.getStrings().add(segment);
             } else {
                 // 输出数字 - 播报变量值
-                emit(new midCode(midCode.operation.PRINT,
-                        outputExpressions.get(expressionIndex++).reduce().toString(),
-                        "digit"));
+                ctx.emit(new midCode(midCode.operation.PRINT,
+                        outputExpressions.get(expressionIndex++).reduce(ctx).toOperand(ctx),
+                        TextOperand.DIGIT));
             }
         }
     }
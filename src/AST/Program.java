@@ -45,14 +45,14 @@ public class Program extends Node {
      * 
      * 严格按照这个顺序执行，确保编译过程的正确性。
      */
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         for (Decl globalDeclaration : globalDeclarations) {
-            globalDeclaration.gen();
+            globalDeclaration.gen(ctx);
         }
 
         // 第二阶段：编译函数定义 - 实现程序的具体功能
         for (Func functionDefinition : functionDefinitions) {
-            functionDefinition.gen();
+            functionDefinition.gen(ctx);
         }
     }
 }
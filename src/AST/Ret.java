@@ -38,18 +38,18 @@ public class Ret extends Stmt {
      * 3. 执行配送任务(生成返回指令)
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         // 如果有返回值，先准备"包裹"
         if (returnValueExpression != null) {
-            returnValueExpression.canculculate();
+            returnValueExpression.canculculate(ctx);
         }
 
         if (returnValueExpression == null) {
             // 空手返回 - 无返回值的情况
-            emit(new midCode(midCode.operation.RET, null));
+            ctx.emit(new midCode(midCode.operation.RET, null));
         } else {
             // 带货返回 - 有返回值的情况
-            emit(new midCode(midCode.operation.RET, returnValueExpression.reduce().toString()));
+            ctx.emit(new midCode(midCode.operation.RET, returnValueExpression.reduce(ctx).toOperand(ctx)));
         }
     }
 }
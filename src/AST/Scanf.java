@@ -39,20 +39,20 @@ public class Scanf extends Stmt {
      * - 复杂地址：先收到代收点，再转送到具体位置
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         if (inputTarget instanceof Id) {
             // 普通变量输入 - 直接投递模式
-            emit(new midCode(midCode.operation.SCAN, inputTarget.reduce().toString()));
+            ctx.emit(new midCode(midCode.operation.SCAN, inputTarget.reduce(ctx).toOperand(ctx)));
         } else {
             // 数组元素输入 - 中转投递模式
             // 先收到临时仓库
-            Temp temporaryStorage = new Temp(null);
-            emit(new midCode(midCode.operation.SCAN, temporaryStorage.toString()));
+            Temp temporaryStorage = new Temp(ctx, null);
+            ctx.emit(new midCode(midCode.operation.SCAN, temporaryStorage.toOperand(ctx)));
             // 再从临时仓库转移到目标位置
-            emit(new midCode(midCode.operation.PUTARRAY,
-                    inputTarget.getcontent(),
-                    inputTarget.toString(),
-                    temporaryStorage.toString()));
+            ctx.emit(new midCode(midCode.operation.PUTARRAY,
+                    inputTarget.toOperand(ctx),
+                    inputTarget.address(ctx),
+                    temporaryStorage.toOperand(ctx)));
         }
     }
 }
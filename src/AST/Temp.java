@@ -1,5 +1,7 @@
 package AST;
 
+import Midcode.Operand;
+import Midcode.TempOperand;
 import Word.Word;
 
 /**
@@ -13,21 +15,28 @@ import Word.Word;
  */
 public class Temp extends Expr {
 
-    /* 全局临时变量计数器，确保每个临时变量都有唯一的编号 */
-    private static int globalTempCounter = 0;
-
-    /* 当前临时变量的唯一编号 */
-    private int uniqueIdentifier = 0;
+    /* 当前临时变量的操作数，带有唯一编号 */
+    private final TempOperand operand;
 
     /**
      * 创建一个新的临时变量节点
-     * 每次创建都会自动分配一个递增的唯一编号
+     * 每次创建都会从编译会话中分配一个递增的唯一编号，
+     * 编号只在同一次编译内唯一，不同的编译互不干扰
      * 
+     * @param ctx              当前编译会话
      * @param placeholderToken 占位用的词法单元（通常内容不重要）
      */
-    public Temp(Word placeholderToken) {
+    public Temp(CompilationContext ctx, Word placeholderToken) {
         super(placeholderToken);
-        this.uniqueIdentifier = ++globalTempCounter;
+        this.operand = new TempOperand(ctx.newTemp());
+    }
+
+    /**
+     * 临时变量的操作数在创建节点时就已确定，每次使用都是同一个对象
+     */
+    @Override
+    public Operand toOperand(CompilationContext ctx) {
+        return operand;
     }
 
     /**
@@ -38,6 +47,6 @@ public class Temp extends Expr {
      * @return 临时变量的标识字符串，如 "t&1", "t&2" 等
      */
     public String toString() {
-        return "t&" + uniqueIdentifier;
+        return operand.toString();
     }
 }
@@ -1,5 +1,6 @@
 package AST;
 
+import Midcode.ConstOperand;
 import Midcode.midCode;
 import Word.Word;
 
@@ -36,8 +37,8 @@ public class Unary extends Expr {
      * 比如 -5 可以算成 -5，但 -x 需要运行时才知道结果
      */
     @Override
-    public boolean canculculate() {
-        if (operandExpression.canculculate()) {
+    public boolean canculculate(CompilationContext ctx) {
+        if (operandExpression.canculculate(ctx)) {
             isvalue = true;
             String operatorSymbol = op.getContent();
 
@@ -60,19 +61,19 @@ public class Unary extends Expr {
      * 执行一元运算的实际计算
      */
     @Override
-    public int calculate() {
+    public int calculate(CompilationContext ctx) {
         String operatorSymbol = op.getContent();
         if (operatorSymbol.equals("-"))
-            return operandExpression.calculate() * (-1);
+            return operandExpression.calculate(ctx) * (-1);
         else
-            return operandExpression.calculate();
+            return operandExpression.calculate(ctx);
     }
 
     /**
      * 化简一元表达式并生成中间代码
      */
     @Override
-    public Expr reduce() {
+    public Expr reduce(CompilationContext ctx) {
         // 如果能预先计算，直接返回常量
         if (isvalue) {
             return new Constant(new Word(String.valueOf(value)));
@@ -82,18 +83,18 @@ public class Unary extends Expr {
 
         if (operatorSymbol.equals("+")) {
             // 正号不需要额外操作，直接返回原表达式
-            return operandExpression.reduce();
+            return operandExpression.reduce(ctx);
         } else if (operatorSymbol.equals("-")) {
             // 负号：生成 temp = 0 - operand 的代码
-            Temp negationResult = new Temp(op);
-            emit(new midCode(midCode.operation.MINUOP, negationResult.toString(),
-                    "0", operandExpression.reduce().toString()));
+            Temp negationResult = new Temp(ctx, op);
+            ctx.emit(new midCode(midCode.operation.MINUOP, negationResult.toOperand(ctx),
+                    new ConstOperand(0), operandExpression.reduce(ctx).toOperand(ctx)));
             return negationResult;
         } else if (operatorSymbol.equals("!")) {
             // 逻辑非：生成 temp = (operand == 0) 的代码
-            Temp notResult = new Temp(op);
-            emit(new midCode(midCode.operation.EQLOP, notResult.toString(),
-                    "0", operandExpression.reduce().toString()));
+            Temp notResult = new Temp(ctx, op);
+            ctx.emit(new midCode(midCode.operation.EQLOP, notResult.toOperand(ctx),
+                    new ConstOperand(0), operandExpression.reduce(ctx).toOperand(ctx)));
             return notResult;
         } else {
             return null;
@@ -1,5 +1,7 @@
 package AST;
 
+import Midcode.ConstOperand;
+import Midcode.Operand;
 import Midcode.midCode;
 import Symbol_table.Symbols.ArraySymbol;
 import Symbol_table.Symbols.VarSymbol;
@@ -42,50 +44,53 @@ public class VarDef extends Def {
      * - 数组：挖个大坑(分配连续空间)，按顺序摆放物品(数组初始化)
      */
     @Override
-    public void gen() {
+    public void gen(CompilationContext ctx) {
         for (ArrayList<Expr> expressionRow : initializationValues) {
             for (Expr singleExpression : expressionRow) {
-                singleExpression.canculculate();
+                singleExpression.canculculate(ctx);
             }
         }
 
         String variableName = targetVariable.op.getContent();
 
         if (targetVariable instanceof Id) {
-            if (initializationValues.size() == 0) {
-                emit(new midCode(midCode.operation.VAR, variableName, null, null));
-            } else {
+            // 初值要在登记新变量之前化简，初值里的同名变量指的是外层的变量
+            Operand initValue = null;
+            if (initializationValues.size() != 0) {
                 Expr initExpression = initializationValues.get(0).get(0);
-                emit(new midCode(midCode.operation.VAR, variableName, initExpression.reduce().toString(), null));
+                initValue = initExpression.reduce(ctx).toOperand(ctx);
             }
-            inttable.add(variableName, new VarSymbol(variableName, false, 0));
+            ctx.getIntTable().add(variableName, new VarSymbol(variableName, false, 0));
+            ctx.emit(new midCode(midCode.operation.VAR, ctx.variable(variableName), initValue, null));
 
         } else if (targetVariable instanceof Array) {
             Array arrayTarget = (Array) targetVariable;
             Expr firstDimension = arrayTarget.getOneindex();
             Expr secondDimension = arrayTarget.getTwoindex();
-            int firstDimensionSize = firstDimension.calculate();
+            int firstDimensionSize = firstDimension.calculate(ctx);
             int secondDimensionSize = 0;
 
             if (secondDimension == null) {
-                emit(new midCode(midCode.operation.ARRAY, variableName, String.valueOf(firstDimensionSize), null));
-                inttable.add(variableName, new ArraySymbol(variableName, false, 1));
+                ctx.getIntTable().add(variableName, new ArraySymbol(variableName, false, 1));
+                ctx.emit(new midCode(midCode.operation.ARRAY, ctx.variable(variableName),
+                        new ConstOperand(firstDimensionSize), null));
             } else {
-                secondDimensionSize = secondDimension.calculate();
-                emit(new midCode(midCode.operation.ARRAY, variableName, String.valueOf(firstDimensionSize),
-                        String.valueOf(secondDimensionSize)));
-                inttable.add(variableName, new ArraySymbol(variableName, false, 2, secondDimensionSize));
+                secondDimensionSize = secondDimension.calculate(ctx);
+                ctx.getIntTable().add(variableName, new ArraySymbol(variableName, false, 2, secondDimensionSize));
+                ctx.emit(new midCode(midCode.operation.ARRAY, ctx.variable(variableName),
+                        new ConstOperand(firstDimensionSize), new ConstOperand(secondDimensionSize)));
             }
 
             for (int rowIndex = 0; rowIndex < initializationValues.size(); rowIndex++) {
                 for (int columnIndex = 0; columnIndex < initializationValues.get(rowIndex).size(); columnIndex++) {
                     int linearIndex = rowIndex * secondDimensionSize + columnIndex;
-                    String initValue = initializationValues.get(rowIndex).get(columnIndex).reduce().toString();
-                    emit(new midCode(midCode.operation.PUTARRAY, variableName, String.valueOf(linearIndex), initValue));
+                    Operand initValue = initializationValues.get(rowIndex).get(columnIndex).reduce(ctx).toOperand(ctx);
+                    ctx.emit(new midCode(midCode.operation.PUTARRAY, ctx.variable(variableName),
+                            new ConstOperand(linearIndex), initValue));
                 }
             }
         } else {
-            System.out.print("--------------变量定义类型错误-----------");
+            ctx.getDiagnostics().print("--------------变量定义类型错误-----------");
         }
     }
 }
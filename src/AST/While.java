@@ -49,29 +49,29 @@ public class While extends Stmt {
      * 5. 条件不满足时设置停止点
      */
     @Override
-    public void gen() {
-        loopIdentifier = ++jumps;
+    public void gen(CompilationContext ctx) {
+        loopIdentifier = ctx.newJump();
         // 将当前循环ID压入栈，支持嵌套循环的break/continue
-        loopstack.push(loopIdentifier);
+        ctx.enterLoop(loopIdentifier);
 
         // 设置循环开始标签 - 旋转木马的"启动点"
-        emit(new midCode(midCode.operation.Jump, "Loop" + loopIdentifier + "begin"));
+        ctx.emit(new midCode(midCode.operation.Jump, ctx.label("Loop" + loopIdentifier + "begin")));
 
         // 生成条件检查代码 - 安全检查，条件为假时跳出循环
-        loopCondition.gen(loopIdentifier, true);
+        loopCondition.gen(ctx, loopIdentifier, true);
 
         // 生成循环体代码 - 执行一轮循环
         if (loopBodyStatement != null) {
-            loopBodyStatement.gen();
+            loopBodyStatement.gen(ctx);
         }
 
         // 回到循环开始处 - 回到启动点准备下一轮
-        emit(new midCode(midCode.operation.GOTO, "Loop" + String.valueOf(loopIdentifier) + "begin"));
+        ctx.emit(new midCode(midCode.operation.GOTO, ctx.label("Loop" + String.valueOf(loopIdentifier) + "begin")));
 
         // 设置循环结束标签 - 旋转木马的"停止点"
-        emit(new midCode(midCode.operation.Jump, "Loop" + String.valueOf(loopIdentifier) + "end"));
+        ctx.emit(new midCode(midCode.operation.Jump, ctx.label("Loop" + String.valueOf(loopIdentifier) + "end")));
 
         // 从循环栈中弹出当前循环ID
-        loopstack.pop();
+        ctx.exitLoop();
     }
 }
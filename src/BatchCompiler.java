@@ -0,0 +1,231 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 批量编译器 - 一次编译整个目录树下的所有测试程序
+ *
+ * 在目录中递归查找 testfile.txt，放进工作窃取线程池里并行编译：
+ * 每个程序的 mips.txt 写在源文件旁边，错误列表和编译中的提示信息写入同目录的 output.txt。
+ * 每个任务都有自己的编译会话，线程之间不共享任何状态。
+ * 全部完成后输出总耗时、吞吐量（files/s）以及单个文件耗时的 p50/p99。
+ * 指定 --report 时把每个文件的分阶段统计（见 {@link CompileMetrics}）汇总写成一个 JSON 文件；
+ * 指定 --cache 时先查编译缓存（见 {@link CompileCache}），所有工作线程共用同一个缓存目录。
+ *
+ * 用法: java Compiler --batch <目录> [--threads N] [--report 文件] [--cache 目录]
+ */
+public class BatchCompiler {
+
+    private static final String SOURCE_FILE_NAME = "testfile.txt";
+    private static final String MIPS_FILE_NAME = "mips.txt";
+    private static final String ERROR_FILE_NAME = "output.txt";
+
+    private final Path rootDirectory;
+    private final int parallelism;
+    private final Path reportPath;
+    private final CompileCache cache;
+
+    public BatchCompiler(Path rootDirectory, int parallelism) {
+        this(rootDirectory, parallelism, null);
+    }
+
+    public BatchCompiler(Path rootDirectory, int parallelism, Path reportPath) {
+        this(rootDirectory, parallelism, reportPath, CompileCache.DISABLED);
+    }
+
+    public BatchCompiler(Path rootDirectory, int parallelism, Path reportPath, CompileCache cache) {
+        this.rootDirectory = rootDirectory;
+        this.parallelism = parallelism;
+        this.reportPath = reportPath;
+        this.cache = cache;
+    }
+
+    // 单个文件的编译结果
+    private static class FileResult {
+        private final Path source;
+        private final long nanos;
+        private final boolean hasErrors;
+        private final Throwable failure;
+        private final CompileMetrics metrics;
+
+        FileResult(Path source, long nanos, boolean hasErrors, Throwable failure, CompileMetrics metrics) {
+            this.source = source;
+            this.nanos = nanos;
+            this.hasErrors = hasErrors;
+            this.failure = failure;
+            this.metrics = metrics;
+        }
+    }
+
+    public static void main(String[] args) {
+        Path directory = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path report = null;
+        String cacheDirectory = System.getProperty(CompileCache.DIRECTORY_PROPERTY);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--batch") && i + 1 < args.length) {
+                directory = Paths.get(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--report") && i + 1 < args.length) {
+                report = Paths.get(args[++i]);
+            } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                cacheDirectory = args[++i];
+            }
+        }
+        if (directory == null || threads <= 0) {
+            System.err.println("用法: java Compiler --batch <目录> [--threads N] [--report 文件] [--cache 目录]");
+            System.exit(2);
+        }
+
+        try {
+            boolean allCompiled = new BatchCompiler(directory, threads, report, CompileCache.open(cacheDirectory)).run();
+            if (!allCompiled) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("遍历目录时出错: " + directory);
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    /**
+     * 编译目录下的全部程序并打印统计信息
+     *
+     * @return 所有文件都编译通过（没有错误也没有崩溃）时返回 true
+     */
+    public boolean run() throws IOException {
+        List<Path> sources = findSources();
+
+        List<Callable<FileResult>> tasks = new ArrayList<>();
+        for (Path source : sources) {
+            tasks.add(() -> compileOne(source));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        List<FileResult> results = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            for (Future<FileResult> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("批量编译被中断", e);
+        } finally {
+            pool.shutdown();
+        }
+        long wallNanos = System.nanoTime() - start;
+
+        printSummary(results, wallNanos);
+        if (reportPath != null) {
+            writeReport(results, wallNanos);
+        }
+        return results.stream().allMatch(r -> !r.hasErrors && r.failure == null);
+    }
+
+    private List<Path> findSources() throws IOException {
+        try (Stream<Path> paths = Files.walk(rootDirectory)) {
+            return paths.filter(p -> p.getFileName().toString().equals(SOURCE_FILE_NAME))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private FileResult compileOne(Path source) {
+        long start = System.nanoTime();
+        CompileMetrics metrics = reportPath != null ? new CompileMetrics(source.toString()) : CompileMetrics.DISABLED;
+        try {
+            CharBuffer sourceCode = Compiler.loadSource(source.toString());
+            metrics.phase("load");
+            // 先删掉上次的结果，免得编译失败时留下旧的 mips.txt、编译成功时留下旧的 output.txt
+            Path mipsFile = source.resolveSibling(MIPS_FILE_NAME);
+            Files.deleteIfExists(mipsFile);
+            Files.deleteIfExists(source.resolveSibling(ERROR_FILE_NAME));
+            String mipsPath = mipsFile.toString();
+
+            ByteArrayOutputStream errorBuffer = new ByteArrayOutputStream();
+            boolean compiled;
+            try (PrintStream diagnostics = new PrintStream(errorBuffer, true, "UTF-8")) {
+                compiled = Compiler.compile(sourceCode, mipsPath, diagnostics, metrics, cache);
+            }
+            // 和单文件模式一样：先是各阶段的提示信息，有错误时随后是错误标题和错误列表，都写入该程序自己的 output.txt
+            if (errorBuffer.size() > 0) {
+                Files.write(source.resolveSibling(ERROR_FILE_NAME), errorBuffer.toByteArray());
+            }
+            return new FileResult(source, System.nanoTime() - start, !compiled, null, metrics);
+        } catch (Exception | StackOverflowError e) {
+            // 单个文件的崩溃不影响其他任务
+            return new FileResult(source, System.nanoTime() - start, false, e, metrics);
+        }
+    }
+
+    private void printSummary(List<FileResult> results, long wallNanos) {
+        int errorCount = 0;
+        int failureCount = 0;
+        List<Long> latencies = new ArrayList<>();
+        for (FileResult result : results) {
+            latencies.add(result.nanos);
+            if (result.hasErrors) {
+                errorCount++;
+                System.err.println("有错误: " + result.source);
+            } else if (result.failure != null) {
+                failureCount++;
+                System.err.println("编译崩溃: " + result.source + " (" + result.failure + ")");
+            }
+        }
+        Collections.sort(latencies);
+
+        double wallSeconds = wallNanos / 1e9;
+        int total = results.size();
+        System.out.printf("batch: %d files (%d ok, %d with errors, %d failed) in %.3f s using %d threads%n",
+                total, total - errorCount - failureCount, errorCount, failureCount, wallSeconds, parallelism);
+        System.out.printf("throughput: %.1f files/s%n", wallSeconds > 0 ? total / wallSeconds : 0.0);
+        System.out.printf("latency: p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(latencies, 50) / 1e6, percentile(latencies, 99) / 1e6,
+                percentile(latencies, 100) / 1e6);
+    }
+
+    // 每个文件一项，按文件路径排序，字段与单文件的 --report 输出一致
+    private void writeReport(List<FileResult> results, long wallNanos) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"threads\":").append(parallelism);
+        json.append(",\"wallNanos\":").append(wallNanos);
+        json.append(",\"files\":[");
+        for (int i = 0; i < results.size(); i++) {
+            FileResult result = results.get(i);
+            if (i > 0) {
+                json.append(",\n");
+            }
+            String status = result.failure != null ? "failed" : result.hasErrors ? "errors" : "ok";
+            json.append("{\"status\":\"").append(status).append("\",\"nanos\":").append(result.nanos);
+            json.append(",\"metrics\":").append(result.metrics.toJson()).append('}');
+        }
+        json.append("]}\n");
+        Files.write(reportPath, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 最近秩法求百分位数，输入需已排序
+    private static long percentile(List<Long> sorted, int p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1);
+    }
+}
@@ -0,0 +1,265 @@
+import Optim.Optimize;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 按内容寻址的编译结果缓存
+ *
+ * 以"编译器指纹 + 选项 + 源码"的 SHA-256 作为键，把编译成功时生成的 mips.txt 保存为缓存目录下的 <键>.mips。
+ * 编译器指纹由版本号和编译器自身类文件（或 jar）的大小、修改时间得到，重新构建编译器后旧的缓存自然失效；
+ * 选项只取会改变生成汇编的那些（目前是 -Dsysy.ssa），中间代码输出等不影响汇编的选项不计入。
+ *
+ * 写入时先写同目录下的临时文件再原子地改名，命中时更新文件的修改时间，
+ * 总大小超过上限时按修改时间从旧到新删除，即近似的 LRU。
+ * 缓存目录只在第一次写入时完整扫描一遍，之后每次写入只累加新项的大小，累计值超过上限时才重新扫描和淘汰；
+ * 其他进程写入的项要到下一次扫描时才计入。
+ * 多个进程或批量编译的多个线程可以共用同一个缓存目录；缓存只是加速手段，读写失败时当作未命中处理。
+ * {@link #DISABLED} 不做任何缓存。
+ */
+public class CompileCache {
+    /* 缓存目录的系统属性，例如 -Dsysy.cache=/tmp/sysy-cache */
+    public static final String DIRECTORY_PROPERTY = "sysy.cache";
+    /* 缓存总大小上限（MB）的系统属性 */
+    public static final String SIZE_PROPERTY = "sysy.cache.size";
+
+    public static final CompileCache DISABLED = new CompileCache(null, 0);
+
+    private static final long DEFAULT_MAX_MEGABYTES = 256;
+    private static final String ENTRY_SUFFIX = ".mips";
+    private static final String TEMP_SUFFIX = ".tmp";
+    /* 超过这个时间的临时文件视为写入中途崩溃留下的，淘汰时一并删除 */
+    private static final long STALE_TEMP_MILLIS = 60 * 60 * 1000;
+
+    private final Path directory;
+    private final long maxBytes;
+    /* 本进程所知的缓存总大小，-1 表示还没有扫描过缓存目录 */
+    private long totalBytes = -1;
+
+    public CompileCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 按缓存目录和系统属性 sysy.cache.size 创建缓存，目录为 null 时返回 {@link #DISABLED}
+     */
+    public static CompileCache open(String directory) {
+        if (directory == null || directory.isEmpty()) {
+            return DISABLED;
+        }
+        long megabytes = Long.getLong(SIZE_PROPERTY, DEFAULT_MAX_MEGABYTES);
+        return new CompileCache(Paths.get(directory), megabytes << 20);
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * 计算一段源码的缓存键
+     *
+     * @param source 源码，不会改变其读取位置
+     */
+    public String key(CharSequence source) {
+        MessageDigest digest = sha256();
+        digest.update(Fingerprint.VALUE.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(options().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(source));
+        digest.update(bytes);
+        return hex(digest.digest());
+    }
+
+    // 影响生成汇编的选项，每次计算键时读取，运行中修改系统属性也能得到正确的键
+    private static String options() {
+        return Optimize.SSA_PROPERTY + "=" + Boolean.getBoolean(Optimize.SSA_PROPERTY);
+    }
+
+    /**
+     * 命中时把缓存的汇编复制到 target 并刷新该项的使用时间
+     *
+     * @return 命中返回 true
+     */
+    public boolean restore(String key, Path target) {
+        if (!isEnabled()) {
+            return false;
+        }
+        Path entry = directory.resolve(key + ENTRY_SUFFIX);
+        try {
+            Files.copy(entry, target, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 把生成的汇编文件存入缓存，必要时淘汰最久未使用的项
+     */
+    public void store(String key, Path mipsFile) {
+        if (!isEnabled()) {
+            return;
+        }
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+            Files.copy(mipsFile, temp, StandardCopyOption.REPLACE_EXISTING);
+            Path entry = directory.resolve(key + ENTRY_SUFFIX);
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            account(Files.size(entry));
+        } catch (IOException e) {
+            // 写不进缓存不影响本次编译
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    // 缓存项及其大小和最后使用时间
+    private static class Entry {
+        final Path path;
+        final long size;
+        final long lastUsed;
+
+        Entry(Path path, long size, long lastUsed) {
+            this.path = path;
+            this.size = size;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    // 累加新写入项的大小，第一次写入或累计值超过上限时扫描目录重新统计并淘汰
+    private synchronized void account(long size) throws IOException {
+        if (totalBytes < 0 || totalBytes + size > maxBytes) {
+            totalBytes = evict();
+        } else {
+            totalBytes += size;
+        }
+    }
+
+    // 总大小超过上限时从最久未使用的项开始删除；其他进程同时删除的项直接跳过
+    // 返回淘汰后的总大小
+    private long evict() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        long now = System.currentTimeMillis();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                long lastUsed = attributes.lastModifiedTime().toMillis();
+                if (name.endsWith(ENTRY_SUFFIX)) {
+                    entries.add(new Entry(file, attributes.size(), lastUsed));
+                    total += attributes.size();
+                } else if (name.endsWith(TEMP_SUFFIX) && now - lastUsed > STALE_TEMP_MILLIS) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        if (total <= maxBytes) {
+            return total;
+        }
+        entries.sort(Comparator.comparingLong(e -> e.lastUsed));
+        for (Entry entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(entry.path);
+            total -= entry.size;
+        }
+        return total;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder text = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            text.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return text.toString();
+    }
+
+    // 编译器指纹只在第一次用到时计算一次
+    private static final class Fingerprint {
+        static final String VALUE = compute();
+
+        private static String compute() {
+            String version = CompileCache.class.getPackage() != null
+                    ? CompileCache.class.getPackage().getImplementationVersion() : null;
+            StringBuilder text = new StringBuilder(version != null ? version : "dev");
+            try {
+                Path location = Paths.get(CompileCache.class.getProtectionDomain().getCodeSource()
+                        .getLocation().toURI());
+                if (Files.isDirectory(location)) {
+                    List<Path> classes;
+                    try (Stream<Path> paths = Files.walk(location)) {
+                        classes = paths.filter(p -> p.toString().endsWith(".class"))
+                                .sorted()
+                                .collect(Collectors.toList());
+                    }
+                    for (Path file : classes) {
+                        appendFile(text, location.relativize(file).toString(), file);
+                    }
+                } else {
+                    appendFile(text, location.getFileName().toString(), location);
+                }
+            } catch (IOException | URISyntaxException | SecurityException | NullPointerException e) {
+                // 无法定位编译器自身时每次运行的指纹都不同，相当于不使用缓存
+                text.append(':').append(System.nanoTime());
+            }
+            MessageDigest digest = sha256();
+            return hex(digest.digest(text.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        private static void appendFile(StringBuilder text, String name, Path file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            text.append(':').append(name)
+                    .append(':').append(attributes.size())
+                    .append(':').append(attributes.lastModifiedTime().toMillis());
+        }
+    }
+}
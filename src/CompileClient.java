@@ -0,0 +1,108 @@
+import Midcode.IrDumper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 编译服务器的轻量客户端，文件约定与 {@link Compiler} 完全一致
+ *
+ * 读取当前目录的 testfile.txt，交给常驻的 {@link CompileServer} 编译，再写出 mips.txt；
+ * 提示信息和错误列表写入 output.txt，只在确实有内容时才创建，有错误时以状态码 1 退出。
+ * 和 {@link Compiler} 一样，中间代码默认不输出，--dump=ir,opt 或 -Dsysy.dump 指定时
+ * 才让服务器附带中间代码，写成 sysy.dump.dir 目录下的 midcode.txt / optimize.txt（passes 不适用于客户端）。
+ * 这个类只依赖协议、结果类和 {@link IrDumper} 的选项解析，不会加载编译器本身，因此启动很快。
+ *
+ * 用法: java CompileClient [--port N] [--dump=ir,opt]
+ */
+public class CompileClient {
+
+    private static final String SOURCE_FILE_NAME = "testfile.txt";
+    private static final String OUTPUT_FILE_NAME = "output.txt";
+    private static final String MIDCODE_FILE_NAME = "midcode.txt";
+    private static final String OPTIMIZE_FILE_NAME = "optimize.txt";
+    private static final String MIPS_FILE_NAME = "mips.txt";
+
+    public static CompileResult compile(String sourceCode, int port) throws IOException {
+        return compile(sourceCode, port, 0);
+    }
+
+    /**
+     * @param options {@link CompileProtocol} 的 DUMP_* 选项
+     */
+    public static CompileResult compile(String sourceCode, int port, int options) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setTcpNoDelay(true);
+            CompileProtocol.writeRequest(out, sourceCode, options);
+            return CompileProtocol.readResult(in);
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = CompileProtocol.DEFAULT_PORT;
+        String dumpSpec = System.getProperty(IrDumper.DUMP_PROPERTY);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].startsWith("--dump=")) {
+                dumpSpec = args[i].substring("--dump=".length());
+            }
+        }
+        IrDumper dumper;
+        try {
+            dumper = IrDumper.parse(dumpSpec, Paths.get("."));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage() + "，可用: ir, opt, all");
+            System.exit(2);
+            return;
+        }
+        int options = (dumper.isEnabled(IrDumper.Artifact.IR) ? CompileProtocol.DUMP_IR : 0)
+                | (dumper.isEnabled(IrDumper.Artifact.OPTIMIZED) ? CompileProtocol.DUMP_OPTIMIZED : 0);
+        Path dumpDirectory = Paths.get(System.getProperty(IrDumper.DIRECTORY_PROPERTY, "."));
+
+        try {
+            String sourceCode = new String(Files.readAllBytes(Paths.get(SOURCE_FILE_NAME)), StandardCharsets.UTF_8);
+            CompileResult result = compile(sourceCode, port, options);
+
+            Files.deleteIfExists(Paths.get(OUTPUT_FILE_NAME));
+            if (!result.getOutput().isEmpty()) {
+                writeFile(Paths.get(OUTPUT_FILE_NAME), result.getOutput());
+            }
+            if (result.hasErrors()) {
+                System.exit(1);
+            }
+            if ((options & CompileProtocol.DUMP_IR) != 0) {
+                writeFile(dumpDirectory.resolve(MIDCODE_FILE_NAME), result.getMidCode());
+            }
+            if ((options & CompileProtocol.DUMP_OPTIMIZED) != 0) {
+                writeFile(dumpDirectory.resolve(OPTIMIZE_FILE_NAME), result.getOptimizedCode());
+            }
+            writeFile(Paths.get(MIPS_FILE_NAME), result.getMips());
+        } catch (ConnectException e) {
+            System.err.println("无法连接编译服务器(端口 " + port + ")，请先运行: java Compiler --server");
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("编译失败: " + e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static void writeFile(Path path, String content) throws IOException {
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+    }
+}
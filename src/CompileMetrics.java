@@ -0,0 +1,192 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * 一次编译的分阶段统计
+ *
+ * 每个阶段记录耗时和该阶段分配的字节数（取自 ThreadMXBean，JVM 不支持时为 -1），
+ * 另外记录词法单元、AST节点、优化前后的四元组、MIPS指令条数和数据段大小等计数，
+ * 最后输出为一个 JSON 对象，便于在整个测试集上对比编译耗时的变化。
+ *
+ * 大程序的语法分析、优化和代码生成会在 ForkJoinPool 上并行执行，分配量因此是当前线程加上公共池各工作线程的合计。
+ * 在 ForkJoin 工作线程中创建的统计对象（批量编译）例外：并行部分跑在同一个池里，和其他文件的编译混在一起无法区分，
+ * 这时只统计当前线程，并行阶段的分配量偏少，报告中以 allocationPartial 为 true 标明。
+ *
+ * 统计对象只在创建它的线程中使用；{@link #DISABLED} 不做任何记录。
+ */
+public class CompileMetrics {
+
+    public static final CompileMetrics DISABLED = new CompileMetrics(null, false);
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private final String source;
+    private final boolean enabled;
+    private final List<String> phaseNames = new ArrayList<>();
+    private final List<long[]> phaseValues = new ArrayList<>();
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+    /* 并行阶段所用的线程池，其工作线程的分配量计入统计；无法单独归属时为 null */
+    private final ForkJoinPool workerPool;
+    /* 各工作线程上次取样时的累计分配量 */
+    private final Map<Long, Long> workerSamples = new HashMap<>();
+    /* 自创建统计对象以来各工作线程分配的字节数之和 */
+    private long workerBytes;
+    private long startNanos;
+    private long lastNanos;
+    private long lastBytes;
+
+    public CompileMetrics(String source) {
+        this(source, true);
+    }
+
+    private CompileMetrics(String source, boolean enabled) {
+        this.source = source;
+        this.enabled = enabled;
+        this.workerPool = Thread.currentThread() instanceof ForkJoinWorkerThread ? null : ForkJoinPool.commonPool();
+        if (enabled) {
+            startNanos = System.nanoTime();
+            lastNanos = startNanos;
+            lastBytes = allocatedBytes();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+                return threads;
+            }
+        }
+        return null;
+    }
+
+    // 当前线程的累计分配量加上工作线程的分配量
+    private long allocatedBytes() {
+        if (THREADS == null) {
+            return -1;
+        }
+        long bytes = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        if (workerPool != null) {
+            sampleWorkers();
+            bytes += workerBytes;
+        }
+        return bytes;
+    }
+
+    // 工作线程第一次出现时从 0 算起：它是在上次取样之后才创建的，全部分配都发生在这之后
+    private void sampleWorkers() {
+        for (Thread worker : workers()) {
+            long total = THREADS.getThreadAllocatedBytes(worker.getId());
+            if (total < 0) {
+                continue;
+            }
+            Long previous = workerSamples.put(worker.getId(), total);
+            workerBytes += total - (previous != null ? previous : 0);
+        }
+    }
+
+    private List<Thread> workers() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        Thread[] threads = new Thread[root.activeCount() + 8];
+        int count;
+        while ((count = root.enumerate(threads, true)) == threads.length) {
+            threads = new Thread[threads.length * 2];
+        }
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (threads[i] instanceof ForkJoinWorkerThread
+                    && ((ForkJoinWorkerThread) threads[i]).getPool() == workerPool) {
+                workers.add(threads[i]);
+            }
+        }
+        return workers;
+    }
+
+    /**
+     * 结束一个阶段：从上一个阶段结束（或创建统计对象）到现在的耗时和分配量都计入该阶段
+     *
+     * @param phase 阶段名
+     */
+    public void phase(String phase) {
+        if (!enabled) {
+            return;
+        }
+        long nanos = System.nanoTime();
+        long bytes = allocatedBytes();
+        phaseNames.add(phase);
+        phaseValues.add(new long[] { nanos - lastNanos, bytes < 0 ? -1 : bytes - lastBytes });
+        lastNanos = nanos;
+        lastBytes = bytes;
+    }
+
+    /**
+     * 记录一个计数，同名计数后写入的覆盖先写入的
+     */
+    public void count(String name, long value) {
+        if (enabled) {
+            counters.put(name, value);
+        }
+    }
+
+    /**
+     * 以 JSON 对象的形式输出统计结果
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"source\":");
+        appendString(json, source);
+        json.append(",\"totalNanos\":").append(lastNanos - startNanos);
+        json.append(",\"allocationPartial\":").append(workerPool == null);
+        json.append(",\"phases\":[");
+        for (int i = 0; i < phaseNames.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"name\":");
+            appendString(json, phaseNames.get(i));
+            json.append(",\"nanos\":").append(phaseValues.get(i)[0]);
+            json.append(",\"allocatedBytes\":").append(phaseValues.get(i)[1]).append('}');
+        }
+        json.append("],\"counters\":{");
+        boolean first = true;
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, counter.getKey());
+            json.append(':').append(counter.getValue());
+        }
+        return json.append("}}").toString();
+    }
+
+    static void appendString(StringBuilder json, String text) {
+        if (text == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
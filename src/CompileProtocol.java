@@ -0,0 +1,146 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 编译服务器与客户端之间的线路协议
+ *
+ * 所有字符串都以 "4字节大端长度 + UTF-8 字节" 的帧传输。
+ * 请求: [MAGIC] [选项字节] [源代码帧]，选项是 DUMP_* 的按位或，没有对应选项时相应的中间代码帧为空串
+ * 响应: [状态字节] 之后
+ *   STATUS_OK     -> [提示信息帧] [中间代码帧] [优化后中间代码帧] [MIPS帧]
+ *   STATUS_ERRORS -> [提示信息帧] [错误列表帧]
+ *   STATUS_CRASH  -> [异常信息帧]
+ * 一条连接上可以连续发送多个请求，客户端关闭连接即结束会话。
+ */
+public final class CompileProtocol {
+    public static final int DEFAULT_PORT = 7391;
+    public static final int MAGIC = 0x53795933; // "SyY3"，加入提示信息帧和选项字节后从 "SyY1" 升级
+
+    /* 请求选项：需要原始中间代码 */
+    public static final int DUMP_IR = 1;
+    /* 请求选项：需要优化后的中间代码 */
+    public static final int DUMP_OPTIMIZED = 2;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERRORS = 1;
+    public static final byte STATUS_CRASH = 2;
+
+    // 单帧上限，防止错误的长度字段把服务器内存撑爆
+    private static final int MAX_FRAME_BYTES = 64 << 20;
+
+    private CompileProtocol() {
+    }
+
+    public static void writeFrame(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("帧长度非法: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 一个编译请求
+     */
+    public static final class Request {
+        private final String sourceCode;
+        private final int options;
+
+        public Request(String sourceCode, int options) {
+            this.sourceCode = sourceCode;
+            this.options = options;
+        }
+
+        public String getSourceCode() {
+            return sourceCode;
+        }
+
+        public boolean wants(int option) {
+            return (options & option) != 0;
+        }
+    }
+
+    public static void writeRequest(DataOutputStream out, String sourceCode, int options) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(options);
+        writeFrame(out, sourceCode);
+        out.flush();
+    }
+
+    /**
+     * 读取一个请求
+     *
+     * @return 请求；对方正常关闭连接时返回 null
+     */
+    public static Request readRequest(DataInputStream in) throws IOException {
+        int magic;
+        try {
+            magic = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        if (magic != MAGIC) {
+            throw new IOException("不是编译请求: 0x" + Integer.toHexString(magic));
+        }
+        int options = in.readUnsignedByte();
+        return new Request(readFrame(in), options);
+    }
+
+    public static void writeResult(DataOutputStream out, CompileResult result) throws IOException {
+        if (result.hasErrors()) {
+            out.writeByte(STATUS_ERRORS);
+            writeFrame(out, result.getDiagnostics());
+            writeFrame(out, result.getErrors());
+        } else {
+            out.writeByte(STATUS_OK);
+            writeFrame(out, result.getDiagnostics());
+            writeFrame(out, result.getMidCode());
+            writeFrame(out, result.getOptimizedCode());
+            writeFrame(out, result.getMips());
+        }
+        out.flush();
+    }
+
+    public static void writeCrash(DataOutputStream out, Throwable failure) throws IOException {
+        out.writeByte(STATUS_CRASH);
+        writeFrame(out, String.valueOf(failure));
+        out.flush();
+    }
+
+    /**
+     * 读取一个响应
+     *
+     * @throws IOException 服务器编译时崩溃，或连接出错
+     */
+    public static CompileResult readResult(DataInputStream in) throws IOException {
+        byte status = in.readByte();
+        switch (status) {
+            case STATUS_OK: {
+                String diagnostics = readFrame(in);
+                String midCode = readFrame(in);
+                String optimizedCode = readFrame(in);
+                String mips = readFrame(in);
+                return new CompileResult("", diagnostics, midCode, optimizedCode, mips);
+            }
+            case STATUS_ERRORS: {
+                String diagnostics = readFrame(in);
+                return CompileResult.failed(readFrame(in), diagnostics);
+            }
+            case STATUS_CRASH:
+                throw new IOException("编译服务器内部错误: " + readFrame(in));
+            default:
+                throw new IOException("未知的响应状态: " + status);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * 一次编译的全部产物，全部保存在内存中
+ *
+ * 编译成功时 mips 是 mips.txt 的内容，midCode / optimizedCode 只在请求时才有，
+ * 分别对应 --dump=ir,opt 写出的 midcode.txt、optimize.txt，没有请求时为空串；
+ * 存在错误时只有 errors 有内容（每行一个 "行号 错误码"），其余产物均为空串。
+ * diagnostics 是编译过程中的提示信息（例如寄存器分配失败），与单文件模式一样写入 output.txt。
+ */
+public class CompileResult {
+    public static final String ERROR_HEADER = "Syntax errors detected in your code:\nBelow are the identified issues:\n";
+
+    private final String errors;
+    private final String diagnostics;
+    private final String midCode;
+    private final String optimizedCode;
+    private final String mips;
+
+    public CompileResult(String errors, String diagnostics, String midCode, String optimizedCode, String mips) {
+        this.errors = errors;
+        this.diagnostics = diagnostics;
+        this.midCode = midCode;
+        this.optimizedCode = optimizedCode;
+        this.mips = mips;
+    }
+
+    public static CompileResult failed(String errors, String diagnostics) {
+        return new CompileResult(errors, diagnostics, "", "", "");
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public String getErrors() {
+        return errors;
+    }
+
+    public String getDiagnostics() {
+        return diagnostics;
+    }
+
+    public String getMidCode() {
+        return midCode;
+    }
+
+    public String getOptimizedCode() {
+        return optimizedCode;
+    }
+
+    public String getMips() {
+        return mips;
+    }
+
+    // output.txt 的内容：提示信息之后，有错误时是错误报告；为空串时不写 output.txt
+    public String getOutput() {
+        return hasErrors() ? diagnostics + ERROR_HEADER + errors : diagnostics;
+    }
+}
@@ -0,0 +1,89 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 常驻编译服务器 - 省掉每次编译都要付出的 JVM 启动和类加载开销
+ *
+ * 只监听本机回环地址，协议见 {@link CompileProtocol}。
+ * 每条连接由线程池中的一个线程处理，每个请求都使用独立的编译会话，
+ * 编译器在第一次请求之后就保持加载和JIT预热状态。
+ *
+ * 用法: java Compiler --server [--port N] [--threads N]
+ */
+public class CompileServer {
+
+    private final int port;
+    private final int threads;
+
+    public CompileServer(int port, int threads) {
+        this.port = port;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) {
+        int port = CompileProtocol.DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            }
+        }
+
+        try {
+            new CompileServer(port, threads).serve();
+        } catch (IOException e) {
+            System.err.println("编译服务器启动失败，端口: " + port);
+            e.printStackTrace();
+            System.exit(2);
+        }
+    }
+
+    public void serve() throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread worker = new Thread(runnable, "compile-worker");
+            worker.setDaemon(true);
+            return worker;
+        });
+        try (ServerSocket listener = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.err.println("编译服务器已启动: " + listener.getLocalSocketAddress());
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket connection = listener.accept();
+                workers.execute(() -> handle(connection));
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void handle(Socket connection) {
+        try (Socket socket = connection;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            CompileProtocol.Request request;
+            while ((request = CompileProtocol.readRequest(in)) != null) {
+                CompileResult result;
+                try {
+                    result = Compiler.compileToResult(request.getSourceCode(),
+                            request.wants(CompileProtocol.DUMP_IR), request.wants(CompileProtocol.DUMP_OPTIMIZED));
+                } catch (Exception | StackOverflowError e) {
+                    // 单个请求的崩溃只影响这一次编译
+                    CompileProtocol.writeCrash(out, e);
+                    continue;
+                }
+                CompileProtocol.writeResult(out, result);
+            }
+        } catch (IOException e) {
+            System.err.println("连接异常断开: " + e.getMessage());
+        }
+    }
+}
@@ -1,61 +1,467 @@
+import AST.CompilationContext;
+import Midcode.IrCodec;
+import Midcode.IrDumper;
 import Mipscode.Mips;
 import Optim.Optimize;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
 
 public class Compiler {
 
-    public static String readFileToString(String filePath) throws IOException {
-        StringBuilder contentBuilder = new StringBuilder();
-        // 使用 BufferedReader 按行读取，并指定 UTF-8 编码
-        try (InputStream fis = new FileInputStream(filePath);
-                InputStreamReader isr = new InputStreamReader(fis, StandardCharsets.UTF_8);
-                BufferedReader reader = new BufferedReader(isr)) {
-            String currentLine;
-            while ((currentLine = reader.readLine()) != null) {
-                contentBuilder.append(currentLine).append("\n"); 
+    /* 超过该大小的源文件通过内存映射读取，较小的文件直接整块读入 */
+    private static final long MAP_THRESHOLD = 1 << 20;
+
+    /* 超过该字符数的源码按函数并行做语法和语义分析，小文件保持流式的顺序分析 */
+    private static final int PARALLEL_PARSE_THRESHOLD = 1 << 16;
+
+    /**
+     * 读取源文件并一次性解码为字符缓冲区，可直接交给词法分析器
+     * 大文件通过内存映射读取，解码器直接从映射区读字节，不经过中间的字符串拼接；
+     * 行结束符按 BufferedReader.readLine 的规则统一为 \n，最后一行没有换行时补一个 \n，
+     * 与按行读取再拼接的结果完全一致
+     *
+     * @param filePath 源文件路径
+     * @return 包装解码结果的字符缓冲区
+     */
+    public static CharBuffer loadSource(String filePath) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 1) {
+                throw new IOException("源文件过大: " + filePath);
+            }
+            if (size >= MAP_THRESHOLD) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining()) {
+                    if (channel.read(bytes) < 0) {
+                        break;
+                    }
+                }
+                bytes.flip();
             }
         }
-        return contentBuilder.toString();
+
+        // UTF-8 每个字节至多解码出一个字符，预留一个位置给可能补上的末尾换行
+        char[] chars = new char[bytes.remaining() + 1];
+        CharBuffer decoded = CharBuffer.wrap(chars);
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        decoder.decode(bytes, decoded, true);
+        decoder.flush(decoded);
+
+        return CharBuffer.wrap(chars, 0, normalizeLineEndings(chars, decoded.position()));
     }
 
-    public static void main(String[] args) {
+    // 原地把 \r\n 和单独的 \r 替换为 \n，并保证非空内容以 \n 结尾，返回新的长度
+    private static int normalizeLineEndings(char[] chars, int length) {
+        int write = 0;
+        for (int read = 0; read < length; read++) {
+            char c = chars[read];
+            if (c == '\r') {
+                c = '\n';
+                if (read + 1 < length && chars[read + 1] == '\n') {
+                    read++;
+                }
+            }
+            chars[write++] = c;
+        }
+        if (write > 0 && chars[write - 1] != '\n') {
+            chars[write++] = '\n';
+        }
+        return write;
+    }
 
-        final String sourceFilePath = "testfile.txt";
-        final String outputFilePath = "output.txt";
+    /**
+     * 编译一段源码（例如 {@link #loadSource} 返回的缓冲区）并把MIPS汇编写入指定文件，
+     * 各阶段的耗时、分配量和产物大小记录到 metrics
+     * 缓存可用时先查编译缓存，命中时直接写出缓存的汇编；未命中时正常编译，成功后把汇编存入缓存
+     * 整个过程只使用本次编译自己的会话和输出流，不修改 System.out，可以在多个线程中同时调用
+     *
+     * @param source      源代码
+     * @param mipsPath    MIPS汇编的输出路径
+     * @param diagnostics 各阶段的提示信息的输出位置；发现错误时随后写入错误标题和错误列表
+     * @return 没有错误返回 true，否则返回 false 且不生成汇编
+     */
+    public static boolean compile(CharBuffer source, String mipsPath, PrintStream diagnostics,
+            CompileMetrics metrics, CompileCache cache) {
+        return compile(source, mipsPath, diagnostics, metrics, cache, IrDumper.DISABLED, null);
+    }
+
+    /**
+     * 编译并按 dumper 的设置输出中间代码；irPath 不为 null 时把优化后的中间代码按 {@link IrCodec} 的格式写入该文件
+     * 要输出中间代码时缓存命中也得不到中间代码，这时不使用缓存
+     *
+     * @see #compile(CharBuffer, String, PrintStream, CompileMetrics, CompileCache)
+     */
+    public static boolean compile(CharBuffer source, String mipsPath, PrintStream diagnostics,
+            CompileMetrics metrics, CompileCache cache, IrDumper dumper, Path irPath) {
+        String key = cache.isEnabled() && dumper == IrDumper.DISABLED && irPath == null ? cache.key(source) : null;
+        if (key != null && cache.restore(key, Paths.get(mipsPath))) {
+            metrics.phase("cache");
+            metrics.count("cacheHit", 1);
+            return true;
+        }
+        CompilationContext context = new CompilationContext(diagnostics);
+        context.setDumper(dumper);
+        Mips mipsCodeGenerator = translate(source, context, metrics, new Stages() {
+            @Override
+            public void errors(Parsing_mid parser) {
+                diagnostics.print(CompileResult.ERROR_HEADER);
+                parser.reportErrors(diagnostics);
+            }
+
+            @Override
+            public void optimized(Optimize optimizer, CompilationContext context) {
+                if (irPath == null) {
+                    return;
+                }
+                try {
+                    IrCodec.write(irPath, context.getMidCodes(), context.getStrings());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        if (mipsCodeGenerator == null) {
+            return false;
+        }
+        mipsCodeGenerator.printMips(mipsPath);
+        metrics.phase("emit");
+        if (key != null) {
+            cache.store(key, Paths.get(mipsPath));
+        }
+        return true;
+    }
+
+    /*
+     * 各入口共用的流水线挂载点：单文件、批量和服务器模式走同一条流水线，
+     * 只在这里加上各自需要的输出
+     */
+    private interface Stages {
+        // 语法或语义分析发现错误，编译到此为止
+        void errors(Parsing_mid parser);
+
+        // 已生成中间代码，尚未优化
+        default void generated(Parsing_mid parser) {
+        }
+
+        // 优化已完成，尚未生成汇编
+        default void optimized(Optimize optimizer, CompilationContext context) {
+        }
+    }
+
+    /*
+     * 词法、语法分析 → 生成中间代码 → 优化 → 降低为MIPS，沿途记录各阶段的统计信息，
+     * 按会话的 dumper 输出原始中间代码；有错误时交给 stages.errors 并返回 null
+     */
+    private static Mips translate(Readable source, CompilationContext context, CompileMetrics metrics,
+            Stages stages) {
+        Sym lexicalAnalyzer = new Sym(source, context.getDiagnostics());
 
-        String sourceCode;
+        Parsing_mid astBuilder = new Parsing_mid(lexicalAnalyzer.getTokens(), context);
+        astBuilder.setParallelFunctions(isLargeSource(source));
+        astBuilder.CompUnit();
+        metrics.phase("parse");
+        metrics.count("tokens", lexicalAnalyzer.getTokens().produced());
+        metrics.count("astNodes", astBuilder.getNodeCount());
+        if (astBuilder.hasErrors()) {
+            stages.errors(astBuilder);
+            return null;
+        }
+        astBuilder.analyse();
+        metrics.phase("irgen");
+        metrics.count("quads", context.getMidCodes().size());
+        context.getDumper().dump(IrDumper.Artifact.IR, "midcode.txt", context.getMidCodes());
+        stages.generated(astBuilder);
+
+        Optimize codeOptimizer = new Optimize(context);
+        metrics.phase("optimize");
+        metrics.count("optimizedQuads", context.getMidCodes().size());
+        stages.optimized(codeOptimizer, context);
+
+        Mips mipsCodeGenerator = new Mips(context);
+        metrics.phase("lower");
+        metrics.count("mipsInstructions", mipsCodeGenerator.getInstructionCount());
+        metrics.count("dataSegmentBytes", mipsCodeGenerator.getDataSegmentBytes());
+        return mipsCodeGenerator;
+    }
+
+    /**
+     * 在内存中编译一段源码，返回MIPS汇编、提示信息和错误列表，不生成中间代码文本
+     *
+     * @see #compileToResult(String, boolean, boolean)
+     */
+    public static CompileResult compileToResult(String sourceCode) {
+        return compileToResult(sourceCode, false, false);
+    }
+
+    /**
+     * 在内存中编译一段源码，返回MIPS汇编、提示信息和错误列表，按需附带中间代码和优化后中间代码的文本
+     * 不读写任何文件，也不修改 System.out，提示信息收集在本次请求自己的缓冲区里，供编译服务器等常驻进程调用
+     *
+     * @param renderMidCode   是否生成原始中间代码的文本，否则为空串
+     * @param renderOptimized 是否生成优化后中间代码的文本，否则为空串
+     */
+    public static CompileResult compileToResult(String sourceCode, boolean renderMidCode, boolean renderOptimized) {
+        ByteArrayOutputStream diagnosticBuffer = new ByteArrayOutputStream();
+        PrintStream diagnostics = utf8Stream(diagnosticBuffer);
+        Rendering rendering = new Rendering(renderMidCode, renderOptimized);
+        Mips mipsCodeGenerator = translate(CharBuffer.wrap(sourceCode), new CompilationContext(diagnostics),
+                CompileMetrics.DISABLED, rendering);
+        if (mipsCodeGenerator == null) {
+            return CompileResult.failed(rendering.errors, collect(diagnostics, diagnosticBuffer));
+        }
+        String mips = render(mipsCodeGenerator::printMips);
+        return new CompileResult("", collect(diagnostics, diagnosticBuffer), rendering.midCode,
+                rendering.optimizedCode, mips);
+    }
+
+    // 把错误列表和需要的中间代码收集成字符串
+    private static final class Rendering implements Stages {
+        private final boolean renderMidCode;
+        private final boolean renderOptimized;
+        private String errors = "";
+        private String midCode = "";
+        private String optimizedCode = "";
+
+        Rendering(boolean renderMidCode, boolean renderOptimized) {
+            this.renderMidCode = renderMidCode;
+            this.renderOptimized = renderOptimized;
+        }
+
+        @Override
+        public void errors(Parsing_mid parser) {
+            errors = renderErrors(parser::reportErrors);
+        }
+
+        @Override
+        public void generated(Parsing_mid parser) {
+            if (renderMidCode) {
+                midCode = render(parser::printMidCode);
+            }
+        }
+
+        @Override
+        public void optimized(Optimize optimizer, CompilationContext context) {
+            if (renderOptimized) {
+                optimizedCode = render(optimizer::exportOptimizedResult);
+            }
+        }
+    }
+
+    // 只有能直接得到长度的输入源（字符串、字符缓冲区）才会判断为大文件
+    private static boolean isLargeSource(Object source) {
+        return source instanceof CharSequence && ((CharSequence) source).length() >= PARALLEL_PARSE_THRESHOLD;
+    }
+
+    // 把写向 Writer 的输出收集成字符串
+    private static String render(Consumer<Writer> printer) {
+        StringWriter buffer = new StringWriter();
+        printer.accept(buffer);
+        return buffer.toString();
+    }
+
+    // 把写向 PrintStream 的错误列表收集成字符串
+    private static String renderErrors(Consumer<PrintStream> printer) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = utf8Stream(buffer);
+        printer.accept(out);
+        return collect(out, buffer);
+    }
+
+    private static PrintStream utf8Stream(ByteArrayOutputStream buffer) {
         try {
-            sourceCode = Compiler.readFileToString(sourceFilePath);
+            return new PrintStream(buffer, false, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String collect(PrintStream out, ByteArrayOutputStream buffer) {
+        out.flush();
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    // 命令行的 --dump=<列表> 优先于系统属性 sysy.dump，输出目录由 sysy.dump.dir 指定
+    private static IrDumper dumpSettings(String[] args) {
+        String spec = System.getProperty(IrDumper.DUMP_PROPERTY);
+        for (String arg : args) {
+            if (arg.startsWith("--dump=")) {
+                spec = arg.substring("--dump=".length());
+            }
+        }
+        return IrDumper.parse(spec, Paths.get(System.getProperty(IrDumper.DIRECTORY_PROPERTY, ".")));
+    }
+
+    // 第一次写入时才创建文件，编译顺利完成时不产生任何输出
+    private static OutputStream openOnFirstWrite(String path) {
+        return new OutputStream() {
+            private OutputStream out = null;
+
+            private OutputStream target() throws IOException {
+                if (out == null) {
+                    out = new BufferedOutputStream(new FileOutputStream(path));
+                }
+                return out;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                target().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target().write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (out != null) {
+                    out.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (out != null) {
+                    out.close();
+                }
+            }
+        };
+    }
+
+    // 命令行的 --cache=<目录> 优先于系统属性 sysy.cache
+    private static CompileCache cacheSettings(String[] args) {
+        String directory = System.getProperty(CompileCache.DIRECTORY_PROPERTY);
+        for (String arg : args) {
+            if (arg.startsWith("--cache=")) {
+                directory = arg.substring("--cache=".length());
+            }
+        }
+        return CompileCache.open(directory);
+    }
+
+    // 命令行中形如 <prefix><值> 的选项，出现多次时取最后一个，没有时返回 null
+    private static String option(String[] args, String prefix) {
+        String value = null;
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                value = arg.substring(prefix.length());
+            }
+        }
+        return value;
+    }
+
+    /*
+     * 从 --emit-ir 写出的二进制中间代码直接生成汇编，跳过词法、语法分析和优化，
+     * 用于单独测量或调试后端
+     */
+    private static void compileFromIr(String irPath, String reportPath) {
+        CompileMetrics metrics = reportPath != null ? new CompileMetrics(irPath) : CompileMetrics.DISABLED;
+        try (PrintStream customOut = new PrintStream(openOnFirstWrite("output.txt"))) {
+            IrCodec.Module module = IrCodec.read(Paths.get(irPath));
+            metrics.phase("load");
+            metrics.count("optimizedQuads", module.getMidCodes().size());
+
+            Mips mipsCodeGenerator = new Mips(module.getMidCodes(), module.getStrings(), customOut);
+            metrics.phase("lower");
+            metrics.count("mipsInstructions", mipsCodeGenerator.getInstructionCount());
+            metrics.count("dataSegmentBytes", mipsCodeGenerator.getDataSegmentBytes());
+
+            mipsCodeGenerator.printMips("mips.txt");
+            metrics.phase("emit");
+            writeReport(reportPath, metrics);
+            System.err.println("编译成功完成，汇编已写入: mips.txt");
         } catch (IOException e) {
-            System.err.println("读取输入文件时出错: " + sourceFilePath);
+            System.err.println("读取中间代码时出错: " + irPath);
             e.printStackTrace();
-            return; 
+            System.exit(2);
+        } catch (UncheckedIOException e) {
+            System.err.println("写入汇编时出错: mips.txt");
+            e.getCause().printStackTrace();
+            System.exit(2);
         }
-        try (PrintStream customOut = new PrintStream(outputFilePath)) {
-            System.setOut(customOut);
-
-            Sym lexicalAnalyzer = new Sym(sourceCode);
+    }
 
-            Parsing_error syntaxValidator = new Parsing_error(lexicalAnalyzer.getWords());
+    private static void writeReport(String reportPath, CompileMetrics metrics) throws IOException {
+        if (reportPath != null) {
+            Files.write(Paths.get(reportPath), metrics.toJson().getBytes(StandardCharsets.UTF_8));
+        }
+    }
 
-            Parsing_mid astBuilder = new Parsing_mid(lexicalAnalyzer.getWords());
-            astBuilder.CompUnit();
+    public static void main(String[] args) {
 
-            astBuilder.analyse();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchCompiler.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--server")) {
+            CompileServer.main(args);
+            return;
+        }
 
-            Optimize codeOptimizer = new Optimize(astBuilder.getMidCodes());
+        final String sourceFilePath = "testfile.txt";
+        final String outputFilePath = "output.txt";
 
-            Mips mipsCodeGenerator = new Mips(codeOptimizer.getNewmidCodes(), astBuilder.getStrings());
+        IrDumper dumper;
+        try {
+            dumper = dumpSettings(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage() + "，可用: ir, opt, passes, all");
+            System.exit(2);
+            return;
+        }
 
-            System.err.println("编译成功完成，输出已写入: " + outputFilePath);
+        String reportPath = option(args, "--report=");
+        String fromIrPath = option(args, "--from-ir=");
+        if (fromIrPath != null) {
+            compileFromIr(fromIrPath, reportPath);
+            return;
+        }
+        String irPath = option(args, "--emit-ir=");
+        CompileCache cache = cacheSettings(args);
+        CompileMetrics metrics = reportPath != null ? new CompileMetrics(sourceFilePath) : CompileMetrics.DISABLED;
 
-        } catch (FileNotFoundException e) {
-            System.err.println("创建输出文件时出错: " + outputFilePath);
+        CharBuffer sourceCode;
+        try {
+            sourceCode = Compiler.loadSource(sourceFilePath);
+        } catch (IOException e) {
+            System.err.println("读取输入文件时出错: " + sourceFilePath);
             e.printStackTrace();
+            return; 
+        }
+        metrics.phase("load");
+        // 错误列表和各阶段的提示信息写入 output.txt，只在确实有内容时才创建该文件；
+        // 中间代码只在 --dump 或 -Dsysy.dump 指定时才在后台写出
+        try (IrDumper dumps = dumper;
+                PrintStream customOut = new PrintStream(openOnFirstWrite(outputFilePath))) {
+            Files.deleteIfExists(Paths.get(outputFilePath));
+            boolean compiled = compile(sourceCode, "mips.txt", customOut, metrics, cache, dumps,
+                    irPath != null ? Paths.get(irPath) : null);
+            if (!compiled) {
+                customOut.flush();
+                writeReport(reportPath, metrics);
+                System.exit(1);
+            }
+            writeReport(reportPath, metrics);
+
+            System.err.println("编译成功完成，汇编已写入: mips.txt");
+
         } catch (Exception e) {
             System.err.println("编译过程中发生未预料的错误:");
             ;
@@ -0,0 +1,42 @@
+/**
+ * 整数常量操作数
+ * 直接保存数值，使用时不需要再解析文本；数值相同的常量彼此相等
+ * @author CompilerTeam
+ */
+package Midcode;
+
+public class ConstOperand extends Operand {
+    // 常量数值
+    private final int value;
+
+    /**
+     * 常量操作数构造方法
+     * 
+     * @param value 常量数值
+     */
+    public ConstOperand(int value) {
+        this.value = value;
+    }
+
+    /**
+     * 获取常量数值
+     */
+    public int getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ConstOperand && ((ConstOperand) other).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * 指令链表 - 把前后指针直接存在四元组里的双向链表
+ * 四元组本身就是链表结点，插入、删除、替换都是 O(1)，删改其他四元组时已拿到的四元组引用仍然有效；
+ * 一条四元组同一时刻只能属于一个链表，要放进另一个链表须先删除，或者用 appendAll、drainTo 整体转移
+ *
+ * 遍历时可以删除、替换当前四元组，也可以在它前后插入新的四元组，新插入的不会被这次遍历访问到；
+ * 但不能删除下一条还没访问到的四元组，否则迭代器抛出 ConcurrentModificationException
+ * @author CompilerTeam
+ */
+package Midcode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class InstructionList implements Iterable<midCode> {
+    private midCode first = null;
+    private midCode last = null;
+    private int size = 0;
+
+    /**
+     * 按顺序把一组不属于任何链表的四元组链成新的链表
+     */
+    public static InstructionList of(List<midCode> codes) {
+        InstructionList list = new InstructionList();
+        for (midCode code : codes) {
+            list.addLast(code);
+        }
+        return list;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 第一条四元组，链表为空时返回 null
+     */
+    public midCode getFirst() {
+        return first;
+    }
+
+    /**
+     * 最后一条四元组，链表为空时返回 null
+     */
+    public midCode getLast() {
+        return last;
+    }
+
+    public boolean contains(midCode code) {
+        return code.list == this;
+    }
+
+    public void addLast(midCode code) {
+        link(code, last, null);
+    }
+
+    public void addFirst(midCode code) {
+        link(code, null, first);
+    }
+
+    /**
+     * 在 position 之前插入 code
+     */
+    public void insertBefore(midCode position, midCode code) {
+        checkMember(position);
+        link(code, position.prev, position);
+    }
+
+    /**
+     * 在 position 之后插入 code
+     */
+    public void insertAfter(midCode position, midCode code) {
+        checkMember(position);
+        link(code, position, position.next);
+    }
+
+    public void remove(midCode code) {
+        checkMember(code);
+        unlink(code);
+    }
+
+    /**
+     * 用 replacement 替换 code，替换后 code 不再属于任何链表
+     */
+    public void replace(midCode code, midCode replacement) {
+        checkMember(code);
+        link(replacement, code, code.next);
+        unlink(code);
+    }
+
+    /**
+     * 把 other 的全部四元组按顺序移到本链表末尾，other 变为空表
+     */
+    public void appendAll(InstructionList other) {
+        if (other == this || other.isEmpty()) {
+            return;
+        }
+        for (midCode code = other.first; code != null; code = code.next) {
+            code.list = this;
+        }
+        if (last == null) {
+            first = other.first;
+        } else {
+            last.next = other.first;
+            other.first.prev = last;
+        }
+        last = other.last;
+        size += other.size;
+        other.first = null;
+        other.last = null;
+        other.size = 0;
+    }
+
+    /**
+     * 把全部四元组按顺序移出到 target，本链表变为空表，移出的四元组可以再放进别的链表
+     */
+    public void drainTo(Collection<? super midCode> target) {
+        midCode code = first;
+        while (code != null) {
+            midCode next = code.next;
+            code.list = null;
+            code.prev = null;
+            code.next = null;
+            target.add(code);
+            code = next;
+        }
+        first = null;
+        last = null;
+        size = 0;
+    }
+
+    /**
+     * 按顺序复制出四元组列表，链表本身不变
+     */
+    public ArrayList<midCode> toList() {
+        ArrayList<midCode> codes = new ArrayList<>(size);
+        for (midCode code = first; code != null; code = code.next) {
+            codes.add(code);
+        }
+        return codes;
+    }
+
+    @Override
+    public Iterator<midCode> iterator() {
+        return new Iterator<midCode>() {
+            // 在返回当前四元组之前就取好下一条，当前四元组被删除或替换不影响遍历
+            private midCode next = first;
+            private midCode current = null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public midCode next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                if (next.list != InstructionList.this) {
+                    throw new ConcurrentModificationException();
+                }
+                current = next;
+                next = current.next;
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                if (current == null || current.list != InstructionList.this) {
+                    throw new IllegalStateException();
+                }
+                unlink(current);
+                current = null;
+            }
+        };
+    }
+
+    private void checkMember(midCode code) {
+        if (code.list != this) {
+            throw new IllegalArgumentException("四元组不在本链表中: " + code);
+        }
+    }
+
+    private void link(midCode code, midCode prev, midCode next) {
+        if (code.list != null) {
+            throw new IllegalArgumentException("四元组已在其他链表中: " + code);
+        }
+        code.list = this;
+        code.prev = prev;
+        code.next = next;
+        if (prev == null) {
+            first = code;
+        } else {
+            prev.next = code;
+        }
+        if (next == null) {
+            last = code;
+        } else {
+            next.prev = code;
+        }
+        size++;
+    }
+
+    private void unlink(midCode code) {
+        if (code.prev == null) {
+            first = code.next;
+        } else {
+            code.prev.next = code.next;
+        }
+        if (code.next == null) {
+            last = code.prev;
+        } else {
+            code.next.prev = code.prev;
+        }
+        code.list = null;
+        code.prev = null;
+        code.next = null;
+        size--;
+    }
+}
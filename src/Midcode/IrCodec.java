@@ -0,0 +1,344 @@
+/**
+ * 中间代码的二进制格式 - 把四元组和字符串常量池写成紧凑的二进制文件，并能原样读回
+ * 读回的中间代码可以直接交给优化器或目标代码生成器，用来缓存前端的结果、单独重放后端，
+ * 或者在两个版本的编译器之间快速比较中间代码
+ *
+ * 文件结构（整数均为无符号变长编码，每字节低7位有效，最高位表示后面还有字节）：
+ *   魔数 "SYIR"、格式版本
+ *   字符串表：个数，每项为 UTF-8 字节数和内容；变量名、标签名、函数名和输出的字符串都只存一次
+ *   变量表：个数，每项为变量名在字符串表中的下标；每个变量操作数对象对应一项，读回后仍可用 == 比较
+ *   字符串常量池：个数，每项为字符串表下标
+ *   分段：段数，每段为字节数和内容；全局声明一段，之后每个 FUNC/MAIN 开始新的一段
+ * 段内每条四元组先写一个头：操作类型序号 | z 标记 << 6 | x 标记 << 9 | y 标记 << 12，
+ * 再依次写三个操作数的内容，标记和内容见 {@link #TAG_CONST} 等常量
+ * @author CompilerTeam
+ */
+package Midcode;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+public class IrCodec {
+    private static final byte[] MAGIC = { 'S', 'Y', 'I', 'R' };
+    private static final int VERSION = 1;
+
+    // 操作数标记：空
+    private static final int TAG_NULL = 0;
+    // 常量，内容为 zigzag 编码的数值
+    private static final int TAG_CONST = 1;
+    // 临时变量，内容为编号
+    private static final int TAG_TEMP = 2;
+    // 具名变量，内容为变量表下标
+    private static final int TAG_VAR = 3;
+    // 标签，内容为字符串表下标
+    private static final int TAG_LABEL = 4;
+    // 共享的固定文本（START、END 等），内容为在 SHARED_TEXTS 中的下标
+    private static final int TAG_SHARED_TEXT = 5;
+    // 其他文本，内容为字符串表下标
+    private static final int TAG_TEXT = 6;
+
+    private static final TextOperand[] SHARED_TEXTS = {
+            TextOperand.START, TextOperand.END, TextOperand.STRING,
+            TextOperand.DIGIT, TextOperand.INT, TextOperand.VOID
+    };
+    private static final midCode.operation[] OPERATIONS = midCode.operation.values();
+
+    /**
+     * 读回的中间代码和字符串常量池
+     */
+    public static class Module {
+        private final ArrayList<midCode> midCodes;
+        private final LinkedList<String> strings;
+
+        Module(ArrayList<midCode> midCodes, LinkedList<String> strings) {
+            this.midCodes = midCodes;
+            this.strings = strings;
+        }
+
+        public ArrayList<midCode> getMidCodes() {
+            return midCodes;
+        }
+
+        public LinkedList<String> getStrings() {
+            return strings;
+        }
+    }
+
+    /**
+     * 把中间代码和字符串常量池写入文件
+     */
+    public static void write(Path target, List<midCode> codes, List<String> strings) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            write(out, codes, strings);
+        }
+    }
+
+    /**
+     * 从文件读回中间代码和字符串常量池
+     */
+    public static Module read(Path source) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(source))) {
+            return read(in);
+        }
+    }
+
+    /**
+     * 把中间代码和字符串常量池写入输出流，不关闭输出流
+     */
+    public static void write(OutputStream out, List<midCode> codes, List<String> strings) throws IOException {
+        Encoder encoder = new Encoder();
+        List<byte[]> sections = new ArrayList<>();
+        ByteArrayOutputStream section = new ByteArrayOutputStream();
+        for (midCode code : codes) {
+            if ((code.op == midCode.operation.FUNC || code.op == midCode.operation.MAIN) && section.size() > 0) {
+                sections.add(section.toByteArray());
+                section.reset();
+            }
+            encoder.quad(section, code);
+        }
+        if (section.size() > 0 || sections.isEmpty()) {
+            sections.add(section.toByteArray());
+        }
+        int[] pool = new int[strings.size()];
+        int index = 0;
+        for (String string : strings) {
+            pool[index++] = encoder.string(string);
+        }
+
+        out.write(MAGIC);
+        writeVarint(out, VERSION);
+        writeVarint(out, encoder.stringTable.size());
+        for (String string : encoder.stringTable) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.write(bytes);
+        }
+        writeVarint(out, encoder.variableTable.size());
+        for (int name : encoder.variableTable) {
+            writeVarint(out, name);
+        }
+        writeVarint(out, pool.length);
+        for (int string : pool) {
+            writeVarint(out, string);
+        }
+        writeVarint(out, sections.size());
+        for (byte[] bytes : sections) {
+            writeVarint(out, bytes.length);
+            out.write(bytes);
+        }
+        out.flush();
+    }
+
+    /**
+     * 从输入流读回中间代码和字符串常量池
+     *
+     * @throws IOException 输入不是这种格式或者已经损坏
+     */
+    public static Module read(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (magic[i] != MAGIC[i]) {
+                throw new IOException("不是中间代码文件");
+            }
+        }
+        int version = readVarint(in);
+        if (version != VERSION) {
+            throw new IOException("不支持的中间代码格式版本: " + version);
+        }
+
+        String[] stringTable = new String[readVarint(in)];
+        for (int i = 0; i < stringTable.length; i++) {
+            byte[] bytes = new byte[readVarint(in)];
+            in.readFully(bytes);
+            stringTable[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        VarOperand[] variables = new VarOperand[readVarint(in)];
+        for (int i = 0; i < variables.length; i++) {
+            variables[i] = new VarOperand(lookup(stringTable, readVarint(in)), null);
+        }
+        LinkedList<String> strings = new LinkedList<>();
+        int poolSize = readVarint(in);
+        for (int i = 0; i < poolSize; i++) {
+            strings.add(lookup(stringTable, readVarint(in)));
+        }
+
+        ArrayList<midCode> codes = new ArrayList<>();
+        Map<String, LabelOperand> labels = new HashMap<>();
+        int sectionCount = readVarint(in);
+        for (int s = 0; s < sectionCount; s++) {
+            byte[] bytes = new byte[readVarint(in)];
+            in.readFully(bytes);
+            DataInputStream section = new DataInputStream(new ByteArrayInputStream(bytes));
+            while (section.available() > 0) {
+                int header = readVarint(section);
+                int op = header & 0x3f;
+                if (op >= OPERATIONS.length) {
+                    throw new IOException("未知的四元组类型: " + op);
+                }
+                Operand z = operand(section, (header >>> 6) & 7, stringTable, variables, labels);
+                Operand x = operand(section, (header >>> 9) & 7, stringTable, variables, labels);
+                Operand y = operand(section, (header >>> 12) & 7, stringTable, variables, labels);
+                codes.add(new midCode(OPERATIONS[op], z, x, y));
+            }
+        }
+        return new Module(codes, strings);
+    }
+
+    // 写入时给字符串、变量分配下标
+    private static class Encoder {
+        final List<String> stringTable = new ArrayList<>();
+        final Map<String, Integer> stringIndex = new HashMap<>();
+        final List<Integer> variableTable = new ArrayList<>();
+        final Map<Operand, Integer> variableIndex = new IdentityHashMap<>();
+
+        int string(String text) {
+            Integer index = stringIndex.get(text);
+            if (index == null) {
+                index = stringTable.size();
+                stringTable.add(text);
+                stringIndex.put(text, index);
+            }
+            return index;
+        }
+
+        int variable(VarOperand operand) {
+            Integer index = variableIndex.get(operand);
+            if (index == null) {
+                index = variableTable.size();
+                variableTable.add(string(operand.getName()));
+                variableIndex.put(operand, index);
+            }
+            return index;
+        }
+
+        void quad(OutputStream out, midCode code) throws IOException {
+            int header = code.op.ordinal() | tag(code.z) << 6 | tag(code.x) << 9 | tag(code.y) << 12;
+            writeVarint(out, header);
+            operand(out, code.z);
+            operand(out, code.x);
+            operand(out, code.y);
+        }
+
+        void operand(OutputStream out, Operand operand) throws IOException {
+            if (operand instanceof ConstOperand) {
+                int value = ((ConstOperand) operand).getValue();
+                writeVarint(out, (value << 1) ^ (value >> 31));
+            } else if (operand instanceof TempOperand) {
+                writeVarint(out, ((TempOperand) operand).getId());
+            } else if (operand instanceof VarOperand) {
+                writeVarint(out, variable((VarOperand) operand));
+            } else if (operand instanceof LabelOperand) {
+                writeVarint(out, string(((LabelOperand) operand).getName()));
+            } else if (operand instanceof TextOperand) {
+                int shared = sharedText(operand);
+                writeVarint(out, shared >= 0 ? shared : string(((TextOperand) operand).getText()));
+            }
+        }
+    }
+
+    private static int tag(Operand operand) {
+        if (operand == null) {
+            return TAG_NULL;
+        } else if (operand instanceof ConstOperand) {
+            return TAG_CONST;
+        } else if (operand instanceof TempOperand) {
+            return TAG_TEMP;
+        } else if (operand instanceof VarOperand) {
+            return TAG_VAR;
+        } else if (operand instanceof LabelOperand) {
+            return TAG_LABEL;
+        } else if (operand instanceof TextOperand) {
+            return sharedText(operand) >= 0 ? TAG_SHARED_TEXT : TAG_TEXT;
+        }
+        throw new IllegalArgumentException("无法编码的操作数: " + operand.getClass().getName());
+    }
+
+    private static int sharedText(Operand operand) {
+        for (int i = 0; i < SHARED_TEXTS.length; i++) {
+            if (SHARED_TEXTS[i] == operand) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // 同名标签读回后共用一个对象
+    private static Operand operand(DataInputStream in, int tag, String[] stringTable, VarOperand[] variables,
+            Map<String, LabelOperand> labels) throws IOException {
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_CONST:
+                int encoded = readVarint(in);
+                return new ConstOperand((encoded >>> 1) ^ -(encoded & 1));
+            case TAG_TEMP:
+                return new TempOperand(readVarint(in));
+            case TAG_VAR:
+                int variable = readVarint(in);
+                if (variable >= variables.length) {
+                    throw new IOException("变量下标越界: " + variable);
+                }
+                return variables[variable];
+            case TAG_LABEL:
+                return labels.computeIfAbsent(lookup(stringTable, readVarint(in)), LabelOperand::new);
+            case TAG_SHARED_TEXT:
+                int shared = readVarint(in);
+                if (shared >= SHARED_TEXTS.length) {
+                    throw new IOException("未知的固定文本: " + shared);
+                }
+                return SHARED_TEXTS[shared];
+            case TAG_TEXT:
+                return new TextOperand(lookup(stringTable, readVarint(in)));
+            default:
+                throw new IOException("未知的操作数标记: " + tag);
+        }
+    }
+
+    private static String lookup(String[] stringTable, int index) throws IOException {
+        if (index >= stringTable.length) {
+            throw new IOException("字符串下标越界: " + index);
+        }
+        return stringTable[index];
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("中间代码文件不完整");
+            }
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("变长整数过长");
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * 中间代码调试输出 - 按需把各阶段的中间代码写到文件
+ * 默认什么都不输出；打开后在调用处只复制一份四元组的浅拷贝，
+ * 格式化和写文件交给后台线程完成，不拖慢编译本身。
+ * 需要拷贝是因为后续的优化会原地改写四元组的跳转目标
+ * @author CompilerTeam
+ */
+package Midcode;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class IrDumper implements AutoCloseable {
+    /* 选择输出内容的系统属性，例如 -Dsysy.dump=ir,opt,passes */
+    public static final String DUMP_PROPERTY = "sysy.dump";
+    /* 输出目录的系统属性，默认为当前目录 */
+    public static final String DIRECTORY_PROPERTY = "sysy.dump.dir";
+
+    /**
+     * 可以输出的中间代码
+     */
+    public enum Artifact {
+        // 语法分析生成的原始中间代码 midcode.txt
+        IR,
+        // 优化完成后的中间代码 optimize.txt
+        OPTIMIZED,
+        // 每一遍优化之后的中间代码 optimize.<遍名>.txt
+        PASSES
+    }
+
+    /* 不输出任何内容的实例，编译会话默认使用它 */
+    public static final IrDumper DISABLED = new IrDumper(EnumSet.noneOf(Artifact.class), Paths.get("."));
+
+    private final EnumSet<Artifact> enabled;
+    private final Path directory;
+    private final List<Future<?>> pending = new ArrayList<>();
+    private ExecutorService writer = null;
+
+    public IrDumper(EnumSet<Artifact> enabled, Path directory) {
+        this.enabled = enabled;
+        this.directory = directory;
+    }
+
+    /**
+     * 按逗号分隔的列表选择输出内容，可用 ir、opt、passes 和 all
+     *
+     * @param spec      输出内容列表，为 null 或空串时不输出
+     * @param directory 输出目录
+     */
+    public static IrDumper parse(String spec, Path directory) {
+        EnumSet<Artifact> enabled = EnumSet.noneOf(Artifact.class);
+        if (spec != null) {
+            for (String item : spec.split(",")) {
+                switch (item.trim()) {
+                    case "ir":
+                        enabled.add(Artifact.IR);
+                        break;
+                    case "opt":
+                        enabled.add(Artifact.OPTIMIZED);
+                        break;
+                    case "passes":
+                        enabled.add(Artifact.PASSES);
+                        break;
+                    case "all":
+                        enabled = EnumSet.allOf(Artifact.class);
+                        break;
+                    case "":
+                        break;
+                    default:
+                        throw new IllegalArgumentException("未知的输出内容: " + item);
+                }
+            }
+        }
+        return enabled.isEmpty() ? DISABLED : new IrDumper(enabled, directory);
+    }
+
+    /**
+     * 是否打开了某类输出，调用处可以据此省去只为输出而准备数据的开销
+     */
+    public boolean isEnabled(Artifact artifact) {
+        return enabled.contains(artifact);
+    }
+
+    /**
+     * 在后台把中间代码写入输出目录下的文件，没有打开对应内容时什么也不做
+     *
+     * @param artifact 内容类别
+     * @param fileName 文件名
+     * @param codes    要输出的中间代码，调用返回后可以继续修改
+     */
+    public synchronized void dump(Artifact artifact, String fileName, List<midCode> codes) {
+        if (!enabled.contains(artifact)) {
+            return;
+        }
+        List<midCode> snapshot = new ArrayList<>(codes.size());
+        for (midCode code : codes) {
+            snapshot.add(new midCode(code.op, code.z, code.x, code.y));
+        }
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "ir-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        Path target = directory.resolve(fileName);
+        pending.add(writer.submit(() -> {
+            write(target, snapshot);
+            return null;
+        }));
+    }
+
+    private static void write(Path target, List<midCode> codes) throws IOException {
+        try (Writer out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            for (midCode code : codes) {
+                String line = code.toString();
+                out.write(line != null ? line : "null");
+                out.write(System.lineSeparator());
+            }
+        }
+    }
+
+    /**
+     * 等待所有已提交的文件写完，写文件失败时打印异常
+     */
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            }
+        }
+        pending.clear();
+        writer.shutdown();
+        writer = null;
+    }
+}
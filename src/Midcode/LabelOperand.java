@@ -0,0 +1,42 @@
+/**
+ * 标签操作数 - 跳转目标和函数名
+ * 名称相同的标签彼此相等
+ * @author CompilerTeam
+ */
+package Midcode;
+
+public class LabelOperand extends Operand {
+    // 标签名
+    private final String name;
+
+    /**
+     * 标签操作数构造方法
+     * 
+     * @param name 标签名
+     */
+    public LabelOperand(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 获取标签名
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof LabelOperand && ((LabelOperand) other).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * 四元组操作数基类
+ * 操作数在生成中间代码时就确定了类型，优化器和目标代码生成器
+ * 直接按类型处理，不再通过解析字符串来判断是常量、临时变量还是变量名
+ * @author CompilerTeam
+ */
+package Midcode;
+
+public abstract class Operand {
+
+    /**
+     * 将操作数转换为中间代码中的文本形式
+     * 
+     * @return 与旧版字符串操作数完全相同的文本
+     */
+    @Override
+    public abstract String toString();
+}
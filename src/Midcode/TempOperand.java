@@ -0,0 +1,42 @@
+/**
+ * 临时变量操作数
+ * 编号在一次编译内唯一，文本形式为 t&编号
+ * @author CompilerTeam
+ */
+package Midcode;
+
+public class TempOperand extends Operand {
+    // 临时变量编号
+    private final int id;
+
+    /**
+     * 临时变量操作数构造方法
+     * 
+     * @param id 临时变量编号
+     */
+    public TempOperand(int id) {
+        this.id = id;
+    }
+
+    /**
+     * 获取临时变量编号
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TempOperand && ((TempOperand) other).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return "t&" + id;
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * 文本操作数 - 输出的字符串常量，以及四元组中起标记作用的固定文本
+ * 固定文本只有下面几个共享实例，比较时可以直接用 ==
+ * @author CompilerTeam
+ */
+package Midcode;
+
+public class TextOperand extends Operand {
+    // 代码块开始标记
+    public static final TextOperand START = new TextOperand("start");
+    // 代码块结束标记
+    public static final TextOperand END = new TextOperand("end");
+    // 输出字符串
+    public static final TextOperand STRING = new TextOperand("string");
+    // 输出整数
+    public static final TextOperand DIGIT = new TextOperand("digit");
+    // 返回 int 的函数
+    public static final TextOperand INT = new TextOperand("int");
+    // 无返回值的函数
+    public static final TextOperand VOID = new TextOperand("void");
+
+    // 文本内容
+    private final String text;
+
+    /**
+     * 文本操作数构造方法
+     * 
+     * @param text 文本内容
+     */
+    public TextOperand(String text) {
+        this.text = text;
+    }
+
+    /**
+     * 获取文本内容
+     */
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TextOperand && ((TextOperand) other).text.equals(text);
+    }
+
+    @Override
+    public int hashCode() {
+        return text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
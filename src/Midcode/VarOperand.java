@@ -0,0 +1,46 @@
+/**
+ * 具名变量操作数 - 普通变量、数组名和函数参数
+ * 每个变量在一次编译中只有一个操作数对象，同名但位于不同作用域的变量是不同的对象，
+ * 因此可以直接用 == 判断两个操作数是否指向同一个变量
+ * @author CompilerTeam
+ */
+package Midcode;
+
+import Symbol_table.Symbols.NorSymbol;
+
+public class VarOperand extends Operand {
+    // 变量名
+    private final String name;
+    // 生成中间代码时解析到的符号，找不到定义时为 null
+    private final NorSymbol symbol;
+
+    /**
+     * 具名变量操作数构造方法
+     * 
+     * @param name   变量名
+     * @param symbol 变量对应的符号
+     */
+    public VarOperand(String name, NorSymbol symbol) {
+        this.name = name;
+        this.symbol = symbol;
+    }
+
+    /**
+     * 获取变量名
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取变量对应的符号
+     */
+    public NorSymbol getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -9,11 +9,15 @@ public class midCode {
     // 四元组操作类型
     public operation op;
     // 目标操作数或结果存储位置
-    public String z = null;
+    public Operand z = null;
     // 第一个源操作数
-    public String x = null;
+    public Operand x = null;
     // 第二个源操作数
-    public String y = null;
+    public Operand y = null;
+    // 所在的指令链表及链表中前后相邻的四元组，由 InstructionList 维护
+    InstructionList list = null;
+    midCode prev = null;
+    midCode next = null;
 
     /**
      * 完整四元组构造方法
@@ -23,7 +27,7 @@ public class midCode {
      * @param x  第一源操作数
      * @param y  第二源操作数
      */
-    public midCode(operation op, String z, String x, String y) {
+    public midCode(operation op, Operand z, Operand x, Operand y) {
         this.op = op;
         this.z = z;
         this.x = x;
@@ -36,7 +40,7 @@ public class midCode {
      * @param op 操作类型
      * @param z  目标操作数
      */
-    public midCode(operation op, String z) {
+    public midCode(operation op, Operand z) {
         this.op = op;
         this.z = z;
     }
@@ -48,12 +52,26 @@ public class midCode {
      * @param z  目标操作数
      * @param x  源操作数
      */
-    public midCode(operation op, String z, String x) {
+    public midCode(operation op, Operand z, Operand x) {
         this.op = op;
         this.z = z;
         this.x = x;
     }
 
+    /**
+     * 所在指令链表中的下一条四元组，是最后一条或不在链表中时返回 null
+     */
+    public midCode getNext() {
+        return next;
+    }
+
+    /**
+     * 所在指令链表中的上一条四元组，是第一条或不在链表中时返回 null
+     */
+    public midCode getPrevious() {
+        return prev;
+    }
+
     /**
      * 将中间代码四元组转换为字符串表示
      * 
@@ -170,7 +188,7 @@ public class midCode {
      * 生成打印操作的字符串表示
      */
     private String generatePrintOperation() {
-        if (x.equals("string")) {
+        if (x == TextOperand.STRING) {
             return "print \"" + z + "\"";
         } else {
             return "print " + z;
@@ -203,9 +221,10 @@ public class midCode {
      * 生成参数声明的字符串表示
      */
     private String generateParameterDeclaration() {
-        if (x.equals("0")) {
+        int dimension = ((ConstOperand) x).getValue();
+        if (dimension == 0) {
             return "para int " + z;
-        } else if (x.equals("1")) {
+        } else if (dimension == 1) {
             return "para int " + z + "[]";
         } else {
             return "para int " + z + "[][" + y + "]";
@@ -0,0 +1,179 @@
+package Mipscode;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * MIPS汇编输出器
+ * 每条指令直接格式化进同一块可复用的字符缓冲区，缓冲区写满或输出结束时才整块交给底层 Writer，
+ * 不为每条指令拼接临时字符串，也不经过 System.out
+ */
+public class AsmWriter implements Flushable, Closeable {
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private final char[] buffer;
+    private int length = 0;
+
+    public AsmWriter(Writer out) {
+        this(out, 1 << 16);
+    }
+
+    public AsmWriter(Writer out, int bufferSize) {
+        this.out = out;
+        this.buffer = new char[bufferSize];
+    }
+
+    public void write(Mipscode mc) throws IOException {
+        switch (mc.op) {
+            case add:
+            case addu:
+            case sle:
+            case sgt:
+            case sge:
+            case slt:
+            case sne:
+            case seq:
+            case sub:
+                name(mc.op).append(mc.z).append(',').append(mc.x).append(',').append(mc.y);
+                break;
+            case beq:
+                append("beq ").append(mc.x).append(',').append(mc.y).append(',').append(mc.z);
+                break;
+            case mult:
+            case multu:
+            case bgez:
+                name(mc.op).append(mc.z).append(',').append(mc.x);
+                break;
+            case divop:
+                append("div ").append(mc.z).append(',').append(mc.x);
+                break;
+            case addi:
+            case sll:
+            case sra:
+                name(mc.op).append(mc.z).append(',').append(mc.x).append(',').append(mc.imme);
+                break;
+            case mflo:
+            case mfhi:
+            case j:
+            case jal:
+            case jr:
+                name(mc.op).append(mc.z);
+                break;
+            case lw:
+            case sw:
+                name(mc.op).append(mc.z).append(',').append(mc.imme).append('(').append(mc.x).append(')');
+                break;
+            case syscall:
+                append("syscall");
+                break;
+            case li:
+                append("li ").append(mc.z).append(',').append(mc.imme);
+                break;
+            case la:
+                append("la ").append(mc.z).append(',').append(mc.x);
+                break;
+            case moveop:
+                append("move ").append(mc.z).append(',').append(mc.x);
+                break;
+            case dataSeg:
+                append(".data");
+                break;
+            case textSeg:
+                append("\n.text");
+                break;
+            case asciizSeg:
+                append(mc.z).append(": .asciiz \"").append(mc.x).append('"');
+                break;
+            case label:
+                append('\n').append(mc.z).append(':');
+                break;
+            default:
+                append("-------------------wrong-------------------");
+                break;
+        }
+        append(LINE_SEPARATOR);
+    }
+
+    // 指令名与枚举名相同的指令，输出 "名称 "
+    private AsmWriter name(Mipscode.operation op) throws IOException {
+        return append(op.name()).append(' ');
+    }
+
+    private AsmWriter append(String text) throws IOException {
+        if (text == null) {
+            text = "null";
+        }
+        int count = text.length();
+        if (count > buffer.length - length) {
+            drain();
+            if (count > buffer.length) {
+                out.write(text);
+                return this;
+            }
+        }
+        text.getChars(0, count, buffer, length);
+        length += count;
+        return this;
+    }
+
+    private AsmWriter append(char c) throws IOException {
+        if (length == buffer.length) {
+            drain();
+        }
+        buffer[length++] = c;
+        return this;
+    }
+
+    // 把整数的十进制表示直接写进缓冲区
+    private AsmWriter append(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            return append("-2147483648");
+        }
+        if (buffer.length - length < 11) {
+            drain();
+        }
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int end = length + digits(value);
+        int pos = end;
+        do {
+            buffer[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        length = end;
+        return this;
+    }
+
+    private static int digits(int value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    private void drain() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
@@ -1,41 +1,89 @@
 package Mipscode;
 
+import AST.CompilationContext;
+import Midcode.ConstOperand;
+import Midcode.Operand;
+import Midcode.TempOperand;
+import Midcode.TextOperand;
 import Midcode.midCode;
 import Optim.Register;
-import Symbol_table.FuncTable;
-import Symbol_table.IntergerTable;
-import Symbol_table.Symbols.ArraySymbol;
-import Symbol_table.Symbols.NorSymbol;
-import Symbol_table.Symbols.VarSymbol;
 
-import java.io.FileNotFoundException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 
 public class Mips {
 
-    ArrayList<midCode> pushStack = new ArrayList<>(); 
+    ArrayList<Integer> pushStack = new ArrayList<>(); 
     HashMap<String, Integer> funcLenMap = new HashMap<>(); 
     HashMap<String, String> strLabelMap = new HashMap<>(); 
     private ArrayList<midCode> irList;
     private LinkedList<String> strList;
     private ArrayList<Mipscode> mipsList = new ArrayList<>();
-    private IntergerTable curIntTable = new IntergerTable(); 
+    private StorageLayout layout;
+    private int cursor = 0;
     private boolean inFunc = false; 
     private boolean inMain = false;
-    private int funcPtr = 0;
     private int divLabelIdx = 0; 
     private Register regAlloc;
+    private final PrintStream diagnostics;
+    /* 并行翻译时每个函数的提示信息先写入自己的缓冲区，结束后按函数顺序转交 */
+    private ByteArrayOutputStream diagnosticBuffer = null;
+
+    /* 中间代码少于这个条数时整段顺序翻译，线程调度的开销比翻译本身还大 */
+    private static final int PARALLEL_THRESHOLD = 4096;
 
     public Mips(ArrayList<midCode> midCodes, LinkedList<String> strings) {
+        this(midCodes, strings, System.out);
+    }
+
+    public Mips(ArrayList<midCode> midCodes, LinkedList<String> strings, PrintStream diagnostics) {
         this.irList = midCodes;
         this.strList = strings;
-        regAlloc = new Register();
+        this.diagnostics = diagnostics;
+        regAlloc = new Register(diagnostics);
         getFuncLenMap();
+        layout = new StorageLayout(irList);
         generateMips();
-        printMips();
+    }
+
+    public Mips(CompilationContext context) {
+        this(context.getMidCodes(), context.getStrings(), context.getDiagnostics());
+    }
+
+    /**
+     * 翻译一段函数的工作实例
+     * 中间代码、存储分配结果、函数栈帧大小和字符串标签只读共享，
+     * 指令列表、寄存器状态和除法标签计数各自独立
+     *
+     * @param program       整个程序的翻译器
+     * @param divLabelStart 这段代码之前已经用掉的除法跳转标签数
+     * @param inFunc        前面是否已经翻译过函数（已经输出过 j main）
+     */
+    private Mips(Mips program, int divLabelStart, boolean inFunc) {
+        this.irList = program.irList;
+        this.strList = program.strList;
+        this.layout = program.layout;
+        this.funcLenMap = program.funcLenMap;
+        this.strLabelMap = program.strLabelMap;
+        this.divLabelIdx = divLabelStart;
+        this.inFunc = inFunc;
+        this.diagnosticBuffer = new ByteArrayOutputStream();
+        this.diagnostics = new PrintStream(diagnosticBuffer, true);
+        this.regAlloc = new Register(diagnostics);
     }
 
     void getFuncLenMap() {
@@ -53,13 +101,13 @@ public class Mips {
                 if (funcName != null) {
                     funcLenMap.put(funcName, cnt);
                 }
-                funcName = md.z;
+                funcName = md.z.toString();
                 cnt = 0;
             }
             if (md.op == midCode.operation.ARRAY) {
-                int k = Integer.parseInt(md.x);
+                int k = ((ConstOperand) md.x).getValue();
                 if (md.y != null) {
-                    int l = Integer.parseInt(md.y);
+                    int l = ((ConstOperand) md.y).getValue();
                     k *= l;
                 }
                 cnt += k;
@@ -70,145 +118,41 @@ public class Mips {
         funcLenMap.put(funcName, cnt);
     }
 
-    int getOffset(String name) { 
-        IntergerTable table = curIntTable;
-        while (table != null) {
-            if (table.contains(name)) {
-                return table.get(name).getOffset();
-            }
-            table = table.getOut();
-        }
-        return -1;
-    }
-
-    boolean checkname(String name) {
-        return name.length() >= 2 && name.charAt(1) == '&';
-    }
-
-    boolean ispointer(String name) {
-        IntergerTable table = curIntTable;
-        while (table != null) {
-            if (table.contains(name)) {
-                return table.get(name).isIspointer();
-            }
-            table = table.getOut();
-        }
-        return false;
-    }
-
-    boolean isGlobal(String name) { 
-        IntergerTable table = curIntTable;
-        while (table != null) {
-            if (table.contains(name)) {
-                return table.getOut() == null;
-            }
-            table = table.getOut();
-        }
-        return false;
-    }
-
-    void addNormalVar(String name) { 
-        if (curIntTable.contains(name)) {
-            return;
-        } else {
-            curIntTable.add(name, new VarSymbol(name, funcPtr));
-            funcPtr += 1;
-        }
-    }
-
-    void addNormalVar(String name, boolean isPtr) {
-        if (curIntTable.contains(name)) {
-            return;
-        } else {
-            curIntTable.add(name, new ArraySymbol(name, funcPtr, true));
-            funcPtr += 1;
-        }
-    }
-
-    void addNormalVar(String name, int len) {
-        if (curIntTable.getOut() == null) {
-            curIntTable.add(name, new ArraySymbol(name, funcPtr));
-            funcPtr += len;
-        } else {
-            funcPtr += len - 1;
-            curIntTable.add(name, new ArraySymbol(name, funcPtr));
-            funcPtr += 1;
-        }
+    boolean checkname(Operand operand) {
+        return operand instanceof TempOperand;
     }
 
-    String getValue(String name, String regName, boolean allowTable) { 
-        if (checkname(name)) {
-            String addr = regAlloc.findtemp(name);
+    String getValue(Operand operand, StorageSlot slot, String regName) { 
+        if (checkname(operand)) {
+            String addr = regAlloc.findtemp(operand);
             return addr;
         }
-        if (Character.isDigit(name.charAt(0)) || name.charAt(0) == '-') {
-            mipsList.add(new Mipscode(Mipscode.operation.li, regName, "", "", Integer.parseInt(name)));
+        if (operand instanceof ConstOperand) {
+            mipsList.add(new Mipscode(Mipscode.operation.li, regName, "", "", ((ConstOperand) operand).getValue()));
         } else {
-            if (allowTable) {
-                addNormalVar(name);
-            }
-            boolean global = isGlobal(name);
-            int offset = getOffset(name);
-            if (global) {
-                mipsList.add(new Mipscode(Mipscode.operation.lw, regName, "$gp", "", 4 * offset));
-            } else {
-                mipsList.add(new Mipscode(Mipscode.operation.lw, regName, "$fp", "", -4 * offset));
-            }
+            mipsList.add(new Mipscode(Mipscode.operation.lw, regName, slot.base, "", slot.displacement));
         }
         return regName;
     }
 
-    String getAddr(String name, String regName) {
-        IntergerTable table = curIntTable;
-        if (Character.isDigit(name.charAt(0)) || name.charAt(0) == '-') {
-            mipsList.add(new Mipscode(Mipscode.operation.li, regName, "", "", Integer.parseInt(name)));
+    String getAddr(Operand operand, StorageSlot slot, String regName) {
+        if (operand instanceof ConstOperand) {
+            mipsList.add(new Mipscode(Mipscode.operation.li, regName, "", "", ((ConstOperand) operand).getValue()));
             return regName;
         }
-        while (table != null) {
-            if (table.contains(name)) {
-                NorSymbol sym = table.get(name);
-                if (sym instanceof ArraySymbol) {
-                    if (ispointer(name)) {
-                        getValue(name, regName, false);
-                    } else {
-                        if (isGlobal(name)) {
-                            mipsList.add(
-                                    new Mipscode(Mipscode.operation.addi, regName, "$gp", "", 4 * sym.getOffset()));
-                        } else {
-                            mipsList.add(
-                                    new Mipscode(Mipscode.operation.addi, regName, "$fp", "", -4 * sym.getOffset()));
-                        }
-                        return regName;
-                    }
-                } else {
-                    String addr = getValue(name, regName, false);
-                    return addr;
-                }
-                break;
+        if (slot != null && slot.array) {
+            if (!slot.pointer) {
+                mipsList.add(new Mipscode(Mipscode.operation.addi, regName, slot.base, "", slot.displacement));
+                return regName;
             }
-            table = table.getOut();
+            getValue(operand, slot, regName);
         }
-        String addr = getValue(name, regName, false);
+        String addr = getValue(operand, slot, regName);
         return addr;
     }
 
-    void saveValue(String name, String regName, boolean allowTable) { 
-        if (allowTable) {
-            addNormalVar(name);
-        }
-        boolean global = isGlobal(name);
-        int offset = getOffset(name);
-        if (global) {
-            mipsList.add(new Mipscode(Mipscode.operation.sw, regName, "$gp", "", 4 * offset));
-        } else {
-            mipsList.add(new Mipscode(Mipscode.operation.sw, regName, "$fp", "", -4 * offset));
-        }
-    }
-
-    boolean isTempVar(String s) {
-        if (s.length() < 2)
-            return false;
-        return s.charAt(1) == '&';
+    void saveValue(StorageSlot slot, String regName) { 
+        mipsList.add(new Mipscode(Mipscode.operation.sw, regName, slot.base, "", slot.displacement));
     }
 
     int getTwoExp(int k) {
@@ -226,15 +170,11 @@ public class Mips {
 
     void modHandler(midCode mc) {
         divHandler(mc);
-        String addr = getValue(mc.y, "$t1", false);
+        String addr = getValue(mc.y, ySlot(), "$t1");
         mipsList.add(new Mipscode(Mipscode.operation.mult, addr, "$t2", ""));
         mipsList.add(new Mipscode(Mipscode.operation.mflo, "$t2"));
         mipsList.add(new Mipscode(Mipscode.operation.sub, "$t2", "$t0", "$t2"));
-        if (checkname(mc.z)) {
-            mipsList.add(new Mipscode(Mipscode.operation.moveop, regAlloc.gettemp(mc.z), "$t2"));
-        } else {
-            saveValue(mc.z, "$t2", isTempVar(mc.z));
-        }
+        writeResult(mc.z, zSlot(), "$t2");
     }
 
     int leftCheck(int m) {
@@ -245,10 +185,10 @@ public class Mips {
     }
 
     void divHandler(midCode mc) {
-        String addr = getValue(mc.x, "$t0", false);
+        String addr = getValue(mc.x, xSlot(), "$t0");
         mipsList.add(new Mipscode(Mipscode.operation.moveop, "$t0", addr));
-        if (Character.isDigit(mc.y.charAt(0))) {
-            int divnum = Integer.parseInt(mc.y);
+        if (mc.y instanceof ConstOperand && ((ConstOperand) mc.y).getValue() >= 0) {
+            int divnum = ((ConstOperand) mc.y).getValue();
             int k = getTwoExp(divnum);
             int left = leftCheck(divnum);
             if (isPowerOfTwo(divnum)) {
@@ -388,11 +328,59 @@ public class Mips {
             }
         }
 
-        String addr2 = getValue(mc.y, "$t1", false);
+        String addr2 = getValue(mc.y, ySlot(), "$t1");
         mipsList.add(new Mipscode(Mipscode.operation.divop, "$t0", addr2, ""));
         mipsList.add(new Mipscode(Mipscode.operation.mflo, "$t2"));
     }
 
+    /* 每种四元组对应的翻译方法，按操作类型直接查表，不再逐个比较 */
+    private static final EnumMap<midCode.operation, BiConsumer<Mips, midCode>> LOWERING =
+            new EnumMap<>(midCode.operation.class);
+
+    static {
+        LOWERING.put(midCode.operation.PLUSOP, (m, mc) -> m.lowerBinary(mc, Mipscode.operation.add));
+        LOWERING.put(midCode.operation.MINUOP, (m, mc) -> m.lowerBinary(mc, Mipscode.operation.sub));
+        LOWERING.put(midCode.operation.MULTOP, Mips::lowerMult);
+        LOWERING.put(midCode.operation.DIVOP, Mips::lowerDiv);
+        LOWERING.put(midCode.operation.MODOP, Mips::modHandler);
+        LOWERING.put(midCode.operation.LSSOP, (m, mc) -> m.lowerBinary(mc, Mipscode.operation.slt));
+        LOWERING.put(midCode.operation.LEQOP, (m, mc) -> m.lowerBinary(mc, Mipscode.operation.sle));
+        LOWERING.put(midCode.operation.GREOP, (m, mc) -> m.lowerBinary(mc, Mipscode.operation.sgt));
+        LOWERING.put(midCode.operation.GEQOP, (m, mc) -> m.lowerBinary(mc, Mipscode.operation.sge));
+        LOWERING.put(midCode.operation.EQLOP, (m, mc) -> m.lowerBinary(mc, Mipscode.operation.seq));
+        LOWERING.put(midCode.operation.NEQOP, (m, mc) -> m.lowerBinary(mc, Mipscode.operation.sne));
+        LOWERING.put(midCode.operation.SLL, (m, mc) -> m.lowerShift(mc, Mipscode.operation.sll));
+        LOWERING.put(midCode.operation.SRA, (m, mc) -> m.lowerShift(mc, Mipscode.operation.sra));
+        LOWERING.put(midCode.operation.ASSIGNOP, Mips::lowerAssign);
+        LOWERING.put(midCode.operation.PUSH, (m, mc) -> m.pushStack.add(m.cursor));
+        LOWERING.put(midCode.operation.CALL, Mips::lowerCall);
+        LOWERING.put(midCode.operation.RET, Mips::lowerRet);
+        LOWERING.put(midCode.operation.RETVALUE, (m, mc) -> m.writeResult(mc.z, m.zSlot(), "$v0"));
+        LOWERING.put(midCode.operation.PRINT, Mips::lowerPrint);
+        LOWERING.put(midCode.operation.SCAN, Mips::lowerScan);
+        LOWERING.put(midCode.operation.LABEL, Mips::lowerLabel);
+        LOWERING.put(midCode.operation.FUNC, Mips::lowerFunc);
+        LOWERING.put(midCode.operation.MAIN, Mips::lowerMain);
+        // 参数和数组只占用存储位置，不生成指令
+        LOWERING.put(midCode.operation.PARAM, (m, mc) -> {
+        });
+        LOWERING.put(midCode.operation.GETARRAY, Mips::lowerGetArray);
+        LOWERING.put(midCode.operation.PUTARRAY, Mips::lowerPutArray);
+        LOWERING.put(midCode.operation.CONST, Mips::lowerVar);
+        LOWERING.put(midCode.operation.VAR, Mips::lowerVar);
+        LOWERING.put(midCode.operation.ARRAY, (m, mc) -> {
+        });
+        LOWERING.put(midCode.operation.BZ, Mips::lowerBz);
+        LOWERING.put(midCode.operation.GOTO,
+                (m, mc) -> m.mipsList.add(new Mipscode(Mipscode.operation.j, mc.z.toString(), "", "")));
+        LOWERING.put(midCode.operation.Jump,
+                (m, mc) -> m.mipsList.add(new Mipscode(Mipscode.operation.label, mc.z.toString())));
+        LOWERING.put(midCode.operation.EXIT, (m, mc) -> {
+        });
+        LOWERING.put(midCode.operation.DEBUG, (m, mc) -> {
+        });
+    }
+
     public void generateMips() { 
         mipsList.add(new Mipscode(Mipscode.operation.dataSeg, ""));
         for (int i = 0; i < strList.size(); i++) {
@@ -400,425 +388,378 @@ public class Mips {
             strLabelMap.put(strList.get(i), "s_" + i);
         }
         mipsList.add(new Mipscode(Mipscode.operation.textSeg, ""));
-        for (int i = 0; i < irList.size(); i++) {
+        ArrayList<Integer> bounds = splitFunctions();
+        if (bounds.size() <= 2 || irList.size() < PARALLEL_THRESHOLD) {
+            lowerRange(0, irList.size());
+            return;
+        }
+
+        // 每个函数交给一个工作实例，除法标签的起始编号预先算好，拼接结果与顺序翻译逐字节相同
+        int parts = bounds.size() - 1;
+        Mips[] workers = new Mips[parts];
+        int divLabels = divLabelIdx;
+        for (int i = 0; i < parts; i++) {
+            workers[i] = new Mips(this, divLabels, inFunc || i > 0);
+            divLabels += countDivLabels(bounds.get(i), bounds.get(i + 1));
+        }
+        IntStream.range(0, parts).parallel()
+                .forEach(i -> workers[i].lowerRange(bounds.get(i), bounds.get(i + 1)));
+        for (Mips worker : workers) {
+            mipsList.addAll(worker.mipsList);
+            // 没有提示信息时不写，以免创建空的输出文件
+            if (worker.diagnosticBuffer.size() > 0) {
+                diagnostics.write(worker.diagnosticBuffer.toByteArray(), 0, worker.diagnosticBuffer.size());
+            }
+        }
+        divLabelIdx = divLabels;
+        inFunc = true;
+        inMain = workers[parts - 1].inMain;
+    }
+
+    private void lowerRange(int from, int to) {
+        for (int i = from; i < to; i++) {
             midCode mc = irList.get(i);
-            if (mc.op.equals(midCode.operation.PLUSOP)) {
-                String addr1 = getValue(mc.x, "$t0", false);
-                String addr2 = getValue(mc.y, "$t1", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.add, regAlloc.gettemp(mc.z), addr1, addr2));
-                } else {
-                    mipsList.add(new Mipscode(Mipscode.operation.add, "$t2", addr1, addr2));
-                    saveValue(mc.z, "$t2", isTempVar(mc.z));
-                }
-            } else if (mc.op.equals(midCode.operation.MINUOP)) {
-                String addr1 = getValue(mc.x, "$t0", false);
-                String addr2 = getValue(mc.y, "$t1", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.sub, regAlloc.gettemp(mc.z), addr1, addr2));
-                } else {
-                    mipsList.add(new Mipscode(Mipscode.operation.sub, "$t2", addr1, addr2));
-                    saveValue(mc.z, "$t2", isTempVar(mc.z));
-                }
-            } else if (mc.op.equals(midCode.operation.MULTOP)) {
-                String addr1 = getValue(mc.x, "$t0", false);
-                String addr2 = getValue(mc.y, "$t1", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.mult, addr1, addr2, ""));
-                    mipsList.add(new Mipscode(Mipscode.operation.mflo, regAlloc.gettemp(mc.z)));
-                } else {
-                    mipsList.add(new Mipscode(Mipscode.operation.mult, "$t0", "$t1", ""));
-                    mipsList.add(new Mipscode(Mipscode.operation.mflo, "$t2"));
-                    saveValue(mc.z, "$t2", isTempVar(mc.z));
-                }
-            } else if (mc.op.equals(midCode.operation.DIVOP)) {
-                divHandler(mc);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.moveop, regAlloc.gettemp(mc.z), "$t2"));
-                } else {
-                    saveValue(mc.z, "$t2", isTempVar(mc.z));
-                }
-            } else if (mc.op.equals(midCode.operation.MODOP)) {
-                modHandler(mc);
-            } else if (mc.op.equals(midCode.operation.ASSIGNOP)) {
-                String addr = getValue(mc.x, "$t0", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.moveop, regAlloc.gettemp(mc.z), addr));
-                } else {
-                    saveValue(mc.z, addr, isTempVar(mc.z));
-                }
-            } else if (mc.op.equals(midCode.operation.PUSH)) {
-                pushStack.add(mc);
-            } else if (mc.op.equals(midCode.operation.CALL)) {
-                for (int j = 0; j < pushStack.size(); j++) {
-                    midCode mcs = pushStack.get(j);
-                    if (mcs.x != null) {
-                        getAddr(mcs.z, "$t0");
-                        String addr = getValue(mcs.x, "$t1", false);
-                        mipsList.add(new Mipscode(Mipscode.operation.li, "$t2", "", "", Integer.parseInt(mcs.y) * 4));
-                        mipsList.add(new Mipscode(Mipscode.operation.mult, "$t2", addr, ""));
-                        mipsList.add(new Mipscode(Mipscode.operation.mflo, "$t2"));
-                        mipsList.add(new Mipscode(Mipscode.operation.add, "$t0", "$t0", "$t2"));
-                    } else {
-                        getAddr(mcs.z, "$t0");
-                        String addr = getAddr(mcs.z, "$t0");
-                        mipsList.add(new Mipscode(Mipscode.operation.sw, addr, "$sp", "", -4 * j));
-                        ;
-                    }
-                }
-                pushStack.clear();
-                ArrayList<String> lists = regAlloc.getReverlists();
-                int len = lists.size();
-                mipsList.add(new Mipscode(Mipscode.operation.addi, "$sp", "$sp", "",
-                        -4 * funcLenMap.get(mc.z) - 8 - 4 * len));
-                mipsList.add(new Mipscode(Mipscode.operation.sw, "$ra", "$sp", "", 4));
-                mipsList.add(new Mipscode(Mipscode.operation.sw, "$fp", "$sp", "", 8));
-                for (int k = 0; k < len; k++) {
-                    mipsList.add(new Mipscode(Mipscode.operation.sw, lists.get(k), "$sp", "", 12 + 4 * k));
-                }
-                mipsList.add(new Mipscode(Mipscode.operation.addi, "$fp", "$sp", "",
-                        4 * funcLenMap.get(mc.z) + 8 + 4 * len));
-                mipsList.add(new Mipscode(Mipscode.operation.jal, mc.z));
-                for (int k = len - 1; k >= 0; k--) {
-                    mipsList.add(new Mipscode(Mipscode.operation.lw, lists.get(k), "$sp", "", 12 + 4 * k));
-                }
-                mipsList.add(new Mipscode(Mipscode.operation.lw, "$fp", "$sp", "", 8));
-                mipsList.add(new Mipscode(Mipscode.operation.lw, "$ra", "$sp", "", 4));
-                mipsList.add(new Mipscode(Mipscode.operation.addi, "$sp", "$sp", "",
-                        4 * funcLenMap.get(mc.z) + 8 + 4 * len));
-            } else if (mc.op.equals(midCode.operation.RET)) {
-                if (inMain) {
-                    mipsList.add(new Mipscode(Mipscode.operation.li, "$v0", "", "", 10));
-                    mipsList.add(new Mipscode(Mipscode.operation.syscall, ""));
-                } else {
-                    if (mc.z != null) {              
-                        if (checkname(mc.z)) {
-                            mipsList.add(new Mipscode(Mipscode.operation.moveop, "$v0", regAlloc.findtemp(mc.z)));
-                        } else {
-                            getValue(mc.z, "$v0", false);
-                        }
-                    }
-                    mipsList.add(new Mipscode(Mipscode.operation.jr, "$ra"));
-                }
-            } else if (mc.op.equals(midCode.operation.RETVALUE)) {
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.moveop, regAlloc.gettemp(mc.z), "$v0"));
-                } else {
-                    saveValue(mc.z, "$v0", isTempVar(mc.z));
-                }
-            } else if (mc.op.equals(midCode.operation.PRINT)) {
-                if (mc.x.equals("string")) {
-                    String addr = strLabelMap.get(mc.z);
-                    mipsList.add(new Mipscode(Mipscode.operation.la, "$a0", addr));
-                    mipsList.add(new Mipscode(Mipscode.operation.li, "$v0", "", "", 4));
-                    mipsList.add(new Mipscode(Mipscode.operation.syscall, "", "", ""));
-                } else {
-                    if (checkname(mc.z)) {
-                        mipsList.add(new Mipscode(Mipscode.operation.moveop, "$a0", regAlloc.findtemp(mc.z)));
-                    } else {
-                        getValue(mc.z, "$a0", false);
-                    }
-                    mipsList.add(new Mipscode(Mipscode.operation.li, "$v0", "", "", 1));
-                    mipsList.add(new Mipscode(Mipscode.operation.syscall, null));
+            cursor = i;
+            BiConsumer<Mips, midCode> lowering = LOWERING.get(mc.op);
+            if (lowering != null) {
+                lowering.accept(this, mc);
+            } else {
+                diagnostics.print("what happened!!!!!!!!");
+            }
+        }
+    }
 
-                }
-            } else if (mc.op.equals(midCode.operation.SCAN)) {
-                mipsList.add(new Mipscode(Mipscode.operation.li, "$v0", "", "", 5));
-                mipsList.add(new Mipscode(Mipscode.operation.syscall, null));
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.moveop, regAlloc.gettemp(mc.z), "$v0"));
-                } else {
-                    saveValue(mc.z, "$v0", isTempVar(mc.z));
-                }
-            } else if (mc.op.equals(midCode.operation.LABEL)) {
-                if (mc.x.equals("start")) {
-                    curIntTable = new IntergerTable(curIntTable);
-                } else if (mc.x.equals("end")) {
-                    funcPtr -= curIntTable.getContentlength();
-                    curIntTable = curIntTable.getOut();
-                    regAlloc.reset();
-                }
-            } else if (mc.op.equals(midCode.operation.FUNC)) {
-                if (!inFunc) {
-                    mipsList.add(new Mipscode(Mipscode.operation.j, "main")); 
-                    inFunc = true;
-                }
-                mipsList.add(new Mipscode(Mipscode.operation.label, mc.z));
-                funcPtr = 0;
-            } else if (mc.op.equals(midCode.operation.PARAM)) {
-                if (mc.x.equals("0"))
-                    addNormalVar(mc.z);
-                else {
-                    addNormalVar(mc.z, true); 
-                }
-            } else if (mc.op.equals(midCode.operation.GETARRAY)) {
-                String addr1 = getValue(mc.y, "$t0", false);
-                mipsList.add(new Mipscode(Mipscode.operation.sll, "$t0", addr1, "", 2));
-                if (ispointer(mc.x)) {
-                    getValue(mc.x, "$t1", false);
-                    mipsList.add(new Mipscode(Mipscode.operation.add, "$t1", "$t1", "$t0"));
-                    mipsList.add(new Mipscode(Mipscode.operation.lw, "$t2", "$t1", "", 0));
-                } else {
-                    if (isGlobal(mc.x)) {
-                        mipsList.add(new Mipscode(Mipscode.operation.add, "$t1", "$t0", "$gp"));
-                        mipsList.add(new Mipscode(Mipscode.operation.lw, "$t2", "$t1", "", 4 * getOffset(mc.x)));
-                    } else {
-                        mipsList.add(new Mipscode(Mipscode.operation.addu, "$t1", "$t0", "$fp"));
-                        mipsList.add(new Mipscode(Mipscode.operation.lw, "$t2", "$t1", "", -4 * getOffset(mc.x)));
-                    }
-                }
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.moveop, regAlloc.gettemp(mc.z), "$t2"));
-                } else {
-                    saveValue(mc.z, "$t2", isTempVar(mc.z));
-                }
-            } else if (mc.op.equals(midCode.operation.PUTARRAY)) {
-                String addr1 = getValue(mc.y, "$t0", false);
-                String addr2 = getValue(mc.x, "$t1", false);
-                mipsList.add(new Mipscode(Mipscode.operation.sll, "$t1", addr2, "", 2));
-                if (ispointer(mc.z)) { 
-                    getValue(mc.z, "$t2", false);
-                    mipsList.add(new Mipscode(Mipscode.operation.add, "$t2", "$t2", "$t1"));
-                    mipsList.add(new Mipscode(Mipscode.operation.sw, addr1, "$t2", "", 0));
-                } else {
-                    if (isGlobal(mc.z)) {
-                        mipsList.add(new Mipscode(Mipscode.operation.add, "$t1", "$t1", "$gp"));
-                        mipsList.add(new Mipscode(Mipscode.operation.sw, addr1, "$t1", "", 4 * getOffset(mc.z)));
-                    } else {
-                        mipsList.add(new Mipscode(Mipscode.operation.addu, "$t1", "$t1", "$fp"));
-                        mipsList.add(new Mipscode(Mipscode.operation.sw, addr1, "$t1", "", -4 * getOffset(mc.z))); // 数组还有点小问题，记得考虑一下
-                    }
-                }
-            } else if (mc.op.equals(midCode.operation.CONST)) {
-                String addr = getValue(mc.x, "$t0", false);
-                saveValue(mc.z, addr, true);
-            } else if (mc.op.equals(midCode.operation.EXIT)) {
-            } else if (mc.op.equals(midCode.operation.VAR)) {
-                if (mc.x != null) {
-                    String addr = getValue(mc.x, "$t0", false);
-                    saveValue(mc.z, addr, true);
-                } else {
-                    addNormalVar(mc.z);
-                }
-            } else if (mc.op.equals(midCode.operation.ARRAY)) {
-                int k;
-                if (mc.y == null) {
-                    k = Integer.parseInt(mc.x);
-                } else {
-                    int l = Integer.parseInt(mc.x);
-                    k = Integer.parseInt(mc.y);
-                    k *= l;
-                }
-                addNormalVar(mc.z, k);
-            } else if (mc.op.equals(midCode.operation.MAIN)) {
-                if (!inFunc) {
-                    mipsList.add(new Mipscode(Mipscode.operation.j, "main")); 
-                    inFunc = true;
-                }
-                inMain = true;
-                mipsList.add(new Mipscode(Mipscode.operation.label, mc.z));
-                funcPtr = 0;
-                int len = funcLenMap.get("main");
-                mipsList.add(new Mipscode(Mipscode.operation.moveop, "$fp", "$sp"));
-                mipsList.add(new Mipscode(Mipscode.operation.addi, "$sp", "$sp", "", -4 * len - 8));
-            } else if (mc.op.equals(midCode.operation.LSSOP)) { // <
-                String addr1 = getValue(mc.x, "$t0", false);
-                String addr2 = getValue(mc.y, "$t1", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.slt, regAlloc.gettemp(mc.z), addr1, addr2));
-                } else {
-                    mipsList.add(new Mipscode(Mipscode.operation.slt, "$t2", addr1, addr2));
-                    saveValue(mc.z, "$t2", true);
-                }
-            } else if (mc.op.equals(midCode.operation.LEQOP)) { // <=
-                String addr1 = getValue(mc.x, "$t0", false);
-                String addr2 = getValue(mc.y, "$t1", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.sle, regAlloc.gettemp(mc.z), addr1, addr2));
-                } else {
-                    mipsList.add(new Mipscode(Mipscode.operation.sle, "$t2", addr1, addr2));
-                    saveValue(mc.z, "$t2", true);
-                }
-            } else if (mc.op.equals(midCode.operation.GREOP)) { // >
-                String addr1 = getValue(mc.x, "$t0", false);
-                String addr2 = getValue(mc.y, "$t1", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.sgt, regAlloc.gettemp(mc.z), addr1, addr2));
-                } else {
-                    mipsList.add(new Mipscode(Mipscode.operation.sgt, "$t2", addr1, addr2));
-                    saveValue(mc.z, "$t2", true);
-                }
-            } else if (mc.op.equals(midCode.operation.GEQOP)) { // >=
-                String addr1 = getValue(mc.x, "$t0", false);
-                String addr2 = getValue(mc.y, "$t1", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.sge, regAlloc.gettemp(mc.z), addr1, addr2));
-                } else {
-                    mipsList.add(new Mipscode(Mipscode.operation.sge, "$t2", addr1, addr2));
-                    saveValue(mc.z, "$t2", true);
-                }
-            } else if (mc.op.equals(midCode.operation.EQLOP)) { // ==
-                String addr1 = getValue(mc.x, "$t0", false);
-                String addr2 = getValue(mc.y, "$t1", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.seq, regAlloc.gettemp(mc.z), addr1, addr2));
-                } else {
-                    mipsList.add(new Mipscode(Mipscode.operation.seq, "$t2", addr1, addr2));
-                    saveValue(mc.z, "$t2", true);
-                }
-            } else if (mc.op.equals(midCode.operation.NEQOP)) {
-                String addr1 = getValue(mc.x, "$t0", false);
-                String addr2 = getValue(mc.y, "$t1", false);
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.sne, regAlloc.gettemp(mc.z), addr1, addr2));
-                } else {
-                    mipsList.add(new Mipscode(Mipscode.operation.sne, "$t2", addr1, addr2));
-                    saveValue(mc.z, "$t2", true);
-                } // !=
-            } else if (mc.op.equals(midCode.operation.BZ)) {
-                String addr = getValue(mc.x, "$t0", false);
-                mipsList.add(new Mipscode(Mipscode.operation.li, "$t1", "", "", 0));
-                mipsList.add(new Mipscode(Mipscode.operation.beq, mc.z, addr, "$t1"));
-            } else if (mc.op.equals(midCode.operation.GOTO)) {
-                mipsList.add(new Mipscode(Mipscode.operation.j, mc.z, "", ""));
-            } else if (mc.op.equals(midCode.operation.Jump)) {
-                mipsList.add(new Mipscode(Mipscode.operation.label, mc.z));
-            } else if (mc.op.equals(midCode.operation.DEBUG)) {
+    /*
+     * 按函数切分中间代码，返回各段的起止下标（首尾分别是 0 和 irList.size()）
+     * 只在紧跟 <LABEL end>、<LABEL start> 的 FUNC/MAIN 处切开：上一个函数最外层作用域结束时
+     * 寄存器状态已经复位，新的一段从全新的寄存器状态开始翻译不会改变结果。
+     * 全局声明和第一个函数放在同一段
+     */
+    private ArrayList<Integer> splitFunctions() {
+        ArrayList<Integer> bounds = new ArrayList<>();
+        bounds.add(0);
+        boolean seenFunc = false;
+        for (int i = 0; i < irList.size(); i++) {
+            midCode.operation op = irList.get(i).op;
+            if (op != midCode.operation.FUNC && op != midCode.operation.MAIN) {
                 continue;
-            } else if (mc.op.equals(midCode.operation.SLL)) {
-                String addr = getValue(mc.x, "$t0", false);
-                mipsList.add(new Mipscode(Mipscode.operation.sll, "$t0", addr, "", Integer.parseInt(mc.y)));
-                if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.moveop, regAlloc.gettemp(mc.z), "$t0"));
-                } else {
-                    saveValue(mc.z, "$t0", true);
+            }
+            if (seenFunc && i >= 2 && isScopeLabel(irList.get(i - 1), TextOperand.START)
+                    && isScopeLabel(irList.get(i - 2), TextOperand.END)) {
+                bounds.add(i);
+            }
+            seenFunc = true;
+        }
+        bounds.add(irList.size());
+        return bounds;
+    }
+
+    private static boolean isScopeLabel(midCode mc, TextOperand kind) {
+        return mc.op == midCode.operation.LABEL && mc.x == kind;
+    }
+
+    // 一段代码中 divHandler 会分配的跳转标签数，条件与 divHandler 中的分支一一对应
+    private int countDivLabels(int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            midCode mc = irList.get(i);
+            if (mc.op != midCode.operation.DIVOP && mc.op != midCode.operation.MODOP) {
+                continue;
+            }
+            if (mc.y instanceof ConstOperand && ((ConstOperand) mc.y).getValue() >= 0) {
+                int divnum = ((ConstOperand) mc.y).getValue();
+                int left = leftCheck(divnum);
+                if (isPowerOfTwo(divnum) || left == 625 || left == 125 || left == 25 || left == 11
+                        || left == 9 || left == 7 || left == 5 || left == 3) {
+                    count++;
                 }
-            } else if (mc.op.equals(midCode.operation.SRA)) {
-                String addr = getValue(mc.x, "$t0", false);
-                mipsList.add(new Mipscode(Mipscode.operation.sra, "$t0", addr, "", Integer.parseInt(mc.y)));
+            }
+        }
+        return count;
+    }
+
+    // 当前四元组各操作数在存储分配遍中绑定的位置
+    StorageSlot zSlot() {
+        return layout.z(cursor);
+    }
+
+    StorageSlot xSlot() {
+        return layout.x(cursor);
+    }
+
+    StorageSlot ySlot() {
+        return layout.y(cursor);
+    }
+
+    // 把 sourceReg 中的结果写回目标：临时变量分配寄存器，其他变量存回内存
+    void writeResult(Operand target, StorageSlot slot, String sourceReg) {
+        if (checkname(target)) {
+            mipsList.add(new Mipscode(Mipscode.operation.moveop, regAlloc.gettemp(target), sourceReg));
+        } else {
+            saveValue(slot, sourceReg);
+        }
+    }
+
+    // 三寄存器形式的运算和比较：z = x op y
+    void lowerBinary(midCode mc, Mipscode.operation instruction) {
+        String addr1 = getValue(mc.x, xSlot(), "$t0");
+        String addr2 = getValue(mc.y, ySlot(), "$t1");
+        if (checkname(mc.z)) {
+            mipsList.add(new Mipscode(instruction, regAlloc.gettemp(mc.z), addr1, addr2));
+        } else {
+            mipsList.add(new Mipscode(instruction, "$t2", addr1, addr2));
+            saveValue(zSlot(), "$t2");
+        }
+    }
+
+    void lowerMult(midCode mc) {
+        String addr1 = getValue(mc.x, xSlot(), "$t0");
+        String addr2 = getValue(mc.y, ySlot(), "$t1");
+        if (checkname(mc.z)) {
+            mipsList.add(new Mipscode(Mipscode.operation.mult, addr1, addr2, ""));
+            mipsList.add(new Mipscode(Mipscode.operation.mflo, regAlloc.gettemp(mc.z)));
+        } else {
+            mipsList.add(new Mipscode(Mipscode.operation.mult, "$t0", "$t1", ""));
+            mipsList.add(new Mipscode(Mipscode.operation.mflo, "$t2"));
+            saveValue(zSlot(), "$t2");
+        }
+    }
+
+    void lowerDiv(midCode mc) {
+        divHandler(mc);
+        writeResult(mc.z, zSlot(), "$t2");
+    }
+
+    // 移位量是常量：z = x shift y
+    void lowerShift(midCode mc, Mipscode.operation instruction) {
+        String addr = getValue(mc.x, xSlot(), "$t0");
+        mipsList.add(new Mipscode(instruction, "$t0", addr, "", ((ConstOperand) mc.y).getValue()));
+        writeResult(mc.z, zSlot(), "$t0");
+    }
+
+    void lowerAssign(midCode mc) {
+        String addr = getValue(mc.x, xSlot(), "$t0");
+        writeResult(mc.z, zSlot(), addr);
+    }
+
+    void lowerCall(midCode mc) {
+        for (int j = 0; j < pushStack.size(); j++) {
+            int index = pushStack.get(j);
+            midCode mcs = irList.get(index);
+            if (mcs.x != null) {
+                getAddr(mcs.z, layout.z(index), "$t0");
+                String addr = getValue(mcs.x, layout.x(index), "$t1");
+                mipsList.add(new Mipscode(Mipscode.operation.li, "$t2", "", "", ((ConstOperand) mcs.y).getValue() * 4));
+                mipsList.add(new Mipscode(Mipscode.operation.mult, "$t2", addr, ""));
+                mipsList.add(new Mipscode(Mipscode.operation.mflo, "$t2"));
+                mipsList.add(new Mipscode(Mipscode.operation.add, "$t0", "$t0", "$t2"));
+            } else {
+                getAddr(mcs.z, layout.z(index), "$t0");
+                String addr = getAddr(mcs.z, layout.z(index), "$t0");
+                mipsList.add(new Mipscode(Mipscode.operation.sw, addr, "$sp", "", -4 * j));
+            }
+        }
+        pushStack.clear();
+        ArrayList<String> lists = regAlloc.getReverlists();
+        int len = lists.size();
+        int funcLen = funcLenMap.get(mc.z.toString());
+        mipsList.add(new Mipscode(Mipscode.operation.addi, "$sp", "$sp", "", -4 * funcLen - 8 - 4 * len));
+        mipsList.add(new Mipscode(Mipscode.operation.sw, "$ra", "$sp", "", 4));
+        mipsList.add(new Mipscode(Mipscode.operation.sw, "$fp", "$sp", "", 8));
+        for (int k = 0; k < len; k++) {
+            mipsList.add(new Mipscode(Mipscode.operation.sw, lists.get(k), "$sp", "", 12 + 4 * k));
+        }
+        mipsList.add(new Mipscode(Mipscode.operation.addi, "$fp", "$sp", "", 4 * funcLen + 8 + 4 * len));
+        mipsList.add(new Mipscode(Mipscode.operation.jal, mc.z.toString()));
+        for (int k = len - 1; k >= 0; k--) {
+            mipsList.add(new Mipscode(Mipscode.operation.lw, lists.get(k), "$sp", "", 12 + 4 * k));
+        }
+        mipsList.add(new Mipscode(Mipscode.operation.lw, "$fp", "$sp", "", 8));
+        mipsList.add(new Mipscode(Mipscode.operation.lw, "$ra", "$sp", "", 4));
+        mipsList.add(new Mipscode(Mipscode.operation.addi, "$sp", "$sp", "", 4 * funcLen + 8 + 4 * len));
+    }
+
+    void lowerRet(midCode mc) {
+        if (inMain) {
+            mipsList.add(new Mipscode(Mipscode.operation.li, "$v0", "", "", 10));
+            mipsList.add(new Mipscode(Mipscode.operation.syscall, ""));
+        } else {
+            if (mc.z != null) {
                 if (checkname(mc.z)) {
-                    mipsList.add(new Mipscode(Mipscode.operation.moveop, regAlloc.gettemp(mc.z), "$t0"));
+                    mipsList.add(new Mipscode(Mipscode.operation.moveop, "$v0", regAlloc.findtemp(mc.z)));
                 } else {
-                    saveValue(mc.z, "$t0", true);
+                    getValue(mc.z, zSlot(), "$v0");
                 }
+            }
+            mipsList.add(new Mipscode(Mipscode.operation.jr, "$ra"));
+        }
+    }
+
+    void lowerPrint(midCode mc) {
+        if (mc.x == TextOperand.STRING) {
+            String addr = strLabelMap.get(mc.z.toString());
+            mipsList.add(new Mipscode(Mipscode.operation.la, "$a0", addr));
+            mipsList.add(new Mipscode(Mipscode.operation.li, "$v0", "", "", 4));
+            mipsList.add(new Mipscode(Mipscode.operation.syscall, "", "", ""));
+        } else {
+            if (checkname(mc.z)) {
+                mipsList.add(new Mipscode(Mipscode.operation.moveop, "$a0", regAlloc.findtemp(mc.z)));
             } else {
-                System.out.print("what happened!!!!!!!!");
+                getValue(mc.z, zSlot(), "$a0");
             }
+            mipsList.add(new Mipscode(Mipscode.operation.li, "$v0", "", "", 1));
+            mipsList.add(new Mipscode(Mipscode.operation.syscall, null));
         }
     }
 
-    public void printMips() {
-        String outputpath = "mips.txt";
-        PrintStream out = null;
-        try {
-            out = new PrintStream(outputpath);
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
+    void lowerScan(midCode mc) {
+        mipsList.add(new Mipscode(Mipscode.operation.li, "$v0", "", "", 5));
+        mipsList.add(new Mipscode(Mipscode.operation.syscall, null));
+        writeResult(mc.z, zSlot(), "$v0");
+    }
+
+    void lowerLabel(midCode mc) {
+        if (mc.x == TextOperand.END) {
+            regAlloc.reset();
+        }
+    }
+
+    void lowerFunc(midCode mc) {
+        if (!inFunc) {
+            mipsList.add(new Mipscode(Mipscode.operation.j, "main")); 
+            inFunc = true;
+        }
+        mipsList.add(new Mipscode(Mipscode.operation.label, mc.z.toString()));
+    }
+
+    void lowerMain(midCode mc) {
+        if (!inFunc) {
+            mipsList.add(new Mipscode(Mipscode.operation.j, "main")); 
+            inFunc = true;
+        }
+        inMain = true;
+        mipsList.add(new Mipscode(Mipscode.operation.label, mc.z.toString()));
+        int len = funcLenMap.get("main");
+        mipsList.add(new Mipscode(Mipscode.operation.moveop, "$fp", "$sp"));
+        mipsList.add(new Mipscode(Mipscode.operation.addi, "$sp", "$sp", "", -4 * len - 8));
+    }
+
+    void lowerGetArray(midCode mc) {
+        String addr1 = getValue(mc.y, ySlot(), "$t0");
+        mipsList.add(new Mipscode(Mipscode.operation.sll, "$t0", addr1, "", 2));
+        StorageSlot array = xSlot();
+        if (array.pointer) {
+            getValue(mc.x, xSlot(), "$t1");
+            mipsList.add(new Mipscode(Mipscode.operation.add, "$t1", "$t1", "$t0"));
+            mipsList.add(new Mipscode(Mipscode.operation.lw, "$t2", "$t1", "", 0));
+        } else {
+            if (array.global) {
+                mipsList.add(new Mipscode(Mipscode.operation.add, "$t1", "$t0", "$gp"));
+                mipsList.add(new Mipscode(Mipscode.operation.lw, "$t2", "$t1", "", array.displacement));
+            } else {
+                mipsList.add(new Mipscode(Mipscode.operation.addu, "$t1", "$t0", "$fp"));
+                mipsList.add(new Mipscode(Mipscode.operation.lw, "$t2", "$t1", "", array.displacement));
+            }
+        }
+        writeResult(mc.z, zSlot(), "$t2");
+    }
+
+    void lowerPutArray(midCode mc) {
+        String addr1 = getValue(mc.y, ySlot(), "$t0");
+        String addr2 = getValue(mc.x, xSlot(), "$t1");
+        mipsList.add(new Mipscode(Mipscode.operation.sll, "$t1", addr2, "", 2));
+        StorageSlot array = zSlot();
+        if (array.pointer) { 
+            getValue(mc.z, zSlot(), "$t2");
+            mipsList.add(new Mipscode(Mipscode.operation.add, "$t2", "$t2", "$t1"));
+            mipsList.add(new Mipscode(Mipscode.operation.sw, addr1, "$t2", "", 0));
+        } else {
+            if (array.global) {
+                mipsList.add(new Mipscode(Mipscode.operation.add, "$t1", "$t1", "$gp"));
+                mipsList.add(new Mipscode(Mipscode.operation.sw, addr1, "$t1", "", array.displacement));
+            } else {
+                mipsList.add(new Mipscode(Mipscode.operation.addu, "$t1", "$t1", "$fp"));
+                mipsList.add(new Mipscode(Mipscode.operation.sw, addr1, "$t1", "", array.displacement)); // 数组还有点小问题，记得考虑一下
+            }
+        }
+    }
+
+    // 常量和带初值的变量声明，存储位置已在存储分配遍中登记
+    void lowerVar(midCode mc) {
+        if (mc.x != null) {
+            String addr = getValue(mc.x, xSlot(), "$t0");
+            saveValue(zSlot(), addr);
         }
-        System.setOut(out);
-        for (int i = 0; i < mipsList.size(); i++) {
-            Mipscode mc = mipsList.get(i);
+    }
+
+    void lowerBz(midCode mc) {
+        String addr = getValue(mc.x, xSlot(), "$t0");
+        mipsList.add(new Mipscode(Mipscode.operation.li, "$t1", "", "", 0));
+        mipsList.add(new Mipscode(Mipscode.operation.beq, mc.z.toString(), addr, "$t1"));
+    }
+
+    /**
+     * 生成的指令条数，不含段声明和标签
+     */
+    public int getInstructionCount() {
+        int count = 0;
+        for (Mipscode mc : mipsList) {
             switch (mc.op) {
-                case add:
-                    System.out.println("add " + mc.z + "," + mc.x + "," + mc.y);
-                    break;
-                case addu:
-                    System.out.println("addu " + mc.z + "," + mc.x + "," + mc.y);
-                    break;
-                case sle:
-                    System.out.println("sle " + mc.z + "," + mc.x + "," + mc.y);
-                    break;
-                case sgt:
-                    System.out.println("sgt " + mc.z + "," + mc.x + "," + mc.y);
-                    break;
-                case sge:
-                    System.out.println("sge " + mc.z + "," + mc.x + "," + mc.y);
-                    break;
-                case slt:
-                    System.out.println("slt " + mc.z + "," + mc.x + "," + mc.y);
-                    break;
-                case sne:
-                    System.out.println("sne " + mc.z + "," + mc.x + "," + mc.y);
-                    break;
-                case seq:
-                    System.out.println("seq " + mc.z + "," + mc.x + "," + mc.y);
-                    break;
-                case beq:
-                    System.out.println("beq " + mc.x + "," + mc.y + "," + mc.z);
-                    break;
-                case sub:
-                    System.out.println("sub " + mc.z + "," + mc.x + "," + mc.y);
-                    break;
-                case mult:
-                    System.out.println("mult " + mc.z + "," + mc.x);
-                    break;
-                case multu:
-                    System.out.println("multu " + mc.z + "," + mc.x);
-                    break;
-                case divop:
-                    System.out.println("div " + mc.z + "," + mc.x);
-                    break;
-                case addi:
-                    System.out.println("addi " + mc.z + "," + mc.x + "," + mc.imme);
-                    break;
-                case mflo:
-                    System.out.println("mflo " + mc.z);
-                    break;
-                case mfhi:
-                    System.out.println("mfhi " + mc.z);
-                    break;
-                case j:
-                    System.out.println("j " + mc.z);
-                    break;
-                case jal:
-                    System.out.println("jal " + mc.z);
-                    break;
-                case jr:
-                    System.out.println("jr " + mc.z);
-                    break;
-                case lw:
-                    System.out.println("lw " + mc.z + "," + mc.imme + "(" + mc.x + ")");
-                    break;
-                case sw:
-                    System.out.println("sw " + mc.z + "," + mc.imme + "(" + mc.x + ")");
-                    break;
-                case syscall:
-                    System.out.println("syscall");
-                    break;
-                case li:
-                    System.out.println("li " + mc.z + "," + mc.imme);
-                    break;
-                case la:
-                    System.out.println("la " + mc.z + "," + mc.x);
-                    break;
-                case moveop:
-                    System.out.println("move " + mc.z + "," + mc.x);
-                    break;
                 case dataSeg:
-                    System.out.println(".data");
-                    break;
                 case textSeg:
-                    System.out.println("\n.text");
-                    break;
                 case asciizSeg:
-                    System.out.println(mc.z + ": .asciiz \"" + mc.x + "\"");
-                    break;
                 case label:
-                    System.out.println("\n" + mc.z + ":");
-                    break;
-                case sll:
-                    System.out.println("sll " + mc.z + "," + mc.x + "," + mc.imme);
-                    break;
-                case sra:
-                    System.out.println("sra " + mc.z + "," + mc.x + "," + mc.imme);
-                    break;
-                case bgez:
-                    System.out.println("bgez " + mc.z + "," + mc.x);
                     break;
                 default:
-                    System.out.println("-------------------wrong-------------------");
-                    break;
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 数据段占用的字节数：字符串常量（含结尾的 \0）加上全局变量区
+     */
+    public int getDataSegmentBytes() {
+        int bytes = 4 * layout.globalWords();
+        for (String str : strList) {
+            for (int i = 0; i < str.length(); i++) {
+                char c = str.charAt(i);
+                if (c == '\\' && i + 1 < str.length()) {
+                    i++;
+                    bytes += 1;
+                } else if (c < 0x80) {
+                    bytes += 1;
+                } else if (c < 0x800 || Character.isSurrogate(c)) {
+                    bytes += 2;
+                } else {
+                    bytes += 3;
+                }
+            }
+            bytes += 1;
+        }
+        return bytes;
+    }
+
+    public void printMips(String outputpath) {
+        try (FileChannel channel = FileChannel.open(Paths.get(outputpath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                Writer out = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1)) {
+            printMips(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void printMips(Writer out) {
+        try {
+            AsmWriter asm = new AsmWriter(out);
+            for (int i = 0; i < mipsList.size(); i++) {
+                asm.write(mipsList.get(i));
             }
+            asm.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 }
\ No newline at end of file
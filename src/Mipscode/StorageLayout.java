@@ -0,0 +1,180 @@
+package Mipscode;
+
+import Midcode.ConstOperand;
+import Midcode.Operand;
+import Midcode.TempOperand;
+import Midcode.TextOperand;
+import Midcode.midCode;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * 存储分配遍
+ * 翻译之前按四元组顺序走一遍中间代码，模拟作用域的进出和栈帧偏移的分配，
+ * 把每个四元组里引用到的变量绑定到它的 {@link StorageSlot}。
+ * 名字解析只在这里做一次，翻译阶段按四元组下标直接取结果
+ */
+final class StorageLayout {
+    private final StorageSlot[] zSlots;
+    private final StorageSlot[] xSlots;
+    private final StorageSlot[] ySlots;
+
+    private Scope scope = new Scope(null);
+    private int funcPtr = 0;
+    /* 全局变量和全局数组占用的字数，遇到第一个函数时确定 */
+    private int globalWords = -1;
+
+    // 一层作用域中名字到存储位置的映射
+    private static final class Scope {
+        final HashMap<String, StorageSlot> slots = new HashMap<>();
+        final Scope outer;
+
+        Scope(Scope outer) {
+            this.outer = outer;
+        }
+    }
+
+    StorageLayout(List<midCode> irList) {
+        int size = irList.size();
+        zSlots = new StorageSlot[size];
+        xSlots = new StorageSlot[size];
+        ySlots = new StorageSlot[size];
+        for (int i = 0; i < size; i++) {
+            assign(i, irList.get(i));
+        }
+        if (globalWords < 0) {
+            globalWords = funcPtr;
+        }
+    }
+
+    int globalWords() {
+        return globalWords;
+    }
+
+    StorageSlot z(int index) {
+        return zSlots[index];
+    }
+
+    StorageSlot x(int index) {
+        return xSlots[index];
+    }
+
+    StorageSlot y(int index) {
+        return ySlots[index];
+    }
+
+    // 与翻译阶段保持相同的顺序：先解析源操作数，再登记本条语句声明的变量
+    private void assign(int index, midCode mc) {
+        switch (mc.op) {
+            case LABEL:
+                if (mc.x == TextOperand.START) {
+                    scope = new Scope(scope);
+                } else if (mc.x == TextOperand.END) {
+                    scope = scope.outer;
+                }
+                return;
+            case FUNC:
+            case MAIN:
+                if (globalWords < 0) {
+                    globalWords = funcPtr;
+                }
+                funcPtr = 0;
+                return;
+            case PARAM:
+                if (((ConstOperand) mc.x).getValue() == 0) {
+                    declare(mc.z.toString(), false, false);
+                } else {
+                    declare(mc.z.toString(), true, true);
+                }
+                return;
+            case ARRAY:
+                int k = ((ConstOperand) mc.x).getValue();
+                if (mc.y != null) {
+                    k *= ((ConstOperand) mc.y).getValue();
+                }
+                declareArray(mc.z.toString(), k);
+                return;
+            case CONST:
+            case VAR:
+                xSlots[index] = resolve(mc.x);
+                declare(mc.z.toString(), false, false);
+                zSlots[index] = resolve(mc.z);
+                return;
+            case LSSOP:
+            case LEQOP:
+            case GREOP:
+            case GEQOP:
+            case EQLOP:
+            case NEQOP:
+            case SLL:
+            case SRA:
+                // 比较和移位的结果如果是普通变量，写回时当前作用域没有就新登记一个
+                xSlots[index] = resolve(mc.x);
+                ySlots[index] = resolve(mc.y);
+                if (isNamed(mc.z)) {
+                    declare(mc.z.toString(), false, false);
+                }
+                zSlots[index] = resolve(mc.z);
+                return;
+            case GOTO:
+            case Jump:
+            case CALL:
+            case EXIT:
+            case DEBUG:
+                return;
+            case BZ:
+                xSlots[index] = resolve(mc.x);
+                return;
+            case PRINT:
+                if (mc.x != TextOperand.STRING) {
+                    zSlots[index] = resolve(mc.z);
+                }
+                return;
+            default:
+                zSlots[index] = resolve(mc.z);
+                xSlots[index] = resolve(mc.x);
+                ySlots[index] = resolve(mc.y);
+        }
+    }
+
+    // 常量和临时变量不占内存单元
+    private static boolean isNamed(Operand operand) {
+        return operand != null && !(operand instanceof ConstOperand) && !(operand instanceof TempOperand);
+    }
+
+    private StorageSlot resolve(Operand operand) {
+        if (!isNamed(operand)) {
+            return null;
+        }
+        String name = operand.toString();
+        for (Scope table = scope; table != null; table = table.outer) {
+            StorageSlot slot = table.slots.get(name);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        return StorageSlot.UNRESOLVED;
+    }
+
+    // 普通变量和指针形式的数组参数各占一个字，同一作用域重复声明时保留原来的位置
+    private void declare(String name, boolean array, boolean pointer) {
+        if (scope.slots.containsKey(name)) {
+            return;
+        }
+        scope.slots.put(name, new StorageSlot(scope.outer == null, funcPtr, array, pointer));
+        funcPtr += 1;
+    }
+
+    // 局部数组的偏移取最高的一个字，元素向高地址排列
+    private void declareArray(String name, int len) {
+        if (scope.outer == null) {
+            scope.slots.put(name, new StorageSlot(true, funcPtr, true, false));
+            funcPtr += len;
+        } else {
+            funcPtr += len - 1;
+            scope.slots.put(name, new StorageSlot(false, funcPtr, true, false));
+            funcPtr += 1;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package Mipscode;
+
+/**
+ * 变量的存储位置描述
+ * 在翻译之前一次性确定：基址寄存器（全局区 $gp 或栈帧 $fp）、相对基址的字节偏移、
+ * 是否为数组以及是否是以指针形式传入的数组参数，翻译时直接使用，不再查作用域链
+ */
+final class StorageSlot {
+    /* 作用域链中找不到的名字，沿用原来的处理：按栈帧中偏移为 -1 的普通变量访问 */
+    static final StorageSlot UNRESOLVED = new StorageSlot(false, -1, false, false);
+
+    final boolean global;
+    final boolean array;
+    final boolean pointer;
+    final String base;
+    final int displacement;
+
+    StorageSlot(boolean global, int offset, boolean array, boolean pointer) {
+        this.global = global;
+        this.array = array;
+        this.pointer = pointer;
+        this.base = global ? "$gp" : "$fp";
+        // 全局区向高地址增长，栈帧向低地址增长
+        this.displacement = global ? 4 * offset : -4 * offset;
+    }
+}
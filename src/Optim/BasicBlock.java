@@ -0,0 +1,86 @@
+package Optim;
+
+import Midcode.InstructionList;
+import Midcode.Operand;
+import Midcode.midCode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基本块 - 只能从第一条进入、从最后一条离开的一段连续四元组
+ * 块首的跳转标签（可能有多个连续的 Jump）也属于本块，块尾是 GOTO、BZ、RET、EXIT 或者直接落到下一块
+ */
+public class BasicBlock {
+    /* 在所属控制流图中的编号，等于它在 getBlocks() 中的下标 */
+    private final int id;
+    private final InstructionList instructions = new InstructionList();
+    private final List<Operand> labels = new ArrayList<>(1);
+    private final List<BasicBlock> predecessors = new ArrayList<>(2);
+    private final List<BasicBlock> successors = new ArrayList<>(2);
+
+    BasicBlock(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * 块中的四元组，可以直接在链表上插入、删除
+     */
+    public InstructionList getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * 块首的跳转标签，没有时为空表
+     */
+    public List<Operand> getLabels() {
+        return Collections.unmodifiableList(labels);
+    }
+
+    public List<BasicBlock> getPredecessors() {
+        return Collections.unmodifiableList(predecessors);
+    }
+
+    /**
+     * 后继块；以 BZ 结尾时先是顺序执行的下一块，再是跳转目标，两者相同时只有一条边
+     */
+    public List<BasicBlock> getSuccessors() {
+        return Collections.unmodifiableList(successors);
+    }
+
+    /**
+     * 块的最后一条四元组，空块返回 null
+     */
+    public midCode getLast() {
+        return instructions.getLast();
+    }
+
+    void add(midCode code) {
+        instructions.addLast(code);
+        if (code.op == midCode.operation.Jump) {
+            labels.add(code.z);
+        }
+    }
+
+    // 块中是否已有跳转标签以外的四元组
+    boolean hasCode() {
+        return instructions.size() > labels.size();
+    }
+
+    void addSuccessor(BasicBlock successor) {
+        if (!successors.contains(successor)) {
+            successors.add(successor);
+            successor.predecessors.add(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "B" + id;
+    }
+}
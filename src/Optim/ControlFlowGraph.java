@@ -0,0 +1,173 @@
+package Optim;
+
+import Midcode.Operand;
+import Midcode.midCode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个函数的控制流图
+ *
+ * 在跳转标签（Jump）处和 GOTO、BZ、RET、EXIT 之后切分基本块，连续的多个标签归入同一块；
+ * 跳转目标通过标签到块的散列表在 O(1) 时间内找到。按原顺序拼接各块的四元组即得到原来的中间代码。
+ * 每个 FUNC/MAIN 开始的一段建一个图，按函数切分由 {@link Optimize} 完成
+ */
+public class ControlFlowGraph {
+    private final List<BasicBlock> blocks = new ArrayList<>();
+    private final Map<Operand, BasicBlock> labelBlocks = new HashMap<>();
+    private List<BasicBlock> reversePostorder = null;
+
+    private ControlFlowGraph() {
+    }
+
+    /**
+     * 为一个函数的四元组建立控制流图，四元组会链入各基本块的指令链表，因此不能已属于其他链表
+     *
+     * @param codes 从 FUNC/MAIN（或程序开头）到下一个函数之前的四元组
+     * @throws IllegalArgumentException 跳转目标不在这段四元组中
+     */
+    public static ControlFlowGraph build(List<midCode> codes) {
+        ControlFlowGraph graph = new ControlFlowGraph();
+        graph.split(codes);
+        graph.connect();
+        return graph;
+    }
+
+    // 结束一个块的四元组：执行完后不会顺序执行下一条，或者可能跳走
+    private static boolean endsBlock(midCode code) {
+        switch (code.op) {
+            case GOTO:
+            case BZ:
+            case RET:
+            case EXIT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void split(List<midCode> codes) {
+        BasicBlock current = newBlock();
+        for (midCode code : codes) {
+            if (code.op == midCode.operation.Jump && current.hasCode()) {
+                current = newBlock();
+            }
+            current.add(code);
+            if (code.op == midCode.operation.Jump) {
+                labelBlocks.put(code.z, current);
+            } else if (endsBlock(code)) {
+                current = newBlock();
+            }
+        }
+        // 最后一条是跳转时会多出一个空块
+        if (current.getInstructions().isEmpty() && blocks.size() > 1) {
+            blocks.remove(blocks.size() - 1);
+        }
+    }
+
+    private BasicBlock newBlock() {
+        BasicBlock block = new BasicBlock(blocks.size());
+        blocks.add(block);
+        return block;
+    }
+
+    private void connect() {
+        for (int index = 0; index < blocks.size(); index++) {
+            BasicBlock block = blocks.get(index);
+            BasicBlock next = index + 1 < blocks.size() ? blocks.get(index + 1) : null;
+            midCode last = block.getLast();
+            midCode.operation op = last != null ? last.op : null;
+            if (op == midCode.operation.RET || op == midCode.operation.EXIT) {
+                continue;
+            }
+            if (op != midCode.operation.GOTO && next != null) {
+                block.addSuccessor(next);
+            }
+            if (op == midCode.operation.GOTO || op == midCode.operation.BZ) {
+                block.addSuccessor(target(last.z));
+            }
+        }
+    }
+
+    private BasicBlock target(Operand label) {
+        BasicBlock block = labelBlocks.get(label);
+        if (block == null) {
+            throw new IllegalArgumentException("跳转目标不在本函数中: " + label);
+        }
+        return block;
+    }
+
+    /**
+     * 入口块，即第一个块
+     */
+    public BasicBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    /**
+     * 按原来的顺序排列的全部基本块，包括不可达的块
+     */
+    public List<BasicBlock> getBlocks() {
+        return Collections.unmodifiableList(blocks);
+    }
+
+    /**
+     * 以该标签开头的块，O(1)；标签不在本函数中时返回 null
+     */
+    public BasicBlock blockOf(Operand label) {
+        return labelBlocks.get(label);
+    }
+
+    /**
+     * 从入口出发的逆后序，不含不可达的块；数据流分析按这个顺序遍历收敛最快
+     */
+    public List<BasicBlock> reversePostorder() {
+        if (reversePostorder == null) {
+            reversePostorder = Collections.unmodifiableList(computeReversePostorder());
+        }
+        return reversePostorder;
+    }
+
+    // 用显式栈做深度优先遍历，块很多的函数也不会栈溢出
+    private List<BasicBlock> computeReversePostorder() {
+        boolean[] visited = new boolean[blocks.size()];
+        BasicBlock[] stack = new BasicBlock[blocks.size()];
+        int[] nextSuccessor = new int[blocks.size()];
+        List<BasicBlock> postorder = new ArrayList<>(blocks.size());
+        int depth = 0;
+        stack[depth++] = getEntry();
+        visited[getEntry().getId()] = true;
+        while (depth > 0) {
+            BasicBlock block = stack[depth - 1];
+            List<BasicBlock> successors = block.getSuccessors();
+            if (nextSuccessor[block.getId()] < successors.size()) {
+                BasicBlock successor = successors.get(nextSuccessor[block.getId()]++);
+                if (!visited[successor.getId()]) {
+                    visited[successor.getId()] = true;
+                    stack[depth++] = successor;
+                }
+            } else {
+                postorder.add(block);
+                depth--;
+            }
+        }
+        Collections.reverse(postorder);
+        return postorder;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (BasicBlock block : blocks) {
+            text.append(block).append(" -> ").append(block.getSuccessors()).append(System.lineSeparator());
+            for (midCode code : block.getInstructions()) {
+                text.append("    ").append(code).append(System.lineSeparator());
+            }
+        }
+        return text.toString();
+    }
+}
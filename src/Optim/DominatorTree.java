@@ -0,0 +1,324 @@
+package Optim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 控制流图的支配树（或后支配树）和支配边界
+ *
+ * 用 Cooper、Harvey、Kennedy 的迭代算法：按逆后序反复用"两个前驱在支配树上的最近公共祖先"收紧直接支配者，
+ * 通常两三轮就收敛，全部用 int 数组表示，几万个块的函数也很快。
+ * 建好树后按先序、后序给每个块编号，a 支配 b 当且仅当 b 的区间落在 a 的区间内，查询是 O(1) 的。
+ *
+ * 后支配树在反向图上计算：另加一个虚拟出口，所有以 RET、EXIT 结尾或没有后继的块都连到它。
+ * 不可达（后支配树中为到不了出口）的块不在树中，和它有关的查询都返回 false 或 null
+ */
+public class DominatorTree {
+    private static final int NONE = -1;
+
+    private final List<BasicBlock> blocks;
+    /* 树根的编号：支配树是入口块，后支配树是虚拟出口 blocks.size() */
+    private final int root;
+    /* 树中每个结点的前驱（后支配树中是原图的后继），虚拟出口也占一项 */
+    private final int[][] predecessors;
+    private final int[] idom;
+    private final int[] preorder;
+    private final int[] postorder;
+    private final int[][] children;
+    private List<List<BasicBlock>> frontiers = null;
+
+    private DominatorTree(List<BasicBlock> blocks, int root, int[][] successors, int[][] predecessors) {
+        this.blocks = blocks;
+        this.root = root;
+        this.predecessors = predecessors;
+        int[] order = reversePostorder(root, successors);
+        this.idom = computeIdoms(order);
+        this.children = computeChildren();
+        this.preorder = new int[idom.length];
+        this.postorder = new int[idom.length];
+        number();
+    }
+
+    /**
+     * 计算支配树，树根是入口块
+     */
+    public static DominatorTree dominators(ControlFlowGraph graph) {
+        List<BasicBlock> blocks = graph.getBlocks();
+        int[][] successors = new int[blocks.size()][];
+        int[][] predecessors = new int[blocks.size()][];
+        for (BasicBlock block : blocks) {
+            successors[block.getId()] = ids(block.getSuccessors());
+            predecessors[block.getId()] = ids(block.getPredecessors());
+        }
+        return new DominatorTree(blocks, graph.getEntry().getId(), successors, predecessors);
+    }
+
+    /**
+     * 计算后支配树，树根是虚拟出口，直接后支配者是虚拟出口的块返回 null
+     */
+    public static DominatorTree postDominators(ControlFlowGraph graph) {
+        List<BasicBlock> blocks = graph.getBlocks();
+        int exit = blocks.size();
+        List<Integer> exits = new ArrayList<>();
+        int[][] successors = new int[exit + 1][];
+        int[][] predecessors = new int[exit + 1][];
+        for (BasicBlock block : blocks) {
+            boolean isExit = block.getSuccessors().isEmpty();
+            // 反向图中块的后继是原图的前驱，前驱是原图的后继
+            successors[block.getId()] = ids(block.getPredecessors());
+            predecessors[block.getId()] = isExit ? new int[] { exit } : ids(block.getSuccessors());
+            if (isExit) {
+                exits.add(block.getId());
+            }
+        }
+        successors[exit] = exits.stream().mapToInt(Integer::intValue).toArray();
+        predecessors[exit] = new int[0];
+        return new DominatorTree(blocks, exit, successors, predecessors);
+    }
+
+    private static int[] ids(List<BasicBlock> blocks) {
+        int[] ids = new int[blocks.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = blocks.get(i).getId();
+        }
+        return ids;
+    }
+
+    // 用显式栈做深度优先遍历，返回从 root 可达的结点的逆后序
+    private static int[] reversePostorder(int root, int[][] successors) {
+        int count = successors.length;
+        boolean[] visited = new boolean[count];
+        int[] stack = new int[count];
+        int[] nextSuccessor = new int[count];
+        int[] order = new int[count];
+        int emitted = 0;
+        int depth = 0;
+        stack[depth++] = root;
+        visited[root] = true;
+        while (depth > 0) {
+            int node = stack[depth - 1];
+            if (nextSuccessor[node] < successors[node].length) {
+                int successor = successors[node][nextSuccessor[node]++];
+                if (!visited[successor]) {
+                    visited[successor] = true;
+                    stack[depth++] = successor;
+                }
+            } else {
+                order[emitted++] = node;
+                depth--;
+            }
+        }
+        int[] reversed = new int[emitted];
+        for (int i = 0; i < emitted; i++) {
+            reversed[i] = order[emitted - 1 - i];
+        }
+        return reversed;
+    }
+
+    private int[] computeIdoms(int[] order) {
+        int[] rpoNumber = new int[predecessors.length];
+        Arrays.fill(rpoNumber, NONE);
+        for (int i = 0; i < order.length; i++) {
+            rpoNumber[order[i]] = i;
+        }
+        int[] doms = new int[predecessors.length];
+        Arrays.fill(doms, NONE);
+        doms[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < order.length; i++) {
+                int node = order[i];
+                int newIdom = NONE;
+                for (int predecessor : predecessors[node]) {
+                    if (doms[predecessor] == NONE) {
+                        continue;
+                    }
+                    newIdom = newIdom == NONE ? predecessor : intersect(predecessor, newIdom, doms, rpoNumber);
+                }
+                if (doms[node] != newIdom) {
+                    doms[node] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+        return doms;
+    }
+
+    // 沿支配树向上走，找两个结点的最近公共祖先；逆后序编号越小越靠近树根
+    private static int intersect(int first, int second, int[] doms, int[] rpoNumber) {
+        while (first != second) {
+            while (rpoNumber[first] > rpoNumber[second]) {
+                first = doms[first];
+            }
+            while (rpoNumber[second] > rpoNumber[first]) {
+                second = doms[second];
+            }
+        }
+        return first;
+    }
+
+    private int[][] computeChildren() {
+        int[] counts = new int[idom.length];
+        for (int node = 0; node < idom.length; node++) {
+            if (node != root && idom[node] != NONE) {
+                counts[idom[node]]++;
+            }
+        }
+        int[][] result = new int[idom.length][];
+        for (int node = 0; node < idom.length; node++) {
+            result[node] = new int[counts[node]];
+            counts[node] = 0;
+        }
+        for (int node = 0; node < idom.length; node++) {
+            if (node != root && idom[node] != NONE) {
+                result[idom[node]][counts[idom[node]]++] = node;
+            }
+        }
+        return result;
+    }
+
+    // 在支配树上做深度优先遍历，记录先序和后序编号；不在树中的结点两个编号都是 NONE
+    private void number() {
+        Arrays.fill(preorder, NONE);
+        Arrays.fill(postorder, NONE);
+        int[] stack = new int[idom.length];
+        int[] nextChild = new int[idom.length];
+        int pre = 0;
+        int post = 0;
+        int depth = 0;
+        stack[depth++] = root;
+        preorder[root] = pre++;
+        while (depth > 0) {
+            int node = stack[depth - 1];
+            if (nextChild[node] < children[node].length) {
+                int child = children[node][nextChild[node]++];
+                preorder[child] = pre++;
+                stack[depth++] = child;
+            } else {
+                postorder[node] = post++;
+                depth--;
+            }
+        }
+    }
+
+    private BasicBlock block(int node) {
+        return node == NONE || node == blocks.size() ? null : blocks.get(node);
+    }
+
+    /**
+     * 块是否在树中（支配树中为从入口可达，后支配树中为能到达出口）
+     */
+    public boolean contains(BasicBlock block) {
+        return preorder[block.getId()] != NONE;
+    }
+
+    /**
+     * 直接支配者；树根、不在树中的块，以及后支配树中直接后支配者是虚拟出口的块返回 null
+     */
+    public BasicBlock getImmediateDominator(BasicBlock block) {
+        int node = block.getId();
+        return node == root ? null : block(idom[node]);
+    }
+
+    /**
+     * 支配树上的子结点
+     */
+    public List<BasicBlock> getChildren(BasicBlock block) {
+        List<BasicBlock> result = new ArrayList<>(children[block.getId()].length);
+        for (int child : children[block.getId()]) {
+            result.add(blocks.get(child));
+        }
+        return result;
+    }
+
+    /**
+     * a 是否支配 b（每个块都支配它自己），O(1)
+     */
+    public boolean dominates(BasicBlock a, BasicBlock b) {
+        int x = a.getId();
+        int y = b.getId();
+        return preorder[x] != NONE && preorder[y] != NONE
+                && preorder[x] <= preorder[y] && postorder[y] <= postorder[x];
+    }
+
+    /**
+     * a 是否严格支配 b
+     */
+    public boolean strictlyDominates(BasicBlock a, BasicBlock b) {
+        return a != b && dominates(a, b);
+    }
+
+    /**
+     * 按支配树先序排列的块，父结点总在子结点之前，不含虚拟出口和不在树中的块
+     */
+    public List<BasicBlock> preorder() {
+        BasicBlock[] ordered = new BasicBlock[blocks.size()];
+        int count = 0;
+        for (BasicBlock block : blocks) {
+            if (contains(block)) {
+                count++;
+            }
+        }
+        int offset = root == blocks.size() ? 1 : 0;
+        for (BasicBlock block : blocks) {
+            if (contains(block)) {
+                ordered[preorder[block.getId()] - offset] = block;
+            }
+        }
+        List<BasicBlock> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(ordered[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 支配边界：b 支配 x 的某个前驱但不严格支配 x 的那些块 x；后支配树中是反向图上的边界，即控制依赖
+     */
+    public List<BasicBlock> getFrontier(BasicBlock block) {
+        if (frontiers == null) {
+            frontiers = computeFrontiers();
+        }
+        return frontiers.get(block.getId());
+    }
+
+    // 对每个汇合点，从它的各个前驱沿支配树向上走到它的直接支配者为止，途经的块的边界都含这个汇合点；
+    // 树根没有直接支配者，有前驱（即入口本身是循环头）时一直走到树根
+    private List<List<BasicBlock>> computeFrontiers() {
+        List<List<BasicBlock>> result = new ArrayList<>(idom.length);
+        for (int node = 0; node < idom.length; node++) {
+            result.add(new ArrayList<>(0));
+        }
+        for (int node = 0; node < idom.length; node++) {
+            if (idom[node] == NONE || (node != root && predecessors[node].length < 2)) {
+                continue;
+            }
+            BasicBlock join = block(node);
+            int stop = node == root ? NONE : idom[node];
+            for (int predecessor : predecessors[node]) {
+                if (idom[predecessor] == NONE) {
+                    continue;
+                }
+                int runner = predecessor;
+                while (runner != stop) {
+                    List<BasicBlock> frontier = result.get(runner);
+                    if (frontier.isEmpty() || frontier.get(frontier.size() - 1) != join) {
+                        frontier.add(join);
+                    }
+                    if (runner == root) {
+                        break;
+                    }
+                    runner = idom[runner];
+                }
+            }
+        }
+        List<List<BasicBlock>> frozen = new ArrayList<>(blocks.size());
+        for (int node = 0; node < blocks.size(); node++) {
+            frozen.add(Collections.unmodifiableList(result.get(node)));
+        }
+        return frozen;
+    }
+}
@@ -1,51 +1,144 @@
 package Optim;
 
+import AST.CompilationContext;
+import Midcode.ConstOperand;
+import Midcode.InstructionList;
+import Midcode.IrDumper;
+import Midcode.Operand;
 import Midcode.midCode;
 
-import java.io.FileNotFoundException;
-import java.io.PrintStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class Optimize {
-    private List<midCode> sourceInstructionSet;
-    private List<midCode> refinedInstructionSet;
-    private Map<String, String> branchTargetMap;
+    /* 按函数切分的四元组链表：全局声明是第一段，之后每个 FUNC/MAIN 开始一段，各遍直接在链表上删改 */
+    private final List<InstructionList> units;
+    private final Map<Operand, Operand> branchTargetMap;
+    /* 各遍结束后从链表中一次取出的优化结果 */
+    private final ArrayList<midCode> refinedInstructionSet;
+    private final boolean parallel;
+
+    /* 中间代码少于这个条数时各遍都顺序执行，线程调度的开销比优化本身还大 */
+    private static final int PARALLEL_THRESHOLD = 4096;
+    /* 打开 SSA 构造与还原的系统属性，例如 -Dsysy.ssa=true；还没有基于 SSA 的变换，默认不做 */
+    public static final String SSA_PROPERTY = "sysy.ssa";
 
     public Optimize(ArrayList<midCode> inputInstructions) {
-        this.sourceInstructionSet = new ArrayList<>(inputInstructions);
-        this.refinedInstructionSet = new ArrayList<>();
+        this(inputInstructions, IrDumper.DISABLED);
+    }
+
+    public Optimize(ArrayList<midCode> inputInstructions, IrDumper dumper) {
+        this.units = splitFunctions(inputInstructions);
         this.branchTargetMap = new HashMap<>();
+        this.parallel = inputInstructions.size() >= PARALLEL_THRESHOLD;
 
         executeArithmeticOptimization();
+        dumpPass(dumper, "optimize.arithmetic.txt");
         executeBranchOptimization();
-        exportOptimizedResult();
+        dumpPass(dumper, "optimize.branch.txt");
+        if (Boolean.getBoolean(SSA_PROPERTY)) {
+            executeSsaRoundTrip();
+            dumpPass(dumper, "optimize.ssa.txt");
+        }
+
+        refinedInstructionSet = new ArrayList<>(inputInstructions.size());
+        for (InstructionList unit : units) {
+            unit.drainTo(refinedInstructionSet);
+        }
+        dumper.dump(IrDumper.Artifact.OPTIMIZED, "optimize.txt", refinedInstructionSet);
+    }
+
+    public Optimize(CompilationContext context) {
+        this(context.getMidCodes(), context.getDumper());
+        context.setMidCodes(refinedInstructionSet);
     }
 
-    private void exportOptimizedResult() {
-        String exportFilePath = "optimize.txt";
-        try (PrintStream outputStream = new PrintStream(exportFilePath)) {
-            System.setOut(outputStream);
-            refinedInstructionSet.forEach(inst -> System.out.println(inst.toString()));
-        } catch (FileNotFoundException exception) {
-            exception.printStackTrace();
+    public void exportOptimizedResult(Writer outputWriter) {
+        try {
+            for (midCode inst : refinedInstructionSet) {
+                String line = inst.toString();
+                outputWriter.write(line != null ? line : "null");
+                outputWriter.write(System.lineSeparator());
+            }
+            outputWriter.flush();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    // 只有打开了分遍输出时才把各段链表拼成列表
+    private void dumpPass(IrDumper dumper, String fileName) {
+        if (!dumper.isEnabled(IrDumper.Artifact.PASSES)) {
+            return;
+        }
+        List<midCode> codes = new ArrayList<>();
+        for (InstructionList unit : units) {
+            codes.addAll(unit.toList());
         }
+        dumper.dump(IrDumper.Artifact.PASSES, fileName, codes);
     }
 
+    /*
+     * 按函数切分：全局声明单独一段，之后每个 FUNC/MAIN 开始一段
+     * 函数内的优化互不影响，可以在 ForkJoinPool 上并行执行
+     */
+    private static List<InstructionList> splitFunctions(List<midCode> instructions) {
+        List<InstructionList> lists = new ArrayList<>();
+        InstructionList current = new InstructionList();
+        lists.add(current);
+        for (midCode instruction : instructions) {
+            if ((instruction.op == midCode.operation.FUNC || instruction.op == midCode.operation.MAIN)
+                    && !current.isEmpty()) {
+                current = new InstructionList();
+                lists.add(current);
+            }
+            current.addLast(instruction);
+        }
+        return lists;
+    }
+
+    // 按函数遍历，程序较大时交给公共 ForkJoinPool 并行处理
+    private Stream<InstructionList> unitStream() {
+        return parallel ? units.parallelStream() : units.stream();
+    }
+
+    /*
+     * 把每个函数转成 SSA 形式再还原；还没有在 SSA 上做的变换时还原结果与原来相同，
+     * 这一遍先把构造和还原接进流水线，以后基于 SSA 的优化放在两者之间
+     */
+    private void executeSsaRoundTrip() {
+        unitStream().filter(Optimize::isFunction).forEach(unit -> {
+            List<midCode> codes = new ArrayList<>(unit.size());
+            unit.drainTo(codes);
+            SsaForm.construct(ControlFlowGraph.build(codes)).destruct(unit);
+        });
+    }
+
+    private static boolean isFunction(InstructionList unit) {
+        midCode first = unit.getFirst();
+        return first != null && (first.op == midCode.operation.FUNC || first.op == midCode.operation.MAIN);
+    }
+
+    // 跳转标签在整个程序中统一编号，标签到最终目标的映射先顺序收集，再按函数并行改写跳转
     private void executeBranchOptimization() {
-        initializeBranchMappings();
+        for (InstructionList unit : units) {
+            initializeBranchMappings(unit);
+        }
         optimizeBranchChains();
-        updateBranchTargets();
+        unitStream().forEach(this::updateBranchTargets);
     }
 
-    private void initializeBranchMappings() {
-        for (int position = 0; position < refinedInstructionSet.size(); position++) {
-            midCode currentInstruction = refinedInstructionSet.get(position);
+    private void initializeBranchMappings(InstructionList unit) {
+        for (midCode currentInstruction : unit) {
             if (isJumpInstruction(currentInstruction)) {
-                midCode nextInstruction = getNextInstructionSafely(position);
-                String targetLabel = determineTargetLabel(currentInstruction, nextInstruction);
+                midCode nextInstruction = currentInstruction.getNext();
+                Operand targetLabel = determineTargetLabel(currentInstruction, nextInstruction);
                 branchTargetMap.put(currentInstruction.z, targetLabel);
             }
         }
@@ -55,12 +148,7 @@ public class Optimize {
         return instruction.op.equals(midCode.operation.Jump);
     }
 
-    private midCode getNextInstructionSafely(int currentPosition) {
-        return currentPosition + 1 < refinedInstructionSet.size() ? refinedInstructionSet.get(currentPosition + 1)
-                : null;
-    }
-
-    private String determineTargetLabel(midCode jumpInst, midCode nextInst) {
+    private Operand determineTargetLabel(midCode jumpInst, midCode nextInst) {
         return (nextInst != null && nextInst.op.equals(midCode.operation.GOTO)) ? nextInst.z : jumpInst.z;
     }
 
@@ -68,8 +156,8 @@ public class Optimize {
         boolean hasChanges;
         do {
             hasChanges = false;
-            for (Map.Entry<String, String> entry : branchTargetMap.entrySet()) {
-                String indirectTarget = branchTargetMap.get(entry.getValue());
+            for (Map.Entry<Operand, Operand> entry : branchTargetMap.entrySet()) {
+                Operand indirectTarget = branchTargetMap.get(entry.getValue());
                 if (indirectTarget != null && !entry.getValue().equals(indirectTarget)) {
                     entry.setValue(indirectTarget);
                     hasChanges = true;
@@ -78,15 +166,15 @@ public class Optimize {
         } while (hasChanges);
     }
 
-    private void updateBranchTargets() {
-        refinedInstructionSet.forEach(instruction -> {
+    private void updateBranchTargets(InstructionList unit) {
+        for (midCode instruction : unit) {
             if (isBranchInstruction(instruction)) {
-                String optimizedTarget = branchTargetMap.get(instruction.z);
+                Operand optimizedTarget = branchTargetMap.get(instruction.z);
                 if (optimizedTarget != null) {
                     instruction.z = optimizedTarget;
                 }
             }
-        });
+        }
     }
 
     private boolean isBranchInstruction(midCode instruction) {
@@ -94,55 +182,57 @@ public class Optimize {
                 instruction.op.equals(midCode.operation.GOTO);
     }
 
+    // 各函数的链表互不相交，可以同时原地替换、删除
     private void executeArithmeticOptimization() {
-        for (int index = 0; index < sourceInstructionSet.size(); index++) {
-            midCode currentInstruction = sourceInstructionSet.get(index);
+        unitStream().forEach(this::optimizeArithmetic);
+    }
 
-            if (processMultiplicationOptimization(currentInstruction) ||
-                    processDivisionOptimization(currentInstruction) ||
-                    processRedundantBranchOptimization(currentInstruction, index)) {
+    private void optimizeArithmetic(InstructionList unit) {
+        for (midCode currentInstruction : unit) {
+            if (processMultiplicationOptimization(currentInstruction, unit) ||
+                    processDivisionOptimization(currentInstruction, unit)) {
                 continue;
             }
-
-            refinedInstructionSet.add(currentInstruction);
+            if (processRedundantBranchOptimization(currentInstruction)) {
+                unit.remove(currentInstruction);
+            }
         }
     }
 
-    private boolean processMultiplicationOptimization(midCode instruction) {
+    private boolean processMultiplicationOptimization(midCode instruction, InstructionList unit) {
         if (!instruction.op.equals(midCode.operation.MULTOP)) {
             return false;
         }
 
-        ArithmeticOperand leftOperand = analyzeOperand(instruction.x);
-        ArithmeticOperand rightOperand = analyzeOperand(instruction.y);
-
-        if (leftOperand.isNumeric()) {
-            return optimizeMultiplicationByConstant(instruction, leftOperand.getValue(),
-                    instruction.y, instruction.z);
-        } else if (rightOperand.isNumeric()) {
-            return optimizeMultiplicationByConstant(instruction, rightOperand.getValue(),
-                    instruction.x, instruction.z);
+        if (instruction.x instanceof ConstOperand) {
+            return optimizeMultiplicationByConstant(instruction, ((ConstOperand) instruction.x).getValue(),
+                    instruction.y, instruction.z, unit);
+        } else if (instruction.y instanceof ConstOperand) {
+            return optimizeMultiplicationByConstant(instruction, ((ConstOperand) instruction.y).getValue(),
+                    instruction.x, instruction.z, unit);
         }
 
         return false;
     }
 
     private boolean optimizeMultiplicationByConstant(midCode originalInst, int constant,
-            String operand, String result) {
+            Operand operand, Operand result, InstructionList unit) {
         int shiftAmount = calculateShiftEquivalent(constant);
 
         switch (shiftAmount) {
             case 0:
-                refinedInstructionSet.add(createAssignmentInstruction(result, "0"));
+                unit.replace(originalInst, createAssignmentInstruction(result, new ConstOperand(0)));
                 return true;
             case -1:
                 if (!result.equals(operand)) {
-                    refinedInstructionSet.add(createAssignmentInstruction(result, operand));
+                    unit.replace(originalInst, createAssignmentInstruction(result, operand));
+                } else {
+                    unit.remove(originalInst);
                 }
                 return true;
             default:
                 if (shiftAmount > 0) {
-                    refinedInstructionSet.add(createShiftInstruction(result, operand, shiftAmount));
+                    unit.replace(originalInst, createShiftInstruction(result, operand, shiftAmount));
                     return true;
                 }
         }
@@ -150,43 +240,31 @@ public class Optimize {
         return false;
     }
 
-    private boolean processDivisionOptimization(midCode instruction) {
+    private boolean processDivisionOptimization(midCode instruction, InstructionList unit) {
         if (!instruction.op.equals(midCode.operation.DIVOP)) {
             return false;
         }
 
-        ArithmeticOperand divisor = analyzeOperand(instruction.y);
-        if (divisor.isNumeric() && calculateShiftEquivalent(divisor.getValue()) == -1) {
-            refinedInstructionSet.add(createAssignmentInstruction(instruction.z, instruction.x));
+        if (instruction.y instanceof ConstOperand
+                && calculateShiftEquivalent(((ConstOperand) instruction.y).getValue()) == -1) {
+            unit.replace(instruction, createAssignmentInstruction(instruction.z, instruction.x));
             return true;
         }
 
         return false;
     }
 
-    private boolean processRedundantBranchOptimization(midCode instruction, int currentIndex) {
+    private boolean processRedundantBranchOptimization(midCode instruction) {
         if (!isBranchInstruction(instruction)) {
             return false;
         }
 
-        midCode subsequentInstruction = getSubsequentInstructionSafely(currentIndex);
+        midCode subsequentInstruction = instruction.getNext();
         return subsequentInstruction != null &&
                 subsequentInstruction.op.equals(midCode.operation.Jump) &&
                 instruction.z.equals(subsequentInstruction.z);
     }
 
-    private midCode getSubsequentInstructionSafely(int currentIndex) {
-        return currentIndex + 1 < sourceInstructionSet.size() ? sourceInstructionSet.get(currentIndex + 1) : null;
-    }
-
-    private ArithmeticOperand analyzeOperand(String operand) {
-        try {
-            return new ArithmeticOperand(Integer.parseInt(operand));
-        } catch (NumberFormatException e) {
-            return new ArithmeticOperand();
-        }
-    }
-
     private int calculateShiftEquivalent(int value) {
         if (value == 0)
             return 0;
@@ -212,38 +290,15 @@ public class Optimize {
         return exponent;
     }
 
-    private midCode createAssignmentInstruction(String destination, String source) {
+    private midCode createAssignmentInstruction(Operand destination, Operand source) {
         return new midCode(midCode.operation.ASSIGNOP, destination, source);
     }
 
-    private midCode createShiftInstruction(String destination, String source, int shiftAmount) {
-        return new midCode(midCode.operation.SLL, destination, source, String.valueOf(shiftAmount));
+    private midCode createShiftInstruction(Operand destination, Operand source, int shiftAmount) {
+        return new midCode(midCode.operation.SLL, destination, source, new ConstOperand(shiftAmount));
     }
 
     public ArrayList<midCode> getNewmidCodes() {
         return new ArrayList<>(refinedInstructionSet);
     }
-
-    private static class ArithmeticOperand {
-        private final boolean isConstant;
-        private final int constantValue;
-
-        public ArithmeticOperand() {
-            this.isConstant = false;
-            this.constantValue = 0;
-        }
-
-        public ArithmeticOperand(int value) {
-            this.isConstant = true;
-            this.constantValue = value;
-        }
-
-        public boolean isNumeric() {
-            return isConstant;
-        }
-
-        public int getValue() {
-            return constantValue;
-        }
-    }
 }
@@ -1,5 +1,8 @@
 package Optim;
 
+import Midcode.Operand;
+
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -8,14 +11,21 @@ import java.util.Queue;
 import java.util.Stack;
 
 public class Register {
-    private HashMap<String, String> variableToRegisterMapping;
+    private HashMap<Operand, String> variableToRegisterMapping;
     private Queue<String> availableRegisterPool;
     private Stack<String> allocatedRegisterStack;
     private static final String[] TEMPORARY_REGISTERS = {
             "$t3", "$t4", "$t5", "$t6", "$t7", "$t8", "$t9"
     };
 
+    private final PrintStream diagnostics;
+
     public Register() {
+        this(System.out);
+    }
+
+    public Register(PrintStream diagnostics) {
+        this.diagnostics = diagnostics;
         initializeRegisterManager();
     }
 
@@ -25,7 +35,7 @@ public class Register {
         this.allocatedRegisterStack = new Stack<>();
     }
 
-    public String findtemp(String variableName) {
+    public String findtemp(Operand variableName) {
         String assignedRegister = variableToRegisterMapping.get(variableName);
         if (assignedRegister != null) {
             relocateRegisterToAvailable(assignedRegister);
@@ -47,7 +57,7 @@ public class Register {
         return new ArrayList<>(availableRegisterPool);
     }
 
-    public String gettemp(String variableName) {
+    public String gettemp(Operand variableName) {
         if (isRegisterPoolEmpty()) {
             displayResourceExhaustedMessage();
             return null;
@@ -63,7 +73,7 @@ public class Register {
     }
 
     private void displayResourceExhaustedMessage() {
-        System.out.print("Register allocation failed - no available registers");
+        diagnostics.print("Register allocation failed - no available registers");
     }
 
     private String retrieveNextAvailableRegister() {
@@ -72,7 +82,7 @@ public class Register {
         return register;
     }
 
-    private void establishVariableRegisterBinding(String variable, String register) {
+    private void establishVariableRegisterBinding(Operand variable, String register) {
         variableToRegisterMapping.put(variable, register);
     }
 
@@ -0,0 +1,922 @@
+package Optim;
+
+import Midcode.ConstOperand;
+import Midcode.InstructionList;
+import Midcode.LabelOperand;
+import Midcode.Operand;
+import Midcode.TempOperand;
+import Midcode.TextOperand;
+import Midcode.VarOperand;
+import Midcode.midCode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个函数的剪枝 SSA 形式
+ *
+ * 临时变量 t&N 本来就只赋值一次，这里只处理函数内的标量局部变量和标量参数，并且只处理在本函数中
+ * 只声明过一次的名字：目标代码生成器按名字和作用域找存储位置，同名变量在不同作用域中各有各的位置。
+ * 常量、数组、全局变量不参与；比较、移位的结果写到外层变量时目标代码生成器会在当前作用域新登记一个同名变量，
+ * 出现这种情况的名字也不参与。
+ *
+ * 构造：按支配边界的迭代闭包放置 φ，只放在变量活跃的块里（剪枝），再沿支配树先序给每次赋值一个新版本。
+ * 版本 {@link Version} 的名字与原变量相同，φ 单独记在块上，不进入四元组序列。
+ * 没有初值的变量声明也算一次赋值（值未定义），函数入口处的值是 0 号版本。
+ *
+ * 还原：算出各版本的活跃范围，同一变量互不干扰的版本合并回原变量，相互干扰的版本换成新的函数级局部变量；
+ * 再把 φ 变成前驱块末尾的并行复制，按依赖关系排成顺序的赋值，成环时借一个临时局部变量。
+ * 前驱有两个后继时在边上插入新块。刚构造出来、还没有被变换过的 SSA 形式中同一变量的版本互不干扰，
+ * 还原后得到与构造前相同的中间代码
+ */
+public class SsaForm {
+
+    /**
+     * 变量的一个版本，名字与原变量相同
+     */
+    public static final class Version extends VarOperand {
+        private final Variable variable;
+        private final int number;
+        /* 定义所在的块，0 号版本是入口块 */
+        private BasicBlock block;
+        /* 定义它的四元组，φ 定义和 0 号版本为 null */
+        private midCode definition;
+
+        private Version(Variable variable, int number) {
+            super(variable.original.getName(), variable.original.getSymbol());
+            this.variable = variable;
+            this.number = number;
+        }
+
+        /**
+         * 版本号，0 表示进入函数时的值
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * 原来的变量
+         */
+        public VarOperand getVariable() {
+            return variable.original;
+        }
+    }
+
+    /**
+     * φ 函数 target = φ(arguments)，第 i 个参数来自所在块的第 i 个前驱，不可达的前驱对应 null
+     */
+    public static final class Phi {
+        private final Variable variable;
+        private final Version[] arguments;
+        private Version target;
+
+        private Phi(Variable variable, int predecessors) {
+            this.variable = variable;
+            this.arguments = new Version[predecessors];
+        }
+
+        public Version getTarget() {
+            return target;
+        }
+
+        public Version getArgument(int predecessor) {
+            return arguments[predecessor];
+        }
+
+        public void setArgument(int predecessor, Version argument) {
+            arguments[predecessor] = argument;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(target).append('.').append(target.number).append(" = phi(");
+            for (int i = 0; i < arguments.length; i++) {
+                if (i > 0) {
+                    text.append(", ");
+                }
+                text.append(arguments[i] == null ? "-" : arguments[i] + "." + arguments[i].number);
+            }
+            return text.append(')').toString();
+        }
+    }
+
+    // 参与 SSA 的变量，所有引用它的四元组都改用同一个 original 对象
+    private static final class Variable {
+        final int index;
+        final VarOperand original;
+        final List<Version> versions = new ArrayList<>();
+
+        Variable(int index, VarOperand original) {
+            this.index = index;
+            this.original = original;
+        }
+
+        Version newVersion() {
+            Version version = new Version(this, versions.size());
+            versions.add(version);
+            return version;
+        }
+    }
+
+    private final ControlFlowGraph graph;
+    private final DominatorTree dominators;
+    private final List<Variable> variables = new ArrayList<>();
+    private final Map<Operand, Variable> variableOf = new IdentityHashMap<>();
+    private final List<List<Phi>> phis;
+
+    private SsaForm(ControlFlowGraph graph) {
+        this.graph = graph;
+        this.dominators = DominatorTree.dominators(graph);
+        this.phis = new ArrayList<>(graph.getBlocks().size());
+        for (int i = 0; i < graph.getBlocks().size(); i++) {
+            phis.add(new ArrayList<>(0));
+        }
+    }
+
+    /**
+     * 把一个函数的控制流图原地转换为 SSA 形式：四元组中的变量引用换成版本，φ 记在各块上
+     *
+     * @param graph 以 FUNC 或 MAIN 开头的函数的控制流图
+     */
+    public static SsaForm construct(ControlFlowGraph graph) {
+        SsaForm form = new SsaForm(graph);
+        form.collectVariables();
+        if (!form.variables.isEmpty()) {
+            form.placePhis();
+            form.rename();
+        }
+        return form;
+    }
+
+    public ControlFlowGraph getGraph() {
+        return graph;
+    }
+
+    public DominatorTree getDominators() {
+        return dominators;
+    }
+
+    /**
+     * 块开头的 φ，按变量的登记顺序排列
+     */
+    public List<Phi> getPhis(BasicBlock block) {
+        return Collections.unmodifiableList(phis.get(block.getId()));
+    }
+
+    /**
+     * 参与 SSA 的变量个数
+     */
+    public int getVariableCount() {
+        return variables.size();
+    }
+
+    // 比较、移位的结果写回普通变量时，目标代码生成器在当前作用域中没有这个名字就新登记一个
+    private static boolean declaresResult(midCode code) {
+        switch (code.op) {
+            case LSSOP:
+            case LEQOP:
+            case GREOP:
+            case GEQOP:
+            case EQLOP:
+            case NEQOP:
+            case SLL:
+            case SRA:
+                return code.z instanceof VarOperand;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isScalarDeclaration(midCode code) {
+        return code.op == midCode.operation.VAR
+                || code.op == midCode.operation.PARAM && ((ConstOperand) code.x).getValue() == 0;
+    }
+
+    private static boolean isDeclaration(midCode code) {
+        switch (code.op) {
+            case VAR:
+            case PARAM:
+            case CONST:
+            case ARRAY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isScopeStart(midCode code) {
+        return code.op == midCode.operation.LABEL && code.x == TextOperand.START;
+    }
+
+    private static boolean isScopeEnd(midCode code) {
+        return code.op == midCode.operation.LABEL && code.x == TextOperand.END;
+    }
+
+    /*
+     * 按四元组顺序模拟作用域：第一遍统计每个名字在本函数中被声明的次数（含比较、移位隐式登记的），
+     * 第二遍只对只声明过一次的标量，把处在其作用域内的引用都换成同一个对象
+     */
+    private void collectVariables() {
+        Map<String, Integer> declarations = new HashMap<>();
+        ArrayDeque<Set<String>> scopes = new ArrayDeque<>();
+        scopes.push(new HashSet<>());
+        for (BasicBlock block : graph.getBlocks()) {
+            for (midCode code : block.getInstructions()) {
+                if (isScopeStart(code)) {
+                    scopes.push(new HashSet<>());
+                } else if (isScopeEnd(code)) {
+                    if (scopes.size() > 1) {
+                        scopes.pop();
+                    } else {
+                        scopes.peek().clear();
+                    }
+                } else if (isDeclaration(code) || declaresResult(code) && !scopes.peek().contains(code.z.toString())) {
+                    scopes.peek().add(code.z.toString());
+                    declarations.merge(code.z.toString(), 1, Integer::sum);
+                }
+            }
+        }
+
+        Map<String, Variable> active = new HashMap<>();
+        ArrayDeque<List<String>> declared = new ArrayDeque<>();
+        declared.push(new ArrayList<>());
+        for (BasicBlock block : graph.getBlocks()) {
+            for (midCode code : block.getInstructions()) {
+                if (isScopeStart(code)) {
+                    declared.push(new ArrayList<>());
+                    continue;
+                }
+                if (isScopeEnd(code)) {
+                    for (String name : declared.peek()) {
+                        active.remove(name);
+                    }
+                    if (declared.size() > 1) {
+                        declared.pop();
+                    } else {
+                        declared.peek().clear();
+                    }
+                    continue;
+                }
+                // 声明的初值先于声明本身解析
+                code.x = resolve(code.x, active);
+                code.y = resolve(code.y, active);
+                if (isScalarDeclaration(code) && declarations.get(code.z.toString()) == 1) {
+                    Variable variable = new Variable(variables.size(), (VarOperand) code.z);
+                    variables.add(variable);
+                    variableOf.put(variable.original, variable);
+                    active.put(variable.original.getName(), variable);
+                    declared.peek().add(variable.original.getName());
+                } else {
+                    code.z = resolve(code.z, active);
+                }
+            }
+        }
+    }
+
+    private static Operand resolve(Operand operand, Map<String, Variable> active) {
+        if (!(operand instanceof VarOperand)) {
+            return operand;
+        }
+        Variable variable = active.get(operand.toString());
+        return variable != null ? variable.original : operand;
+    }
+
+    /* 四元组中被读的操作数位置 */
+    private static final int READS_Z = 1;
+    private static final int READS_X = 2;
+    private static final int READS_Y = 4;
+
+    private static int reads(midCode code) {
+        switch (code.op) {
+            case PLUSOP:
+            case MINUOP:
+            case MULTOP:
+            case DIVOP:
+            case MODOP:
+            case LSSOP:
+            case LEQOP:
+            case GREOP:
+            case GEQOP:
+            case EQLOP:
+            case NEQOP:
+            case SLL:
+            case SRA:
+            case GETARRAY:
+                return READS_X | READS_Y;
+            case ASSIGNOP:
+            case VAR:
+            case BZ:
+                return READS_X;
+            case PUTARRAY:
+            case PUSH:
+                return READS_Z | READS_X | READS_Y;
+            case RET:
+                return READS_Z;
+            case PRINT:
+                return code.x == TextOperand.STRING ? 0 : READS_Z;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean writesZ(midCode code) {
+        switch (code.op) {
+            case PLUSOP:
+            case MINUOP:
+            case MULTOP:
+            case DIVOP:
+            case MODOP:
+            case LSSOP:
+            case LEQOP:
+            case GREOP:
+            case GEQOP:
+            case EQLOP:
+            case NEQOP:
+            case SLL:
+            case SRA:
+            case ASSIGNOP:
+            case GETARRAY:
+            case RETVALUE:
+            case SCAN:
+            case VAR:
+            case PARAM:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // 操作数引用的变量：构造前是变量的 original 对象，构造后是版本
+    private Variable variableOf(Operand operand) {
+        if (operand instanceof Version) {
+            return ((Version) operand).variable;
+        }
+        return operand == null ? null : variableOf.get(operand);
+    }
+
+    private void placePhis() {
+        List<BasicBlock> blocks = graph.getBlocks();
+        BitSet[] upwardExposed = new BitSet[blocks.size()];
+        BitSet[] killed = new BitSet[blocks.size()];
+        List<List<BasicBlock>> definitionBlocks = new ArrayList<>(variables.size());
+        for (int i = 0; i < variables.size(); i++) {
+            definitionBlocks.add(new ArrayList<>());
+        }
+        for (BasicBlock block : blocks) {
+            BitSet uses = new BitSet();
+            BitSet defs = new BitSet();
+            for (midCode code : block.getInstructions()) {
+                int reads = reads(code);
+                markUse((reads & READS_X) != 0 ? variableOf(code.x) : null, uses, defs);
+                markUse((reads & READS_Y) != 0 ? variableOf(code.y) : null, uses, defs);
+                markUse((reads & READS_Z) != 0 ? variableOf(code.z) : null, uses, defs);
+                Variable written = writesZ(code) ? variableOf(code.z) : null;
+                if (written != null && !defs.get(written.index)) {
+                    defs.set(written.index);
+                    definitionBlocks.get(written.index).add(block);
+                }
+            }
+            upwardExposed[block.getId()] = uses;
+            killed[block.getId()] = defs;
+        }
+        BitSet[] liveIn = liveness(upwardExposed, killed);
+
+        // 对每个变量求定义块的迭代支配边界，只在变量活跃的块放 φ；块号数组用变量编号作时间戳，免得每次清零
+        int[] placed = new int[blocks.size()];
+        int[] queued = new int[blocks.size()];
+        ArrayDeque<BasicBlock> worklist = new ArrayDeque<>();
+        for (Variable variable : variables) {
+            int stamp = variable.index + 1;
+            for (BasicBlock block : definitionBlocks.get(variable.index)) {
+                queued[block.getId()] = stamp;
+                worklist.add(block);
+            }
+            while (!worklist.isEmpty()) {
+                for (BasicBlock frontier : dominators.getFrontier(worklist.poll())) {
+                    if (placed[frontier.getId()] == stamp) {
+                        continue;
+                    }
+                    placed[frontier.getId()] = stamp;
+                    if (liveIn[frontier.getId()].get(variable.index)) {
+                        phis.get(frontier.getId()).add(new Phi(variable, frontier.getPredecessors().size()));
+                    }
+                    if (queued[frontier.getId()] != stamp) {
+                        queued[frontier.getId()] = stamp;
+                        worklist.add(frontier);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void markUse(Variable variable, BitSet uses, BitSet defs) {
+        if (variable != null && !defs.get(variable.index)) {
+            uses.set(variable.index);
+        }
+    }
+
+    // 按变量做经典的活跃变量分析，逆后序倒过来迭代到不动点，返回各块入口处活跃的变量
+    private BitSet[] liveness(BitSet[] upwardExposed, BitSet[] killed) {
+        List<BasicBlock> blocks = graph.getBlocks();
+        BitSet[] liveIn = new BitSet[blocks.size()];
+        for (BasicBlock block : blocks) {
+            liveIn[block.getId()] = (BitSet) upwardExposed[block.getId()].clone();
+        }
+        List<BasicBlock> order = new ArrayList<>(graph.reversePostorder());
+        Collections.reverse(order);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : order) {
+                BitSet live = new BitSet();
+                for (BasicBlock successor : block.getSuccessors()) {
+                    live.or(liveIn[successor.getId()]);
+                }
+                live.andNot(killed[block.getId()]);
+                live.or(upwardExposed[block.getId()]);
+                if (!live.equals(liveIn[block.getId()])) {
+                    liveIn[block.getId()] = live;
+                    changed = true;
+                }
+            }
+        }
+        return liveIn;
+    }
+
+    // 沿支配树先序走一遍，每个变量一个版本栈；离开块时按撤销记录弹出它压入的版本
+    private void rename() {
+        List<List<Version>> stacks = new ArrayList<>(variables.size());
+        for (Variable variable : variables) {
+            Version entry = variable.newVersion();
+            entry.block = graph.getEntry();
+            List<Version> stack = new ArrayList<>();
+            stack.add(entry);
+            stacks.add(stack);
+        }
+        List<Variable> pushed = new ArrayList<>();
+        ArrayDeque<BasicBlock> work = new ArrayDeque<>();
+        ArrayDeque<Integer> marks = new ArrayDeque<>();
+        work.push(graph.getEntry());
+        marks.push(-1);
+        while (!work.isEmpty()) {
+            BasicBlock block = work.pop();
+            int mark = marks.pop();
+            if (mark >= 0) {
+                while (pushed.size() > mark) {
+                    List<Version> stack = stacks.get(pushed.remove(pushed.size() - 1).index);
+                    stack.remove(stack.size() - 1);
+                }
+                continue;
+            }
+            work.push(block);
+            marks.push(pushed.size());
+
+            for (Phi phi : phis.get(block.getId())) {
+                phi.target = define(phi.variable, block, null, stacks, pushed);
+            }
+            for (midCode code : block.getInstructions()) {
+                int reads = reads(code);
+                if ((reads & READS_X) != 0) {
+                    code.x = current(code.x, stacks);
+                }
+                if ((reads & READS_Y) != 0) {
+                    code.y = current(code.y, stacks);
+                }
+                if ((reads & READS_Z) != 0) {
+                    code.z = current(code.z, stacks);
+                }
+                Variable written = writesZ(code) ? variableOf(code.z) : null;
+                if (written != null) {
+                    code.z = define(written, block, code, stacks, pushed);
+                }
+            }
+            for (BasicBlock successor : block.getSuccessors()) {
+                int predecessor = successor.getPredecessors().indexOf(block);
+                for (Phi phi : phis.get(successor.getId())) {
+                    List<Version> stack = stacks.get(phi.variable.index);
+                    phi.arguments[predecessor] = stack.get(stack.size() - 1);
+                }
+            }
+            List<BasicBlock> children = dominators.getChildren(block);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                work.push(children.get(i));
+                marks.push(-1);
+            }
+        }
+    }
+
+    private Operand current(Operand operand, List<List<Version>> stacks) {
+        Variable variable = variableOf(operand);
+        if (variable == null) {
+            return operand;
+        }
+        List<Version> stack = stacks.get(variable.index);
+        return stack.get(stack.size() - 1);
+    }
+
+    private static Version define(Variable variable, BasicBlock block, midCode definition,
+            List<List<Version>> stacks, List<Variable> pushed) {
+        Version version = variable.newVersion();
+        version.block = block;
+        version.definition = definition;
+        stacks.get(variable.index).add(version);
+        pushed.add(variable);
+        return version;
+    }
+
+    /**
+     * 退出 SSA 形式，把函数的四元组按块的顺序追加到 target；之后控制流图的各块为空，不能再使用
+     */
+    public void destruct(InstructionList target) {
+        Destruction destruction = new Destruction();
+        destruction.run(target);
+    }
+
+    // 还原时的工作状态
+    private final class Destruction {
+        /* 版本的全局编号是变量的起始编号加版本号，活跃集合用按全局编号的位图表示 */
+        private final int[] offsets = new int[variables.size()];
+        private final List<Version> versions = new ArrayList<>();
+        private final BitSet[] liveIn = new BitSet[graph.getBlocks().size()];
+        private final BitSet[] liveOut = new BitSet[graph.getBlocks().size()];
+        /* 每个版本与同一变量的哪些版本干扰，按版本号记 */
+        private final Map<Version, BitSet> interference = new HashMap<>();
+        private final Map<Version, VarOperand> storage = new HashMap<>();
+        /* 新建的函数级局部变量，在入口块的参数之后声明 */
+        private final List<VarOperand> freshVariables = new ArrayList<>();
+        /* 需要在块首补上的跳转标签 */
+        private final Map<BasicBlock, LabelOperand> addedLabels = new HashMap<>();
+        private VarOperand cycleTemporary = null;
+        private int labelCount = 0;
+        private int nextTemp;
+
+        void run(InstructionList target) {
+            if (!variables.isEmpty()) {
+                for (Variable variable : variables) {
+                    offsets[variable.index] = versions.size();
+                    versions.addAll(variable.versions);
+                }
+                for (int i = 0; i < liveIn.length; i++) {
+                    liveIn[i] = new BitSet();
+                    liveOut[i] = new BitSet();
+                }
+                computeLiveness();
+                computeInterference();
+                assignStorage();
+            }
+            nextTemp = maxTempId() + 1;
+            emit(target);
+        }
+
+        private int id(Version version) {
+            return offsets[version.variable.index] + version.number;
+        }
+
+        private boolean reachable(BasicBlock block) {
+            return dominators.contains(block);
+        }
+
+        // 从每个使用处沿前驱往回走，直到定义所在的块
+        private void computeLiveness() {
+            for (BasicBlock block : graph.getBlocks()) {
+                if (!reachable(block)) {
+                    continue;
+                }
+                for (midCode code : block.getInstructions()) {
+                    int reads = reads(code);
+                    liveUse(block, (reads & READS_X) != 0 ? code.x : null);
+                    liveUse(block, (reads & READS_Y) != 0 ? code.y : null);
+                    liveUse(block, (reads & READS_Z) != 0 ? code.z : null);
+                }
+                List<BasicBlock> predecessors = block.getPredecessors();
+                for (Phi phi : phis.get(block.getId())) {
+                    for (int i = 0; i < phi.arguments.length; i++) {
+                        BasicBlock predecessor = predecessors.get(i);
+                        Version argument = phi.arguments[i];
+                        if (argument != null && reachable(predecessor)) {
+                            liveOut[predecessor.getId()].set(id(argument));
+                            if (argument.block != predecessor) {
+                                liveUp(predecessor, argument);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void liveUse(BasicBlock block, Operand operand) {
+            if (operand instanceof Version && ((Version) operand).block != block) {
+                liveUp(block, (Version) operand);
+            }
+        }
+
+        private void liveUp(BasicBlock from, Version version) {
+            int id = id(version);
+            ArrayDeque<BasicBlock> work = new ArrayDeque<>();
+            work.push(from);
+            while (!work.isEmpty()) {
+                BasicBlock block = work.pop();
+                if (liveIn[block.getId()].get(id)) {
+                    continue;
+                }
+                liveIn[block.getId()].set(id);
+                for (BasicBlock predecessor : block.getPredecessors()) {
+                    if (reachable(predecessor)) {
+                        liveOut[predecessor.getId()].set(id);
+                        if (version.block != predecessor) {
+                            work.push(predecessor);
+                        }
+                    }
+                }
+            }
+        }
+
+        // 每个块从出口往回扫，定义某个版本时同一变量仍活跃的其他版本都与它干扰
+        private void computeInterference() {
+            for (BasicBlock block : graph.getBlocks()) {
+                if (!reachable(block)) {
+                    continue;
+                }
+                BitSet live = (BitSet) liveOut[block.getId()].clone();
+                InstructionList codes = block.getInstructions();
+                for (midCode code = codes.getLast(); code != null; code = code.getPrevious()) {
+                    if (writesZ(code) && code.z instanceof Version) {
+                        Version defined = (Version) code.z;
+                        live.clear(id(defined));
+                        interfere(defined, live);
+                    }
+                    int reads = reads(code);
+                    addLive(live, (reads & READS_X) != 0 ? code.x : null);
+                    addLive(live, (reads & READS_Y) != 0 ? code.y : null);
+                    addLive(live, (reads & READS_Z) != 0 ? code.z : null);
+                }
+                for (Phi phi : phis.get(block.getId())) {
+                    live.clear(id(phi.target));
+                }
+                for (Phi phi : phis.get(block.getId())) {
+                    interfere(phi.target, live);
+                }
+                if (block == graph.getEntry()) {
+                    for (Variable variable : variables) {
+                        live.clear(id(variable.versions.get(0)));
+                        interfere(variable.versions.get(0), live);
+                    }
+                }
+            }
+        }
+
+        private void addLive(BitSet live, Operand operand) {
+            if (operand instanceof Version) {
+                live.set(id((Version) operand));
+            }
+        }
+
+        private void interfere(Version defined, BitSet live) {
+            int from = offsets[defined.variable.index];
+            int to = from + defined.variable.versions.size();
+            for (int other = live.nextSetBit(from); other >= 0 && other < to; other = live.nextSetBit(other + 1)) {
+                Version version = versions.get(other);
+                interference.computeIfAbsent(defined, v -> new BitSet()).set(version.number);
+                interference.computeIfAbsent(version, v -> new BitSet()).set(defined.number);
+            }
+        }
+
+        // 0 号版本和声明处的版本先放进原变量，其余版本与已放入的都不干扰时也放进去，否则换成新变量
+        private void assignStorage() {
+            for (Variable variable : variables) {
+                BitSet members = new BitSet();
+                List<Version> ordered = new ArrayList<>(variable.versions);
+                ordered.sort((a, b) -> Integer.compare(rank(a), rank(b)));
+                for (Version version : ordered) {
+                    BitSet conflicts = interference.get(version);
+                    if (conflicts == null || !conflicts.intersects(members)) {
+                        members.set(version.number);
+                        storage.put(version, variable.original);
+                    } else if (rank(version) < 2) {
+                        throw new IllegalStateException("变量声明处的版本与其他版本干扰: " + variable.original);
+                    } else {
+                        VarOperand fresh = new VarOperand(variable.original.getName() + "#" + version.number,
+                                variable.original.getSymbol());
+                        freshVariables.add(fresh);
+                        storage.put(version, fresh);
+                    }
+                }
+            }
+        }
+
+        private int rank(Version version) {
+            if (version.number == 0) {
+                return 0;
+            }
+            if (version.definition != null && isScalarDeclaration(version.definition)) {
+                return 1;
+            }
+            return 2 + version.number;
+        }
+
+        private Operand storageOf(Operand operand) {
+            if (operand instanceof Version) {
+                VarOperand assigned = storage.get(operand);
+                return assigned != null ? assigned : ((Version) operand).variable.original;
+            }
+            return operand;
+        }
+
+        private int maxTempId() {
+            int max = 0;
+            for (BasicBlock block : graph.getBlocks()) {
+                for (midCode code : block.getInstructions()) {
+                    max = Math.max(max, tempId(code.z));
+                    max = Math.max(max, tempId(code.x));
+                    max = Math.max(max, tempId(code.y));
+                }
+            }
+            return max;
+        }
+
+        private int tempId(Operand operand) {
+            return operand instanceof TempOperand ? ((TempOperand) operand).getId() : 0;
+        }
+
+        // 一条边上的并行复制：后继块每个 φ 的目标取这条边对应的参数
+        private List<midCode> edgeCopies(BasicBlock predecessor, BasicBlock successor) {
+            List<Operand[]> copies = new ArrayList<>();
+            int index = successor.getPredecessors().indexOf(predecessor);
+            for (Phi phi : phis.get(successor.getId())) {
+                Operand destination = storageOf(phi.target);
+                Operand source = storageOf(phi.arguments[index]);
+                if (phi.arguments[index] != null && destination != source) {
+                    copies.add(new Operand[] { destination, source });
+                }
+            }
+            return sequentialize(copies);
+        }
+
+        /*
+         * 把并行复制排成顺序赋值：目标不再被其他待做复制读取的先做；
+         * 剩下的都在环上时，把一个目标的旧值存进临时变量，读它的复制改读临时变量，环就断开了
+         */
+        private List<midCode> sequentialize(List<Operand[]> pending) {
+            List<midCode> result = new ArrayList<>();
+            while (!pending.isEmpty()) {
+                boolean progress = false;
+                for (int i = 0; i < pending.size(); i++) {
+                    Operand[] copy = pending.get(i);
+                    if (!isRead(copy[0], pending)) {
+                        result.add(new midCode(midCode.operation.ASSIGNOP, copy[0], copy[1]));
+                        pending.remove(i--);
+                        progress = true;
+                    }
+                }
+                if (!progress) {
+                    Operand saved = pending.get(0)[0];
+                    VarOperand temporary = cycleTemporary();
+                    result.add(new midCode(midCode.operation.ASSIGNOP, temporary, saved));
+                    for (Operand[] copy : pending) {
+                        if (copy[1] == saved) {
+                            copy[1] = temporary;
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        private boolean isRead(Operand operand, List<Operand[]> pending) {
+            for (Operand[] copy : pending) {
+                if (copy[1] == operand) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private VarOperand cycleTemporary() {
+            if (cycleTemporary == null) {
+                cycleTemporary = new VarOperand("ssa#tmp", null);
+                freshVariables.add(cycleTemporary);
+            }
+            return cycleTemporary;
+        }
+
+        private LabelOperand newLabel() {
+            return new LabelOperand("ssa_" + graph.getEntry().getInstructions().getFirst().z + "_" + labelCount++);
+        }
+
+        // 块的跳转标签，没有时新建一个，输出该块时补在块首
+        private Operand labelOf(BasicBlock block) {
+            if (!block.getLabels().isEmpty()) {
+                return block.getLabels().get(0);
+            }
+            return addedLabels.computeIfAbsent(block, b -> newLabel());
+        }
+
+        /*
+         * 按块的顺序输出：版本换成分配到的存储，φ 变成前驱末尾的复制。
+         * 前驱只有一个后继时复制放在末尾的 GOTO、BZ 之前；前驱以 BZ 结尾且有两个后继时，
+         * 落空边的复制紧跟在 BZ 之后，跳转边另开一块：BZ 改跳到新块，新块做完复制再跳到原目标
+         */
+        private void emit(InstructionList target) {
+            List<BasicBlock> blocks = graph.getBlocks();
+            List<List<midCode>> trailers = new ArrayList<>(blocks.size());
+            List<List<midCode>> beforeLast = new ArrayList<>(blocks.size());
+            for (BasicBlock block : blocks) {
+                List<midCode> trailer = new ArrayList<>(0);
+                List<midCode> before = new ArrayList<>(0);
+                if (reachable(block)) {
+                    planEdges(block, trailer, before);
+                }
+                trailers.add(trailer);
+                beforeLast.add(before);
+            }
+            for (BasicBlock block : blocks) {
+                List<midCode> codes = new ArrayList<>(block.getInstructions().size());
+                block.getInstructions().drainTo(codes);
+                LabelOperand added = addedLabels.get(block);
+                if (added != null) {
+                    target.addLast(new midCode(midCode.operation.Jump, added));
+                }
+                List<midCode> before = beforeLast.get(block.getId());
+                int declarationEnd = block == graph.getEntry() ? declarationEnd(codes) : -1;
+                for (int i = 0; i < codes.size(); i++) {
+                    midCode code = codes.get(i);
+                    if (i == codes.size() - 1) {
+                        for (midCode copy : before) {
+                            target.addLast(copy);
+                        }
+                    }
+                    emitCode(target, code);
+                    if (i == declarationEnd) {
+                        for (VarOperand fresh : freshVariables) {
+                            target.addLast(new midCode(midCode.operation.VAR, fresh));
+                        }
+                    }
+                }
+                for (midCode code : trailers.get(block.getId())) {
+                    target.addLast(code);
+                }
+            }
+        }
+
+        // 入口块中 FUNC/MAIN 及紧随其后的参数声明的最后一条的下标
+        private int declarationEnd(List<midCode> codes) {
+            int index = 0;
+            while (index + 1 < codes.size() && codes.get(index + 1).op == midCode.operation.PARAM) {
+                index++;
+            }
+            return index;
+        }
+
+        private void planEdges(BasicBlock block, List<midCode> trailer, List<midCode> before) {
+            List<BasicBlock> successors = block.getSuccessors();
+            midCode last = block.getLast();
+            if (successors.size() == 1) {
+                List<midCode> copies = edgeCopies(block, successors.get(0));
+                // 两条边到同一块的 BZ 等价于 GOTO，改掉免得复制改写了它读的条件
+                if (last.op == midCode.operation.BZ && !copies.isEmpty()) {
+                    last.op = midCode.operation.GOTO;
+                    last.x = null;
+                }
+                (last.op == midCode.operation.GOTO ? before : trailer).addAll(copies);
+            } else if (successors.size() == 2) {
+                trailer.addAll(edgeCopies(block, successors.get(0)));
+                List<midCode> taken = edgeCopies(block, successors.get(1));
+                if (!taken.isEmpty()) {
+                    LabelOperand split = newLabel();
+                    Operand original = last.z;
+                    last.z = split;
+                    trailer.add(new midCode(midCode.operation.GOTO, labelOf(successors.get(0))));
+                    trailer.add(new midCode(midCode.operation.Jump, split));
+                    trailer.addAll(taken);
+                    trailer.add(new midCode(midCode.operation.GOTO, original));
+                }
+            }
+        }
+
+        // 换成存储位置；比较、移位写到新变量时先写临时变量再赋值，避免目标代码生成器在内层作用域另登记一个
+        private void emitCode(InstructionList target, midCode code) {
+            code.x = storageOf(code.x);
+            code.y = storageOf(code.y);
+            Operand z = storageOf(code.z);
+            if (declaresResult(code) && z != code.z && freshVariables.contains(z)) {
+                TempOperand temp = new TempOperand(nextTemp++);
+                code.z = temp;
+                target.addLast(code);
+                target.addLast(new midCode(midCode.operation.ASSIGNOP, z, temp));
+                return;
+            }
+            code.z = z;
+            target.addLast(code);
+        }
+    }
+}
@@ -1,41 +1,172 @@
 import AST.*;
 import Midcode.midCode;
+import Symbol_table.FuncTable;
+import Symbol_table.IntergerTable;
+import Symbol_table.Symbols.ArraySymbol;
+import Symbol_table.Symbols.FuncSymbol;
+import Symbol_table.Symbols.NorSymbol;
+import Symbol_table.Symbols.VarSymbol;
+import Word.FormatWord;
+import Word.TokenBuffer;
 import Word.Word;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.IntStream;
 
-public class Parsing_mid {
-    // 语法符号枚举，便于后续扩展
-    private enum Symbol {
-        A, IDENFR, INTCON, STRCON, MAINTK, CONSTTK, INTTK, BREAKTK, CONTINUETK, IFTK, ELSETK,
-        NOT, AND, OR, WHILETK, GETINTTK, PRINTFTK, RETURNTK, PLUS, MINU, VOIDTK, MULT, DIV,
-        MOD, LSS, LEQ, GRE, GEQ, EQL, NEQ, ASSIGN, SEMICN, COMMA, LPARENT, RPARENT, LBRACK,
-        RBRACK, LBRACE, RBRACE
-    }
+import static Word.TokenKind.*;
 
+/**
+ * 前端语法分析器 - 一遍递归下降同时完成AST构建与语义检查
+ *
+ * 在构建AST的同一次遍历中维护函数表和变量作用域链，检查重定义、未定义、
+ * 参数个数与类型、常量赋值、返回语句、循环外 break/continue、printf 参数个数以及
+ * 缺少 ; ) ] 等错误。只有 {@link #hasErrors()} 为 false 时才能继续 {@link #analyse()}。
+ */
+public class Parsing_mid {
     // 中间代码序列
     private ArrayList<midCode> midCodes = new ArrayList<>();
     // 字符串常量池
     private LinkedList<String> stringPool = new LinkedList<>();
     // AST根节点
     private Program astRoot;
+    // 编译会话
+    private final CompilationContext context;
+    // 语法错误提示的输出位置，并行分析函数体时为各自的缓冲区
+    private PrintStream diagnostics;
     // 词法单元流
-    private ArrayList<Word> tokenStream;
+    private final TokenBuffer tokens;
     // 标签与临时变量计数器
     private int labelCounter = 0;
     private int tempVarCounter = 0;
     private int curIndex = 0;
 
-    public Parsing_mid(ArrayList<Word> tokens) {
-        this.tokenStream = tokens;
+    // 语义检查用的函数表与变量作用域链
+    private FuncTable functionSymbolTable = new FuncTable();
+    private IntergerTable variableSymbolTable = new IntergerTable();
+
+    private static class ErrorInfo {
+        final int lineNumber;
+        final int errorCode;
+
+        ErrorInfo(int line, int code) {
+            this.lineNumber = line;
+            this.errorCode = code;
+        }
+    }
+
+    private final List<ErrorInfo> detectedErrors = new ArrayList<>();
+
+    private int loopNestingLevel = 0;
+    private int currentFunctionReturnType = 0;
+    private boolean withinConditionalConstruct = false;
+    private boolean isLastStatementReturn = false;
+    // 栈顶记录当前实参表达式的数组维度，函数调用时压栈
+    private ArrayList<Integer> dimensionTracker = new ArrayList<>();
+    private int functionDepth = 0;
+    // 最近一次定义成功登记的行号（重定义时为0），用于缺少分号的报错位置
+    private int lastDefLine = 0;
+    // 最近一次 LVal 解析到的符号及其出现的行号
+    private NorSymbol resolvedSymbol;
+    private int resolvedLine;
+    // 最近一次 Block 的右花括号所在行
+    private int lastBlockEndLine;
+    // 已创建的AST节点个数
+    private int nodeCount = 0;
+    // 是否按函数并行分析函数体
+    private boolean parallelFunctions = false;
+
+    // 已完成函数头分析、等待分析函数体的函数
+    private static class FunctionUnit {
+        final int returnType;
+        final Id id;
+        final ArrayList<Fparam> params;
+        final boolean isMain;
+        // 函数体所在的作用域：普通函数为参数所在的作用域，main 为全局作用域
+        final IntergerTable scope;
+        // 函数体中可见的函数：它自己及之前登记的函数
+        FuncTable functions;
+        // 函数体的词法单元范围 [bodyStart, bodyEnd)，由花括号匹配得到
+        int bodyStart;
+        int bodyEnd;
+        // 函数头产生的错误在 detectedErrors 中的范围
+        int errorsFrom;
+        int errorsTo;
+        Parsing_mid parser;
+        ByteArrayOutputStream output;
+        Func result;
+        boolean failed = false;
+
+        FunctionUnit(int returnType, Id id, ArrayList<Fparam> params, boolean isMain, IntergerTable scope) {
+            this.returnType = returnType;
+            this.id = id;
+            this.params = params;
+            this.isMain = isMain;
+            this.scope = scope;
+        }
+    }
+
+    public Parsing_mid(TokenBuffer tokens, CompilationContext context) {
+        this.tokens = tokens;
+        this.context = context;
+        this.diagnostics = context.getDiagnostics();
+        this.dimensionTracker.add(0);
+    }
+
+    // 分析一个函数体的工作实例，只读共享冻结的词法单元和全局作用域
+    private Parsing_mid(Parsing_mid parent, FunctionUnit unit) {
+        this.tokens = parent.tokens;
+        this.context = parent.context;
+        this.diagnostics = new PrintStream(unit.output, true);
+        this.dimensionTracker.add(0);
+        this.functionSymbolTable = unit.functions;
+        this.variableSymbolTable = unit.scope;
+        this.curIndex = unit.bodyStart;
+    }
+
+    /**
+     * 打开后，全局声明之后的各个函数先顺序分析函数头，再在 ForkJoinPool 上并行分析函数体，
+     * 结果按源码顺序合并，错误列表、AST和中间代码与顺序分析完全相同。
+     * 需要先读完整个输入，只适合大文件
+     */
+    public void setParallelFunctions(boolean enabled) {
+        this.parallelFunctions = enabled;
+    }
+
+    public boolean hasErrors() {
+        return !detectedErrors.isEmpty();
+    }
+
+    // 按行号输出错误列表，每行 "行号 错误码"
+    public void reportErrors(PrintStream out) {
+        detectedErrors.sort(Comparator.comparingInt(e -> e.lineNumber));
+        for (ErrorInfo error : detectedErrors) {
+            out.println(error.lineNumber + " " + (char) ('a' + error.errorCode));
+        }
     }
 
     public ArrayList<midCode> getMidCodes() {
         return midCodes;
     }
 
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    // 登记新建的AST节点
+    private <T extends Node> T node(T created) {
+        nodeCount++;
+        return created;
+    }
+
     public LinkedList<String> getStrings() {
         return stringPool;
     }
@@ -43,57 +174,195 @@ public class Parsing_mid {
     // 主分析入口
     public void analyse() {
         // astRoot = parseCompUnit();
-        astRoot.gen();
-        midCodes = astRoot.getMidCodes();
+        astRoot.gen(context);
+        midCodes = context.getMidCodes();
         midCodes.add(new midCode(midCode.operation.EXIT, null));
-        stringPool = astRoot.getStringss();
-        printMidCode();
+        stringPool = context.getStrings();
     }
 
-    // 输出中间代码
-    public void printMidCode() {
-        midCodes.forEach(code -> System.out.println(code));
+    // 输出中间代码，每条指令一行
+    public void printMidCode(Writer out) {
+        try {
+            for (midCode code : midCodes) {
+                String line = code.toString();
+                out.write(line != null ? line : "null");
+                out.write(System.lineSeparator());
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
-    // 获取下一个词法单元
+    // 获取下一个词法单元，物化为 Word 供AST使用
     private Word nextToken() {
-        if (curIndex < tokenStream.size()) {
-            return tokenStream.get(curIndex++);
+        if (tokens.has(curIndex)) {
+            Word word = tokens.word(curIndex);
+            skipToken();
+            return word;
         }
         return new Word();
     }
 
-    // 查看当前词法单元
-    private Word peekToken() {
-        if (curIndex < tokenStream.size())
-            return tokenStream.get(curIndex);
-        return new Word();
+    // 跳过当前词法单元，之前的词法单元不会再被访问
+    private void skipToken() {
+        if (tokens.has(curIndex)) {
+            curIndex++;
+            tokens.release(curIndex);
+        }
     }
 
-    // 查看指定位置的词法单元
-    private Word peekToken(int pos) {
-        if (pos < tokenStream.size())
-            return tokenStream.get(pos);
-        return new Word();
-    } // 错误报告
+    // 跳过当前词法单元并返回其类别
+    private int nextKind() {
+        int kind = tokens.kind(curIndex);
+        skipToken();
+        return kind;
+    }
+
+    // 查看当前词法单元的类别
+    private int peekKind() {
+        return tokens.kind(curIndex);
+    }
+
+    // 查看当前词法单元所在行
+    private int peekLine() {
+        return tokens.line(curIndex);
+    }
+
+    private boolean isExpressionStart(int kind) {
+        return kind == LPARENT || kind == PLUS || kind == MINU || kind == NOT || kind == IDENFR || kind == INTCON;
+    }
+
+    // 错误报告
+    private void indicateSyntaxErrorPosition() {
+        diagnostics.print("---------------SYNTAX ERROR DETECTED-------------");
+    }
 
-    private void reportError() {
-        System.out.print("---Syntax Error---");
+    private void recordError(int errorCode, int lineNumber) {
+        detectedErrors.add(new ErrorInfo(lineNumber, errorCode));
     }
 
+
     public void CompUnit() {
         LinkedList<Decl> decls = new LinkedList<>();
         LinkedList<Func> funcs = new LinkedList<>();
-        while (!peekToken(curIndex + 2).getContent().equals("("))
+        while (tokens.has(curIndex + 2) && tokens.kind(curIndex + 2) != LPARENT)
             decls.add(Decl());
-        while (!peekToken(curIndex + 1).getContent().equals("main"))
-            funcs.add(FuncDef());
-        funcs.add(MainFuncDef());
-        astRoot = new Program(decls, funcs);
+        if (!parallelFunctions || !parseFunctionsInParallel(funcs)) {
+            while (tokens.has(curIndex + 1) && tokens.kind(curIndex + 1) != MAINTK)
+                funcs.add(FuncDef());
+            funcs.add(MainFuncDef());
+        }
+        astRoot = node(new Program(decls, funcs));
+    }
+
+    /*
+     * 并行分析各函数
+     * 函数头按顺序分析并登记到函数表，函数体的范围由花括号匹配确定；
+     * 每个函数体看到的函数表是只含它自己及之前函数的视图，全局作用域此时已经不再变化。
+     * 函数体只能在匹配到的右花括号处结束才与顺序分析等价，否则撤销全部结果，返回 false 改为顺序分析
+     */
+    private boolean parseFunctionsInParallel(LinkedList<Func> funcs) {
+        tokens.freeze();
+        int regionStart = curIndex;
+        int errorMark = detectedErrors.size();
+        int nodeMark = nodeCount;
+        FuncTable functionsBefore = functionSymbolTable;
+        PrintStream out = diagnostics;
+        ByteArrayOutputStream headerOutput = new ByteArrayOutputStream();
+        functionSymbolTable = functionsBefore.copy();
+        diagnostics = new PrintStream(headerOutput, true);
+
+        List<FunctionUnit> units = new ArrayList<>();
+        boolean matched = true;
+        boolean reachedMain = false;
+        while (!reachedMain) {
+            reachedMain = !(tokens.has(curIndex + 1) && tokens.kind(curIndex + 1) != MAINTK);
+            int errorsFrom = detectedErrors.size();
+            FunctionUnit unit = reachedMain ? MainFuncHeader() : FuncHeader();
+            variableSymbolTable = unit.isMain ? unit.scope : unit.scope.getOut();
+            unit.errorsFrom = errorsFrom;
+            unit.errorsTo = detectedErrors.size();
+            unit.functions = functionSymbolTable.visibleUpTo(functionSymbolTable.size());
+            unit.bodyStart = curIndex;
+            unit.bodyEnd = matchBraces(curIndex);
+            units.add(unit);
+            if (unit.bodyEnd < 0) {
+                matched = false;
+                break;
+            }
+            curIndex = unit.bodyEnd;
+        }
+
+        if (matched) {
+            for (FunctionUnit unit : units) {
+                unit.output = new ByteArrayOutputStream();
+                unit.parser = new Parsing_mid(this, unit);
+            }
+            IntStream.range(0, units.size()).parallel().forEach(i -> {
+                FunctionUnit unit = units.get(i);
+                try {
+                    unit.result = unit.parser.FuncBody(unit);
+                } catch (RuntimeException | StackOverflowError e) {
+                    unit.failed = true;
+                }
+            });
+            for (FunctionUnit unit : units) {
+                if (unit.failed || unit.parser.curIndex != unit.bodyEnd) {
+                    matched = false;
+                }
+            }
+        }
+
+        diagnostics = out;
+        if (!matched) {
+            detectedErrors.subList(errorMark, detectedErrors.size()).clear();
+            nodeCount = nodeMark;
+            functionSymbolTable = functionsBefore;
+            curIndex = regionStart;
+            return false;
+        }
+
+        // 每个函数的错误按"函数头、函数体"的顺序排列，与顺序分析时记录的先后一致
+        List<ErrorInfo> headerErrors = new ArrayList<>(detectedErrors.subList(errorMark, detectedErrors.size()));
+        detectedErrors.subList(errorMark, detectedErrors.size()).clear();
+        copyOutput(headerOutput, out);
+        for (FunctionUnit unit : units) {
+            detectedErrors.addAll(headerErrors.subList(unit.errorsFrom - errorMark, unit.errorsTo - errorMark));
+            detectedErrors.addAll(unit.parser.detectedErrors);
+            nodeCount += unit.parser.nodeCount;
+            copyOutput(unit.output, out);
+            funcs.add(unit.result);
+        }
+        return true;
+    }
+
+    // 没有提示信息时不写，以免创建空的输出文件
+    private static void copyOutput(ByteArrayOutputStream buffer, PrintStream out) {
+        if (buffer.size() > 0) {
+            out.write(buffer.toByteArray(), 0, buffer.size());
+        }
+    }
+
+    // 从函数体的左花括号开始匹配，返回对应右花括号的下一个下标，不是左花括号或找不到匹配时返回 -1
+    private int matchBraces(int open) {
+        if (tokens.kind(open) != LBRACE) {
+            return -1;
+        }
+        int depth = 0;
+        for (int index = open; tokens.has(index); index++) {
+            int kind = tokens.kind(index);
+            if (kind == LBRACE) {
+                depth++;
+            } else if (kind == RBRACE && --depth == 0) {
+                return index + 1;
+            }
+        }
+        return -1;
     }
 
     private Decl Decl() {
-        if (peekToken().getContent().equals("const")) {
+        if (peekKind() == CONSTTK) {
             return ConstDecl();
         } else {
             return VarDecl();
@@ -102,25 +371,46 @@ public class Parsing_mid {
 
     private Decl ConstDecl() {
         LinkedList<Def> defs = new LinkedList<>();
-        if (nextToken().getContent().equals("const")) {
+        if (nextKind() == CONSTTK) {
             BType();
             defs.add(ConstDef());
-            while (peekToken().getContent().equals(",")) {
-                nextToken();
+            while (peekKind() == COMMA) {
+                skipToken();
                 defs.add(ConstDef());
             }
-            if (!nextToken().getContent().equals(";")) {
-                reportError();
+            if (peekKind() == SEMICN) {
+                skipToken();
+            } else {
+                recordError(8, lastDefLine);
             }
         } else {
-            reportError();
+            indicateSyntaxErrorPosition();
         }
-        return new Decl(defs, true);
+        return node(new Decl(defs, true));
     }
 
     private void BType() {
-        if (!nextToken().getContent().equals("int")) {
-            reportError();
+        if (nextKind() != INTTK) {
+            indicateSyntaxErrorPosition();
+        }
+    }
+
+    // 在当前作用域登记常量或变量，重名时报错
+    private void defineVariable(Word w, int count, boolean isConst) {
+        String name = w.getContent();
+        lastDefLine = 0;
+        if (variableSymbolTable.contains(name)) {
+            recordError(1, w.getLine());
+        } else {
+            NorSymbol sym;
+            if (count == 0) {
+                sym = new VarSymbol(name, isConst);
+            } else {
+                sym = new ArraySymbol(name, isConst, count);
+            }
+            sym.setLine(w.getLine());
+            variableSymbolTable.add(name, sym);
+            lastDefLine = w.getLine();
         }
     }
 
@@ -130,48 +420,54 @@ public class Parsing_mid {
         Expr expr1 = null;
         Expr expr2 = null;
         ArrayList<Expr> exprs = new ArrayList<>();
-        if (w.getSymnumber() == 1) {
+        lastDefLine = 0;
+        if (w.getSymnumber() == IDENFR) {
             int count = 0;
-            while (peekToken().getContent().equals("[")) {
+            while (peekKind() == LBRACK) {
                 count++;
-                nextToken();
+                int bracketLine = peekLine();
+                skipToken();
+                Expr expr = ConstExp();
                 if (count == 1)
-                    expr1 = ConstExp();
+                    expr1 = expr;
                 else if (count == 2)
-                    expr2 = ConstExp();
-                if (!nextToken().getContent().equals("]")) {
-                    reportError();
+                    expr2 = expr;
+                if (peekKind() == RBRACK) {
+                    skipToken();
+                } else {
+                    recordError(10, bracketLine);
                 }
             }
             if (count == 0)
-                lval = new Id(w);
+                lval = node(new Id(w));
             else if (count == 1)
-                lval = new Array(w, expr1);
+                lval = node(new Array(w, expr1));
             else
-                lval = new Array(w, expr1, expr2);
-            if (!nextToken().getContent().equals("=")) {
-                reportError();
+                lval = node(new Array(w, expr1, expr2));
+            if (nextKind() != ASSIGN) {
+                indicateSyntaxErrorPosition();
             }
             ConstInitVal(exprs);
+            defineVariable(w, count, true);
         } else {
-            reportError();
+            indicateSyntaxErrorPosition();
         }
-        return new ConstDef(lval, exprs);
+        return node(new ConstDef(lval, exprs));
     }
 
     private void ConstInitVal(ArrayList<Expr> exprs) {
-        if (peekToken().getContent().equals("{")) {
-            nextToken();
-            if (peekToken().getContent().equals("}")) {
-                nextToken();
+        if (peekKind() == LBRACE) {
+            skipToken();
+            if (peekKind() == RBRACE) {
+                skipToken();
             } else {
                 ConstInitVal(exprs);
-                while (peekToken().getContent().equals(",")) {
-                    nextToken();
+                while (peekKind() == COMMA) {
+                    skipToken();
                     ConstInitVal(exprs);
                 }
-                if (!nextToken().getContent().equals("}")) {
-                    reportError();
+                if (nextKind() != RBRACE) {
+                    indicateSyntaxErrorPosition();
                 }
             }
         } else {
@@ -183,14 +479,16 @@ public class Parsing_mid {
         LinkedList<Def> defs = new LinkedList<>();
         BType();
         defs.add(VarDef());
-        while (peekToken().getContent().equals(",")) {
-            nextToken();
+        while (peekKind() == COMMA) {
+            skipToken();
             defs.add(VarDef());
         }
-        if (!nextToken().getContent().equals(";")) {
-            reportError();
+        if (peekKind() == SEMICN) {
+            skipToken();
+        } else {
+            recordError(8, lastDefLine);
         }
-        return new Decl(defs, false);
+        return node(new Decl(defs, false));
     }
 
     private Def VarDef() {
@@ -200,50 +498,56 @@ public class Parsing_mid {
         Expr expr1 = null;
         Expr expr2 = null;
         ArrayList<ArrayList<Expr>> exprs = new ArrayList<>();
-        if (w.getSymnumber() == 1) {
+        lastDefLine = 0;
+        if (w.getSymnumber() == IDENFR) {
             int count = 0;
-            while (peekToken().getContent().equals("[")) {
+            while (peekKind() == LBRACK) {
                 count++;
-                nextToken();
+                int bracketLine = peekLine();
+                skipToken();
+                Expr expr = ConstExp();
                 if (count == 1)
-                    expr1 = ConstExp();
+                    expr1 = expr;
                 else if (count == 2)
-                    expr2 = ConstExp();
-                if (!nextToken().getContent().equals("]")) {
-                    reportError();
+                    expr2 = expr;
+                if (peekKind() == RBRACK) {
+                    skipToken();
+                } else {
+                    recordError(10, bracketLine);
                 }
             }
             if (count == 0)
-                lval = new Id(w);
+                lval = node(new Id(w));
             else if (count == 1)
-                lval = new Array(w, expr1);
+                lval = node(new Array(w, expr1));
             else
-                lval = new Array(w, expr1, expr2);
-            if (peekToken().getContent().equals("=")) {
-                nextToken();
+                lval = node(new Array(w, expr1, expr2));
+            if (peekKind() == ASSIGN) {
+                skipToken();
                 InitVal(exprs, level);
             }
+            defineVariable(w, count, false);
         } else {
-            reportError();
+            indicateSyntaxErrorPosition();
         }
-        return new VarDef(lval, exprs);
+        return node(new VarDef(lval, exprs));
     }
 
     private void InitVal(ArrayList<ArrayList<Expr>> exprs, int level) {
-        if (peekToken().getContent().equals("{")) {
+        if (peekKind() == LBRACE) {
             if (level == 1)
                 exprs.add(new ArrayList<>());
-            nextToken();
-            if (peekToken().getContent().equals("}")) {
-                nextToken();
+            skipToken();
+            if (peekKind() == RBRACE) {
+                skipToken();
             } else {
                 InitVal(exprs, level + 1);
-                while (peekToken().getContent().equals(",")) {
-                    nextToken();
+                while (peekKind() == COMMA) {
+                    skipToken();
                     InitVal(exprs, level + 1);
                 }
-                if (!nextToken().getContent().equals("}")) {
-                    reportError();
+                if (nextKind() != RBRACE) {
+                    indicateSyntaxErrorPosition();
                 }
             }
         } else {
@@ -255,101 +559,177 @@ public class Parsing_mid {
     }
 
     private Func FuncDef() {
+        return FuncBody(FuncHeader());
+    }
+
+    // 函数头：返回类型、函数名和形参，分析完后函数已登记，当前作用域为形参所在的作用域
+    private FunctionUnit FuncHeader() {
+        IntergerTable newtable = new IntergerTable();
+        newtable.setOut(variableSymbolTable);
+        variableSymbolTable = newtable;
+
         int functype = FuncType();
-        Id id = new Id(nextToken());
+        Word w = nextToken();
+        String name = w.getContent();
+        Id id = node(new Id(w));
         ArrayList<Fparam> paras = new ArrayList<>();
-        Block block;
-        if (!nextToken().getContent().equals("(")) {
-            reportError();
+        ArrayList<NorSymbol> paraSymbols = new ArrayList<>();
+        if (w.getSymnumber() != IDENFR) {
+            indicateSyntaxErrorPosition();
         }
-        if (peekToken().getContent().equals(")")) {
-            nextToken();
-            block = Block();
+        int parenLine = peekLine();
+        skipToken();
+
+        if (peekKind() == RPARENT) {
+            skipToken();
+        } else if (peekKind() == LBRACE) {
+            recordError(9, parenLine);
         } else {
-            paras = FuncFParams();
-            if (!nextToken().getContent().equals(")")) {
-                reportError();
+            paras = FuncFParams(paraSymbols);
+            if (peekKind() == RPARENT) {
+                skipToken();
+            } else {
+                recordError(9, parenLine);
             }
-            block = Block();
         }
-        return new Func(functype, id, paras, block);
+
+        if (functionSymbolTable.contains(name)) {
+            recordError(1, w.getLine());
+        } else {
+            functionSymbolTable.add(name, new FuncSymbol(name, paraSymbols, functype));
+        }
+        return new FunctionUnit(functype, id, paras, false, newtable);
     }
 
-    private Func MainFuncDef() {
-        nextToken();
-        nextToken();
-        nextToken();
-        nextToken();
+    // 函数体：在函数头建立的作用域中分析代码块，并检查有返回值的函数最后是否有 return
+    private Func FuncBody(FunctionUnit unit) {
+        currentFunctionReturnType = unit.returnType;
+        functionDepth = unit.isMain ? 0 : 1;
         Block block = Block();
-        return new Func(1, new Id(new Word("main")), new ArrayList<>(), block, true);
+        if (unit.returnType == 1 && !isLastStatementReturn)
+            recordError(6, lastBlockEndLine);
+        if (unit.isMain) {
+            return node(new Func(1, unit.id, unit.params, block, true));
+        }
+        return node(new Func(unit.returnType, unit.id, unit.params, block));
+    }
+
+    private Func MainFuncDef() {
+        return FuncBody(MainFuncHeader());
+    }
+
+    private FunctionUnit MainFuncHeader() {
+        skipToken();
+        skipToken();
+        int parenLine = peekLine();
+        skipToken();
+        if (peekKind() == RPARENT) {
+            skipToken();
+        } else {
+            recordError(9, parenLine);
+        }
+        return new FunctionUnit(1, node(new Id(new Word("main"))), new ArrayList<>(), true, variableSymbolTable);
     }
 
     private int FuncType() {
-        String s = nextToken().getContent();
-        if (s.equals("void"))
+        int kind = nextKind();
+        if (kind == VOIDTK)
             return 0;
-        else if (s.equals("int"))
+        else if (kind == INTTK)
             return 1;
         else
             return -1;
     }
 
-    private ArrayList<Fparam> FuncFParams() {
+    private ArrayList<Fparam> FuncFParams(ArrayList<NorSymbol> symbols) {
         ArrayList<Fparam> list = new ArrayList<>();
-        list.add(FuncFParam());
-        while (peekToken().getContent().equals(",")) {
-            nextToken();
-            list.add(FuncFParam());
+        list.add(FuncFParam(symbols));
+        while (peekKind() == COMMA) {
+            skipToken();
+            list.add(FuncFParam(symbols));
         }
         return list;
     }
 
-    private Fparam FuncFParam() {
+    private Fparam FuncFParam(ArrayList<NorSymbol> symbols) {
         BType();
         int count = 0;
         Expr expr = null;
-        Id id = new Id(nextToken());
-        if (peekToken().getContent().equals("[")) {
+        Word w = nextToken();
+        String name = w.getContent();
+        if (w.getSymnumber() != IDENFR)
+            indicateSyntaxErrorPosition();
+        if (peekKind() == LBRACK) {
             count++;
-            nextToken();
-            if (!nextToken().getContent().equals("]"))
-                reportError();
-            while (peekToken().getContent().equals("[")) {
+            int bracketLine = peekLine();
+            skipToken();
+            if (peekKind() == RBRACK) {
+                skipToken();
+            } else {
+                recordError(10, bracketLine);
+            }
+            while (peekKind() == LBRACK) {
                 count++;
-                nextToken();
+                bracketLine = peekLine();
+                skipToken();
                 expr = ConstExp();
-                if (!nextToken().getContent().equals("]"))
-                    reportError();
+                if (peekKind() == RBRACK) {
+                    skipToken();
+                } else {
+                    recordError(10, bracketLine);
+                }
             }
         }
-        return new Fparam(id, count, expr);
+        if (variableSymbolTable.contains(name)) {
+            recordError(1, w.getLine());
+        }
+        NorSymbol sym;
+        if (count == 0) {
+            sym = new VarSymbol(name, false);
+        } else {
+            sym = new ArraySymbol(name, false, count);
+        }
+        variableSymbolTable.add(name, sym);
+        symbols.add(sym);
+        return node(new Fparam(node(new Id(w)), count, expr));
     }
 
+    // 函数体的作用域在 FuncDef 中已经建立，其余代码块各自新建一层作用域
     private Block Block() {
         ArrayList<BlockItem> items = new ArrayList<>();
-        if (!nextToken().getContent().equals("{")) {
-            reportError();
-        }
-        if (peekToken().getContent().equals("}")) {
-            nextToken();
+        skipToken();
+        if (peekKind() == RBRACE) {
+            isLastStatementReturn = false;
+            lastBlockEndLine = peekLine();
+            skipToken();
+            if (functionDepth == 1) {
+                functionDepth = 0;
+                variableSymbolTable = variableSymbolTable.getOut();
+            }
         } else {
-            BlockItem item = BlockItem();
-            if (item != null) {
-                items.add(item);
+            if (functionDepth == 1) {
+                functionDepth = 0;
+            } else {
+                IntergerTable newtable = new IntergerTable();
+                newtable.setOut(variableSymbolTable);
+                variableSymbolTable = newtable;
             }
-            while (!peekToken().getContent().equals("}")) {
-                item = BlockItem();
+            do {
+                isLastStatementReturn = false;
+                BlockItem item = BlockItem();
                 if (item != null) {
                     items.add(item);
                 }
-            }
-            nextToken();
+            } while (peekKind() != RBRACE);
+            lastBlockEndLine = peekLine();
+            skipToken();
+            variableSymbolTable = variableSymbolTable.getOut();
         }
-        return new Block(items);
+        return node(new Block(items));
     }
 
     private BlockItem BlockItem() {
-        if (peekToken().getContent().equals("int") || peekToken().getContent().equals("const")) {
+        if (peekKind() == INTTK || peekKind() == CONSTTK) {
             return Decl();
         } else {
             return Stmt();
@@ -357,132 +737,194 @@ public class Parsing_mid {
     }
 
     private Stmt Stmt() {
-        if (peekToken().getContent().equals("if")) {
+        if (peekKind() == IFTK) {
+            withinConditionalConstruct = true;
             Stmt stmt2 = null;
-            nextToken();
-            if (!nextToken().getContent().equals("("))
-                reportError();
+            int line = peekLine();
+            skipToken();
+            if (nextKind() != LPARENT)
+                indicateSyntaxErrorPosition();
             Or or = Cond();
-            if (!nextToken().getContent().equals(")"))
-                reportError();
+            if (peekKind() == RPARENT) {
+                skipToken();
+            } else {
+                recordError(9, line);
+            }
             Stmt stmt1 = Stmt();
-            if (peekToken().getContent().equals("else")) {
-                nextToken();
+            if (peekKind() == ELSETK) {
+                skipToken();
                 stmt2 = Stmt();
             }
-            return new If(or, stmt1, stmt2);
-        } else if (peekToken().getContent().equals("{")) {
-            return Block();
-        } else if (peekToken().getContent().equals("while")) {
-            nextToken();
-            if (!nextToken().getContent().equals("("))
-                reportError();
+            withinConditionalConstruct = false;
+            return node(new If(or, stmt1, stmt2));
+        } else if (peekKind() == LBRACE) {
+            withinConditionalConstruct = true;
+            Block block = Block();
+            withinConditionalConstruct = false;
+            return block;
+        } else if (peekKind() == WHILETK) {
+            withinConditionalConstruct = true;
+            int line = peekLine();
+            skipToken();
+            if (nextKind() != LPARENT)
+                indicateSyntaxErrorPosition();
             Or or = Cond();
-            if (!nextToken().getContent().equals(")"))
-                reportError();
-            Stmt stmt = Stmt();
-            return new While(or, stmt);
-        } else if (peekToken().getContent().equals("break") || peekToken().getContent().equals("continue")) {
-            int flag = 0;
-            if (nextToken().getContent().equals("break")) {
-                flag = 1;
+            if (peekKind() == RPARENT) {
+                skipToken();
+            } else {
+                recordError(9, line);
             }
-            if (!nextToken().getContent().equals(";")) {
-                reportError();
+            loopNestingLevel++;
+            Stmt stmt = Stmt();
+            loopNestingLevel--;
+            withinConditionalConstruct = false;
+            return node(new While(or, stmt));
+        } else if (peekKind() == BREAKTK || peekKind() == CONTINUETK) {
+            int kind = peekKind();
+            int line = peekLine();
+            skipToken();
+            if (loopNestingLevel == 0)
+                recordError(12, line);
+            if (peekKind() == SEMICN) {
+                skipToken();
+            } else {
+                recordError(8, line);
             }
-            if (flag == 1) {
-                return new Break();
+            if (kind == BREAKTK) {
+                return node(new Break());
             } else {
-                return new Continue();
+                return node(new Continue());
             }
-        } else if (peekToken().getContent().equals("return")) {
+        } else if (peekKind() == RETURNTK) {
+            if (!withinConditionalConstruct)
+                isLastStatementReturn = true;
             Expr expr = null;
-            nextToken();
-            if (peekToken().getContent().equals(";")) {
-                nextToken();
-            } else {
+            int line = peekLine();
+            skipToken();
+            if (isExpressionStart(peekKind())) {
                 expr = Exp();
-                if (!nextToken().getContent().equals(";"))
-                    reportError();
+                if (currentFunctionReturnType == 0)
+                    recordError(5, line);
             }
-            return new Ret(expr);
-        } else if (peekToken().getContent().equals("printf")) {
-            Word format;
+            if (peekKind() == SEMICN) {
+                skipToken();
+            } else {
+                recordError(8, line);
+            }
+            return node(new Ret(expr));
+        } else if (peekKind() == PRINTFTK) {
             ArrayList<Expr> exprs = new ArrayList<>();
-            nextToken();
-            if (!nextToken().getContent().equals("("))
-                reportError();
-            format = nextToken();
-            while (peekToken().getContent().equals(",")) {
-                nextToken();
+            int line = peekLine();
+            skipToken();
+            if (nextKind() != LPARENT)
+                indicateSyntaxErrorPosition();
+            FormatWord format = (FormatWord) nextToken();
+            if (!format.isCorrect())
+                recordError(0, format.getLine());
+            while (peekKind() == COMMA) {
+                skipToken();
                 exprs.add(Exp());
             }
-            if (!nextToken().getContent().equals(")"))
-                reportError();
-            if (!nextToken().getContent().equals(";"))
-                reportError();
-            return new Print(format, exprs);
-        } else if (peekToken().getContent().equals(";")) {
-            nextToken();
-        } else if (peekToken().getSymnumber() == 1) {
-            int flag1 = 0;
-            if (peekToken(curIndex + 1).getContent().equals("=")) {
-                flag1 = 1;
-            } else if (peekToken(curIndex + 1).getContent().equals("(")) {
-                flag1 = 2;
-            } else if (peekToken(curIndex + 1).getContent().equals("[")) {
-                int k = curIndex + 1;
-                while (peekToken(k).getContent().equals("[")) {
-                    k++;
-                    int level = 1;
-                    while (level > 0) {
-                        if (peekToken(k).getContent().equals("["))
-                            level++;
-                        else if (peekToken(k).getContent().equals("]"))
-                            level--;
-                        k++;
-                    }
-                }
-                if (peekToken(k).getContent().equals("="))
-                    flag1 = 1;
-                else
-                    flag1 = 2;
+            if (peekKind() == RPARENT) {
+                skipToken();
+            } else {
+                recordError(9, format.getLine());
+            }
+            if (peekKind() == SEMICN) {
+                skipToken();
             } else {
-                flag1 = 2;
-            }
-            if (flag1 == 1) {
-                Lval lval = (Lval) LVal();
-                nextToken();
-                if (peekToken().getContent().equals("getint")) {
-                    nextToken();
-                    if (!nextToken().getContent().equals("("))
-                        reportError();
-                    if (!nextToken().getContent().equals(")"))
-                        reportError();
-                    if (!nextToken().getContent().equals(";"))
-                        reportError();
-                    return new Scanf(lval);
+                recordError(8, format.getLine());
+            }
+            if (format.getNum() != exprs.size())
+                recordError(11, line);
+            return node(new Print(format, exprs));
+        } else if (peekKind() == SEMICN) {
+            skipToken();
+        } else if (peekKind() == IDENFR && isAssignment()) {
+            Lval lval = LVal();
+            if (resolvedSymbol.isConst()) {
+                recordError(7, resolvedLine);
+            }
+            int line = peekLine();
+            skipToken();
+            if (peekKind() == GETINTTK) {
+                skipToken();
+                if (nextKind() != LPARENT)
+                    indicateSyntaxErrorPosition();
+                if (peekKind() == RPARENT) {
+                    skipToken();
                 } else {
-                    Expr expr = Exp();
-                    if (!nextToken().getContent().equals(";"))
-                        reportError();
-                    return new Assign(lval, expr);
+                    recordError(9, line);
                 }
+                if (peekKind() == SEMICN) {
+                    skipToken();
+                } else {
+                    recordError(8, line);
+                }
+                return node(new Scanf(lval));
             } else {
                 Expr expr = Exp();
-                if (!nextToken().getContent().equals(";"))
-                    reportError();
-                return expr;
+                if (peekKind() == SEMICN) {
+                    skipToken();
+                } else {
+                    recordError(8, line);
+                }
+                return node(new Assign(lval, expr));
             }
         } else {
+            int line = peekLine();
             Expr expr = Exp();
-            if (!nextToken().getContent().equals(";"))
-                reportError();
+            if (peekKind() == SEMICN) {
+                skipToken();
+            } else {
+                recordError(8, line);
+            }
             return expr;
         }
         return null;
     }
 
+    // 以标识符开头的语句向前看到 = 或 ; 为止，判断是赋值还是表达式语句
+    private boolean isAssignment() {
+        int flag1 = 0;
+        if (tokens.kind(curIndex + 1) == ASSIGN) {
+            flag1 = 1;
+        } else if (tokens.kind(curIndex + 1) == LPARENT) {
+            flag1 = 2;
+        } else if (tokens.kind(curIndex + 1) == LBRACK) {
+            int k = curIndex + 1;
+            while (tokens.kind(k) == LBRACK) {
+                k++;
+                int level = 1;
+                while (level > 0) {
+                    if (tokens.kind(k) == LBRACK)
+                        level++;
+                    else if (tokens.kind(k) == RBRACK)
+                        level--;
+                    else if (tokens.kind(k) == ASSIGN) {
+                        flag1 = 1;
+                        break;
+                    } else if (tokens.kind(k) == SEMICN) {
+                        flag1 = 2;
+                        break;
+                    }
+                    k++;
+                }
+                if (flag1 > 0)
+                    break;
+            }
+            if (flag1 == 0) {
+                if (tokens.kind(k) == ASSIGN)
+                    flag1 = 1;
+                else
+                    flag1 = 2;
+            }
+        } else {
+            flag1 = 2;
+        }
+        return flag1 == 1;
+    }
+
     private Expr Exp() {
         return AddExp();
     }
@@ -491,71 +933,130 @@ public class Parsing_mid {
         return LOrExp();
     }
 
-    private Expr LVal() {
+    private Lval LVal() {
         Word id = nextToken();
+        String name = id.getContent();
         int flag = 0;
         Expr exp1 = null;
         Expr exp2 = null;
-        while (peekToken().getContent().equals("[")) {
+        if (id.getSymnumber() != IDENFR)
+            indicateSyntaxErrorPosition();
+
+        NorSymbol sym = null;
+        IntergerTable table = variableSymbolTable;
+        while (table != null) {
+            if (table.contains(name)) {
+                sym = table.get(name);
+                break;
+            }
+            table = table.getOut();
+        }
+        if (sym == null) {
+            recordError(2, id.getLine());
+            sym = new NorSymbol();
+        }
+
+        int arrayLevel = sym.getLevel();
+        while (peekKind() == LBRACK) {
             flag++;
-            nextToken();
+            arrayLevel--;
+            int bracketLine = peekLine();
+            skipToken();
+            Expr expr = Exp();
             if (flag == 1)
-                exp1 = Exp();
+                exp1 = expr;
             else if (flag == 2)
-                exp2 = Exp();
-            if (!nextToken().getContent().equals("]")) {
-                reportError();
+                exp2 = expr;
+            if (peekKind() == RBRACK) {
+                skipToken();
+            } else {
+                recordError(10, bracketLine);
             }
         }
+        dimensionTracker.set(0, Math.max(dimensionTracker.get(0), arrayLevel));
+        resolvedSymbol = sym;
+        resolvedLine = id.getLine();
+
         if (flag == 0) {
-            return new Id(id);
+            return node(new Id(id));
         } else if (flag == 1) {
-            return new Array(id, exp1);
+            return node(new Array(id, exp1));
         } else {
-            return new Array(id, exp1, exp2);
+            return node(new Array(id, exp1, exp2));
         }
     }
 
     private Expr PrimaryExp() {
-        if (peekToken().getContent().equals("(")) {
-            nextToken();
+        if (peekKind() == LPARENT) {
+            int line = peekLine();
+            skipToken();
             Expr expr = Exp();
-            if (!nextToken().getContent().equals(")")) {
-                reportError();
+            if (peekKind() == RPARENT) {
+                skipToken();
+            } else {
+                recordError(9, line);
             }
             return expr;
-        } else if (peekToken().getSymnumber() == 1) {
+        } else if (peekKind() == IDENFR) {
             return LVal();
-        } else if (peekToken().getSymnumber() == 2) {
+        } else if (peekKind() == INTCON) {
             return Number();
         } else {
-            reportError();
+            indicateSyntaxErrorPosition();
         }
         return null;
     }
 
     private Expr Number() {
-        return new Constant(nextToken());
+        return node(new Constant(nextToken()));
     }
 
     private Expr UnaryExp() {
-        String s = peekToken().getContent();
-        if (peekToken().getSymnumber() == 1 && peekToken(curIndex + 1).getContent().equals("(")) {
+        int kind = peekKind();
+        if (kind == IDENFR && tokens.kind(curIndex + 1) == LPARENT) {
             Word w = nextToken();
+            int line = w.getLine();
             ArrayList<Expr> exprs = new ArrayList<>();
-            nextToken();
-            if (peekToken().getContent().equals(")")) {
-                nextToken();
+            FuncSymbol sym = null;
+            if (functionSymbolTable.contains(w.getContent())) {
+                sym = functionSymbolTable.get(w.getContent());
+                if (sym.getReturntype() == 0)
+                    dimensionTracker.set(0, 100);
+            } else {
+                recordError(2, line);
+            }
+            skipToken();
+            if (isExpressionStart(peekKind())) {
+                ArrayList<Integer> Rparas = new ArrayList<>();
+                dimensionTracker.add(0, 0);
+                exprs = FuncRParams(Rparas);
+                dimensionTracker.remove(0);
+                if (sym != null) {
+                    ArrayList<NorSymbol> Fparas = sym.getParams();
+                    if (Rparas.size() != Fparas.size()) {
+                        recordError(3, line);
+                    } else {
+                        for (int i = 0; i < Rparas.size(); i++) {
+                            if (Rparas.get(i) != Fparas.get(i).getLevel()) {
+                                recordError(4, line);
+                                break;
+                            }
+                        }
+                    }
+                }
+            } else if (sym != null && !sym.getParams().isEmpty()) {
+                recordError(3, line);
+            }
+            if (peekKind() == RPARENT) {
+                skipToken();
             } else {
-                exprs = FuncRParams();
-                if (!nextToken().getContent().equals(")"))
-                    reportError();
+                recordError(9, line);
             }
-            return new FuncR(w, exprs);
-        } else if (s.equals("+") || s.equals("-") || s.equals("!")) {
+            return node(new FuncR(w, exprs));
+        } else if (kind == PLUS || kind == MINU || kind == NOT) {
             Word w = UnaryOp();
             Expr expr = UnaryExp();
-            return new Unary(w, expr);
+            return node(new Unary(w, expr));
         } else {
             return PrimaryExp();
         }
@@ -565,12 +1066,17 @@ public class Parsing_mid {
         return nextToken();
     }
 
-    private ArrayList<Expr> FuncRParams() {
+    // 解析实参列表，同时把每个实参的数组维度记入 dims
+    private ArrayList<Expr> FuncRParams(ArrayList<Integer> dims) {
         ArrayList<Expr> exprs = new ArrayList<>();
+        dimensionTracker.set(0, 0);
         exprs.add(Exp());
-        while (peekToken().getContent().equals(",")) {
-            nextToken();
+        dims.add(dimensionTracker.get(0));
+        while (peekKind() == COMMA) {
+            skipToken();
+            dimensionTracker.set(0, 0);
             exprs.add(Exp());
+            dims.add(dimensionTracker.get(0));
         }
         return exprs;
     }
@@ -578,11 +1084,11 @@ public class Parsing_mid {
     private Expr MulExp() {
         Expr expr1 = UnaryExp();
         while (true) {
-            String s = peekToken().getContent();
-            if (s.equals("*") || s.equals("/") || s.equals("%")) {
+            int kind = peekKind();
+            if (kind == MULT || kind == DIV || kind == MOD) {
                 Word w = nextToken();
                 Expr expr2 = UnaryExp();
-                expr1 = new Arith(w, expr1, expr2);
+                expr1 = node(new Arith(w, expr1, expr2));
             } else {
                 break;
             }
@@ -592,10 +1098,10 @@ public class Parsing_mid {
 
     private Expr AddExp() {
         Expr expr1 = MulExp();
-        while (peekToken().getContent().equals("+") || peekToken().getContent().equals("-")) {
+        while (peekKind() == PLUS || peekKind() == MINU) {
             Word w = nextToken();
             Expr expr2 = MulExp();
-            expr1 = new Arith(w, expr1, expr2);
+            expr1 = node(new Arith(w, expr1, expr2));
         }
         return expr1;
     }
@@ -603,11 +1109,11 @@ public class Parsing_mid {
     private Expr RelExp() {
         Expr expr1 = AddExp();
         while (true) {
-            String s = peekToken().getContent();
-            if (s.equals("<") || s.equals(">") || s.equals("<=") || s.equals(">=")) {
+            int kind = peekKind();
+            if (kind == LSS || kind == GRE || kind == LEQ || kind == GEQ) {
                 Word w = nextToken();
                 Expr expr2 = AddExp();
-                expr1 = new Logical(w, expr1, expr2);
+                expr1 = node(new Logical(w, expr1, expr2));
             } else {
                 break;
             }
@@ -617,10 +1123,10 @@ public class Parsing_mid {
 
     private Expr EqExp() {
         Expr expr1 = RelExp();
-        while (peekToken().getContent().equals("==") || peekToken().getContent().equals("!=")) {
+        while (peekKind() == EQL || peekKind() == NEQ) {
             Word w = nextToken();
             Expr expr2 = RelExp();
-            expr1 = new Logical(w, expr1, expr2);
+            expr1 = node(new Logical(w, expr1, expr2));
         }
         return expr1;
     }
@@ -628,21 +1134,21 @@ public class Parsing_mid {
     private And LAndExp() {
         ArrayList<Expr> exprs = new ArrayList<>();
         exprs.add(EqExp());
-        while (peekToken().getContent().equals("&&")) {
-            nextToken();
+        while (peekKind() == AND) {
+            skipToken();
             exprs.add(EqExp());
         }
-        return new And(exprs);
+        return node(new And(exprs));
     }
 
     private Or LOrExp() {
         ArrayList<And> ands = new ArrayList<>();
         ands.add(LAndExp());
-        while (peekToken().getContent().equals("||")) {
-            nextToken();
+        while (peekKind() == OR) {
+            skipToken();
             ands.add(LAndExp());
         }
-        return new Or(ands);
+        return node(new Or(ands));
     }
 
     private Expr ConstExp() {
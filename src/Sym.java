@@ -1,8 +1,11 @@
-import Word.FormatWord;
-import Word.Word;
+import Word.TokenBuffer;
+import Word.TokenKind;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 
 /**
  * 词法解析引擎 - 编译器前端的核心字符流解析器
@@ -10,217 +13,358 @@ import java.util.HashMap;
  * 该类通过有限状态机模式实现源码的词法分析功能
  * 负责将原始字符序列转换为结构化的词法单元流
  * 集成预处理器、关键字识别器和符号分解器等子系统
+ *
+ * 分析过程是"拉取式"的流水线：语法分析器向 {@link TokenBuffer} 要词法单元时，
+ * 词法分析器才从预处理器要字符，预处理器才从输入源读取原始字符。
+ * 原始字符和预处理后的字符都只保存在随分析推进而滑动的小窗口中，
+ * 内存占用只与最长的词法单元和语法分析器的前瞻距离有关，不再随输入大小增长。
  */
-public class Sym {
-    /* 源码字符串缓存 - 保存待分析的完整源代码文本 */
-    private final String sourceCodeBuffer;
+public class Sym implements TokenBuffer.Producer {
+    /* 窗口初始容量 */
+    private static final int WINDOW_SIZE = 8192;
 
-    /* 行号跟踪器 - 维护当前解析位置的行数信息 */
-    private int currentLineNumber = 1;
+    /* 输入源 - Reader 或 CharBuffer */
+    private final Readable source;
+
+    /* 原始字符窗口 - [rawPosition, rawLimit) 为已读入但尚未预处理的字符 */
+    private final char[] rawWindow = new char[WINDOW_SIZE];
+    private int rawPosition = 0;
+    private int rawLimit = 0;
+    private boolean rawExhausted = false;
+
+    /* 预处理状态 - 是否位于字符串字面量内部 */
+    private boolean insideString = false;
 
-    /* 源码字符数组 - 将源码转换为字符序列以便逐字符解析 */
-    private char[] rawCharacterArray;
+    /* 预处理字符窗口 - window[0] 对应预处理后字符流中的绝对位置 windowBase */
+    private char[] window = new char[WINDOW_SIZE];
+    private int windowBase = 0;
+    private int windowLength = 0;
+    private boolean sanitizedExhausted = false;
 
-    /* 预处理字符数组 - 经过注释去除和格式化的字符序列 */
-    private char[] sanitizedCharArray;
+    /* 解析指针 - 预处理后字符流中的绝对位置 */
+    private int streamPointer = 0;
+
+    /* 当前词法单元的起点 - 窗口滑动时只能丢弃它之前的字符 */
+    private int tokenStart = 0;
+
+    /* 分析结束标记 - 遇到结束标记或无法恢复的错误后不再产生词法单元 */
+    private boolean finished = false;
+
+    /* 行号跟踪器 - 维护当前解析位置的行数信息 */
+    private int currentLineNumber = 1;
 
-    /* 预处理字符串 - 清理后的源码字符串表示 */
-    private String cleanedSourceText;
+    /* 词法单元容器 - 以前瞻窗口保存按需生成的词法符号 */
+    private final TokenBuffer tokenBuffer;
 
-    /* 词法单元容器 - 存储解析生成的词法符号序列 */
-    private ArrayList<Word> lexicalTokenList = new ArrayList<>();
+    /* 提示信息输出 - 非法字符等问题写到这里 */
+    private final PrintStream diagnostics;
 
-    /* 保留字映射表 - 关键字到类型编码的快速查找结构 */
-    private HashMap<String, Integer> reservedKeywordMap;
+    /* 操作符查找表 - 下标为 ASCII 字符，值为单字符操作符的类型编码，0 表示不是单字符操作符 */
+    private static final int[] SINGLE_CHAR_OPERATORS = new int[128];
 
-    /* 操作符映射表 - 单字符操作符到类型编码的映射关系 */
-    private HashMap<Character, Integer> operatorSymbolMap;
+    static {
+        SINGLE_CHAR_OPERATORS['+'] = TokenKind.PLUS;
+        SINGLE_CHAR_OPERATORS['-'] = TokenKind.MINU;
+        SINGLE_CHAR_OPERATORS['*'] = TokenKind.MULT;
+        SINGLE_CHAR_OPERATORS['/'] = TokenKind.DIV;
+        SINGLE_CHAR_OPERATORS['%'] = TokenKind.MOD;
+        SINGLE_CHAR_OPERATORS[';'] = TokenKind.SEMICN;
+        SINGLE_CHAR_OPERATORS[','] = TokenKind.COMMA;
+        SINGLE_CHAR_OPERATORS['('] = TokenKind.LPARENT;
+        SINGLE_CHAR_OPERATORS[')'] = TokenKind.RPARENT;
+        SINGLE_CHAR_OPERATORS['['] = TokenKind.LBRACK;
+        SINGLE_CHAR_OPERATORS[']'] = TokenKind.RBRACK;
+        SINGLE_CHAR_OPERATORS['{'] = TokenKind.LBRACE;
+        SINGLE_CHAR_OPERATORS['}'] = TokenKind.RBRACE;
+    }
 
     /**
-     * 词法分析器构造函数 - 初始化并执行完整的词法解析流程
+     * 词法分析器构造函数
      * 
      * @param sourceCode 待分析的源代码字符串
      */
     public Sym(String sourceCode) {
-        initializeTokenMappings();
-        sourceCodeBuffer = sourceCode;
-        rawCharacterArray = sourceCode.toCharArray();
-        performPreprocessing(rawCharacterArray);
-        executeTokenization();
+        this(CharBuffer.wrap(sourceCode));
     }
 
     /**
-     * 获取解析生成的词法单元序列
+     * 词法分析器构造函数 - 从任意字符输入源按需读取
      * 
-     * @return 词法符号列表
+     * @param source 待分析的源代码输入，例如 Reader 或 CharBuffer
      */
-    public ArrayList<Word> getWords() {
-        return lexicalTokenList;
+    public Sym(Readable source) {
+        this(source, System.out);
     }
 
     /**
-     * 源码预处理器 - 执行注释过滤和格式标准化操作
-     * 使用双缓冲区机制进行字符流解析，确保内存安全和解析效率
+     * 词法分析器构造函数 - 指定提示信息的输出位置
      * 
-     * @param characterStream 待解析的原始字符数组
+     * @param source      待分析的源代码输入，例如 Reader 或 CharBuffer
+     * @param diagnostics 非法字符等提示信息的输出位置
      */
-    private void performPreprocessing(char[] characterStream) {
-        char[] processingBuffer = new char[characterStream.length + 1];
-        int bufferIndex = 0;
+    public Sym(Readable source, PrintStream diagnostics) {
+        this.source = source;
+        this.diagnostics = diagnostics;
+        this.tokenBuffer = new TokenBuffer(this);
+    }
 
-        for (int cursor = 0; cursor < characterStream.length; cursor++) {
-            // 单行注释消除逻辑
-            if (cursor + 1 < characterStream.length &&
-                    characterStream[cursor] == '/' && characterStream[cursor + 1] == '/') {
-                while (cursor < characterStream.length && characterStream[cursor] != '\n') {
-                    cursor++;
-                }
-                if (cursor < characterStream.length) {
-                    cursor--; // 回退以便外层循环正确解析换行符
-                }
+    /**
+     * 获取解析生成的词法单元序列
+     * 
+     * @return 按需填充的词法单元流
+     */
+    public TokenBuffer getTokens() {
+        return tokenBuffer;
+    }
+
+    /**
+     * 查看原始输入中当前位置之后第 k 个字符，必要时从输入源补充
+     * 
+     * @return 字符；输入已结束时返回 -1
+     */
+    private int rawAt(int k) {
+        while (rawPosition + k >= rawLimit) {
+            if (rawExhausted) {
+                return -1;
             }
-            // 多行注释消除逻辑
-            else if (cursor + 1 < characterStream.length &&
-                    characterStream[cursor] == '/' && characterStream[cursor + 1] == '*') {
-                cursor += 2;
-                while (cursor + 1 < characterStream.length &&
-                        !(characterStream[cursor] == '*' && characterStream[cursor + 1] == '/')) {
-                    if (characterStream[cursor] == '\n') {
-                        processingBuffer[bufferIndex++] = '\n';
-                    }
-                    cursor++;
-                }
-                if (cursor + 1 < characterStream.length) {
-                    cursor++; // 跳过 '*/'
-                }
-                processingBuffer[bufferIndex++] = ' ';
-                continue;
+            if (rawPosition > 0) {
+                System.arraycopy(rawWindow, rawPosition, rawWindow, 0, rawLimit - rawPosition);
+                rawLimit -= rawPosition;
+                rawPosition = 0;
             }
-            // 字符串字面量保护机制
-            else if (characterStream[cursor] == '"') {
-                processingBuffer[bufferIndex++] = characterStream[cursor++];
-                while (cursor < characterStream.length && characterStream[cursor] != '"') {
-                    processingBuffer[bufferIndex++] = characterStream[cursor++];
+            try {
+                int count = source.read(CharBuffer.wrap(rawWindow, rawLimit, rawWindow.length - rawLimit));
+                if (count < 0) {
+                    rawExhausted = true;
+                } else {
+                    rawLimit += count;
                 }
-                if (cursor < characterStream.length) {
-                    processingBuffer[bufferIndex++] = characterStream[cursor]; // 添加结束引号
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return rawWindow[rawPosition + k];
+    }
+
+    /**
+     * 源码预处理器 - 执行注释过滤和格式标准化操作
+     * 每次处理一段原始输入，把结果追加到预处理字符窗口；
+     * 输入结束时追加流结束标记 '$'
+     */
+    private void sanitizeNext() {
+        int current = rawAt(0);
+        if (current < 0) {
+            // 添加流结束标记
+            emit('$');
+            sanitizedExhausted = true;
+        }
+        // 字符串字面量保护机制
+        else if (insideString) {
+            emit((char) current);
+            rawPosition++;
+            if (current == '"') {
+                insideString = false;
+            }
+        }
+        // 单行注释消除逻辑，换行符留给下一轮正常输出
+        else if (current == '/' && rawAt(1) == '/') {
+            while (rawAt(0) >= 0 && rawAt(0) != '\n') {
+                rawPosition++;
+            }
+        }
+        // 多行注释消除逻辑，保留其中的换行符以维持行号
+        else if (current == '/' && rawAt(1) == '*') {
+            rawPosition += 2;
+            while (rawAt(1) >= 0 && !(rawAt(0) == '*' && rawAt(1) == '/')) {
+                if (rawAt(0) == '\n') {
+                    emit('\n');
                 }
+                rawPosition++;
             }
-            // 标准字符过滤和保留
-            else if (characterStream[cursor] != '\r') {
-                processingBuffer[bufferIndex++] = characterStream[cursor];
+            if (rawAt(1) >= 0) {
+                rawPosition += 2; // 跳过 '*/'
+            } else if (rawAt(0) >= 0) {
+                rawPosition++; // 未闭合的注释吞掉最后一个字符
             }
+            emit(' ');
+        } else if (current == '"') {
+            emit('"');
+            rawPosition++;
+            insideString = true;
         }
+        // 标准字符过滤和保留
+        else {
+            if (current != '\r') {
+                emit((char) current);
+            }
+            rawPosition++;
+        }
+    }
 
-        // 添加流结束标记
-        processingBuffer[bufferIndex++] = '$';
+    // 向预处理字符窗口追加一个字符，窗口满时丢弃当前词法单元之前的字符
+    private void emit(char character) {
+        if (windowLength == window.length) {
+            int discard = tokenStart - windowBase;
+            if (discard > 0) {
+                System.arraycopy(window, discard, window, 0, windowLength - discard);
+                windowBase += discard;
+                windowLength -= discard;
+            } else {
+                window = Arrays.copyOf(window, window.length * 2);
+            }
+        }
+        window[windowLength++] = character;
+    }
 
-        // 构建最终的清理后字符数组
-        char[] finalizedArray = new char[bufferIndex];
-        System.arraycopy(processingBuffer, 0, finalizedArray, 0, bufferIndex);
-        this.sanitizedCharArray = finalizedArray;
-        this.cleanedSourceText = new String(sanitizedCharArray);
+    // 预处理后的字符流在绝对位置 position 处是否有字符，必要时继续预处理
+    private boolean has(int position) {
+        while (position >= windowBase + windowLength) {
+            if (sanitizedExhausted) {
+                return false;
+            }
+            sanitizeNext();
+        }
+        return true;
+    }
+
+    // 读取预处理后字符流中绝对位置 position 的字符，调用前需确认 has(position)
+    private char at(int position) {
+        return window[position - windowBase];
     }
 
     /**
-     * 词汇映射表初始化器 - 构建关键字和操作符的识别字典
-     * 采用哈希表数据结构实现O(1)时间复杂度的符号类型查找
+     * 关键字识别器 - 直接在字符窗口上判断一段标识符是否为保留字
+     * 先按长度、再按首字符分派，最多只比较一个候选关键字，不创建任何字符串
+     * 
+     * @return 保留字的类型编码；不是保留字时返回 {@link TokenKind#IDENFR}
      */
-    private void initializeTokenMappings() {
-        reservedKeywordMap = new HashMap<>();
-        reservedKeywordMap.put("main", 4);
-        reservedKeywordMap.put("const", 5);
-        reservedKeywordMap.put("int", 6);
-        reservedKeywordMap.put("break", 7);
-        reservedKeywordMap.put("continue", 8);
-        reservedKeywordMap.put("if", 9);
-        reservedKeywordMap.put("else", 10);
-        reservedKeywordMap.put("while", 14);
-        reservedKeywordMap.put("getint", 15);
-        reservedKeywordMap.put("printf", 16);
-        reservedKeywordMap.put("return", 17);
-        reservedKeywordMap.put("void", 20);
+    private static int keywordKind(char[] chars, int offset, int length) {
+        switch (length) {
+            case 2:
+                return matches(chars, offset, "if") ? TokenKind.IFTK : TokenKind.IDENFR;
+            case 3:
+                return matches(chars, offset, "int") ? TokenKind.INTTK : TokenKind.IDENFR;
+            case 4:
+                switch (chars[offset]) {
+                    case 'm':
+                        return matches(chars, offset, "main") ? TokenKind.MAINTK : TokenKind.IDENFR;
+                    case 'e':
+                        return matches(chars, offset, "else") ? TokenKind.ELSETK : TokenKind.IDENFR;
+                    case 'v':
+                        return matches(chars, offset, "void") ? TokenKind.VOIDTK : TokenKind.IDENFR;
+                    default:
+                        return TokenKind.IDENFR;
+                }
+            case 5:
+                switch (chars[offset]) {
+                    case 'c':
+                        return matches(chars, offset, "const") ? TokenKind.CONSTTK : TokenKind.IDENFR;
+                    case 'b':
+                        return matches(chars, offset, "break") ? TokenKind.BREAKTK : TokenKind.IDENFR;
+                    case 'w':
+                        return matches(chars, offset, "while") ? TokenKind.WHILETK : TokenKind.IDENFR;
+                    default:
+                        return TokenKind.IDENFR;
+                }
+            case 6:
+                switch (chars[offset]) {
+                    case 'g':
+                        return matches(chars, offset, "getint") ? TokenKind.GETINTTK : TokenKind.IDENFR;
+                    case 'p':
+                        return matches(chars, offset, "printf") ? TokenKind.PRINTFTK : TokenKind.IDENFR;
+                    case 'r':
+                        return matches(chars, offset, "return") ? TokenKind.RETURNTK : TokenKind.IDENFR;
+                    default:
+                        return TokenKind.IDENFR;
+                }
+            case 8:
+                return matches(chars, offset, "continue") ? TokenKind.CONTINUETK : TokenKind.IDENFR;
+            default:
+                return TokenKind.IDENFR;
+        }
+    }
 
-        operatorSymbolMap = new HashMap<>();
-        operatorSymbolMap.put('+', 18);
-        operatorSymbolMap.put('-', 19);
-        operatorSymbolMap.put('*', 21);
-        operatorSymbolMap.put('/', 22);
-        operatorSymbolMap.put('%', 23);
-        operatorSymbolMap.put(';', 31);
-        operatorSymbolMap.put(',', 32);
-        operatorSymbolMap.put('(', 33);
-        operatorSymbolMap.put(')', 34);
-        operatorSymbolMap.put('[', 35);
-        operatorSymbolMap.put(']', 36);
-        operatorSymbolMap.put('{', 37);
-        operatorSymbolMap.put('}', 38);
+    // 比较字符窗口中从 offset 开始的一段是否与关键字逐字符相同（长度已由调用方保证）
+    private static boolean matches(char[] chars, int offset, String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (chars[offset + i] != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * 词法单元提取引擎 - 执行字符流到词法符号的转换过程
      * 采用有限状态机算法识别标识符、数字、字符串和操作符等不同类型的词汇单元
+     * 每次调用至少产生一个词法单元，输入结束时返回 false
      */
-    private void executeTokenization() {
-        int streamPointer = 0;
-        int segmentEnd = 0;
-
-        while (streamPointer < sanitizedCharArray.length && sanitizedCharArray[streamPointer] != '$') {
+    @Override
+    public boolean produceNext(TokenBuffer sink) {
+        while (!finished) {
             // 跳过空白字符和制表符，同时维护行号计数
-            while (streamPointer < sanitizedCharArray.length &&
-                    (sanitizedCharArray[streamPointer] == ' ' ||
-                            sanitizedCharArray[streamPointer] == '\t' ||
-                            sanitizedCharArray[streamPointer] == '\n')) {
-                if (sanitizedCharArray[streamPointer] == '\n')
+            while (has(streamPointer) &&
+                    (at(streamPointer) == ' ' ||
+                            at(streamPointer) == '\t' ||
+                            at(streamPointer) == '\n')) {
+                if (at(streamPointer) == '\n')
                     currentLineNumber++;
                 streamPointer++;
+                tokenStart = streamPointer;
             }
+            tokenStart = streamPointer;
 
-            if (streamPointer >= sanitizedCharArray.length || sanitizedCharArray[streamPointer] == '$')
+            if (!has(streamPointer) || at(streamPointer) == '$') {
+                finished = true;
                 break;
+            }
+
+            int segmentEnd;
+            char current = at(streamPointer);
 
             // 标识符和关键字识别逻辑
-            if (Character.isUpperCase(sanitizedCharArray[streamPointer]) ||
-                    Character.isLowerCase(sanitizedCharArray[streamPointer]) ||
-                    sanitizedCharArray[streamPointer] == '_') {
+            if (Character.isUpperCase(current) || Character.isLowerCase(current) || current == '_') {
                 segmentEnd = streamPointer;
-                while (segmentEnd < sanitizedCharArray.length &&
-                        (Character.isLetterOrDigit(sanitizedCharArray[segmentEnd]) ||
-                                sanitizedCharArray[segmentEnd] == '_')) {
+                while (has(segmentEnd) &&
+                        (Character.isLetterOrDigit(at(segmentEnd)) || at(segmentEnd) == '_')) {
                     segmentEnd++;
                 }
-                String identifierText = cleanedSourceText.substring(streamPointer, segmentEnd);
-                lexicalTokenList.add(new Word(reservedKeywordMap.getOrDefault(identifierText, 1),
-                        identifierText, currentLineNumber));
+                int offset = streamPointer - windowBase;
+                int length = segmentEnd - streamPointer;
+                int kind = keywordKind(window, offset, length);
+                if (kind == TokenKind.IDENFR) {
+                    sink.addInterned(kind, sink.intern(window, offset, length), currentLineNumber);
+                } else {
+                    sink.add(kind, currentLineNumber);
+                }
                 streamPointer = segmentEnd;
+                return true;
             }
             // 数字字面量识别逻辑
-            else if (Character.isDigit(sanitizedCharArray[streamPointer])) {
+            else if (Character.isDigit(current)) {
                 segmentEnd = streamPointer;
-                while (segmentEnd < sanitizedCharArray.length &&
-                        Character.isDigit(sanitizedCharArray[segmentEnd])) {
+                while (has(segmentEnd) && Character.isDigit(at(segmentEnd))) {
                     segmentEnd++;
                 }
-                lexicalTokenList.add(new Word(2, cleanedSourceText.substring(streamPointer, segmentEnd),
-                        currentLineNumber));
+                int numberId = sink.intern(window, streamPointer - windowBase, segmentEnd - streamPointer);
+                sink.addInterned(TokenKind.INTCON, numberId, currentLineNumber);
                 streamPointer = segmentEnd;
+                return true;
             }
             // 字符串字面量识别逻辑
-            else if (sanitizedCharArray[streamPointer] == '"') {
+            else if (current == '"') {
                 int formatCount = 0;
                 boolean validFormat = true;
                 segmentEnd = streamPointer + 1;
-                while (segmentEnd < sanitizedCharArray.length && sanitizedCharArray[segmentEnd] != '"') {
-                    if (sanitizedCharArray[segmentEnd] == '\\') {
-                        if (segmentEnd + 1 < sanitizedCharArray.length &&
-                                sanitizedCharArray[segmentEnd + 1] != 'n') {
+                while (has(segmentEnd) && at(segmentEnd) != '"') {
+                    if (at(segmentEnd) == '\\') {
+                        if (has(segmentEnd + 1) && at(segmentEnd + 1) != 'n') {
                             validFormat = false;
                         }
                         segmentEnd += 2;
-                    } else if (sanitizedCharArray[segmentEnd] == '%') {
-                        if (segmentEnd + 1 < sanitizedCharArray.length &&
-                                (sanitizedCharArray[segmentEnd + 1] == 'd' ||
-                                        sanitizedCharArray[segmentEnd + 1] == 'c')) {
+                    } else if (at(segmentEnd) == '%') {
+                        if (has(segmentEnd + 1) &&
+                                (at(segmentEnd + 1) == 'd' || at(segmentEnd + 1) == 'c')) {
                             formatCount++;
                         } else {
                             validFormat = false;
@@ -230,88 +374,92 @@ public class Sym {
                         segmentEnd++;
                     }
                 }
-                lexicalTokenList.add(new FormatWord(3, cleanedSourceText.substring(streamPointer, segmentEnd),
-                        currentLineNumber, formatCount, validFormat));
+                int textEnd = Math.min(segmentEnd, windowBase + windowLength);
+                sink.addFormat(new String(window, streamPointer - windowBase, textEnd - streamPointer),
+                        currentLineNumber, formatCount, validFormat);
                 streamPointer = segmentEnd + 1;
+                return true;
             }
             // 逻辑AND操作符识别
-            else if (sanitizedCharArray[streamPointer] == '&') {
-                if (streamPointer + 1 < sanitizedCharArray.length &&
-                        sanitizedCharArray[streamPointer + 1] == '&') {
-                    lexicalTokenList.add(new Word(12, "&&", currentLineNumber));
+            else if (current == '&') {
+                if (has(streamPointer + 1) && at(streamPointer + 1) == '&') {
+                    sink.add(TokenKind.AND, currentLineNumber);
                     streamPointer += 2;
+                    return true;
                 } else {
-                    System.out.println("&wrong");
+                    diagnostics.println("&wrong");
+                    finished = true;
                     break;
                 }
             }
             // 逻辑NOT和不等操作符识别
-            else if (sanitizedCharArray[streamPointer] == '!') {
-                if (streamPointer + 1 < sanitizedCharArray.length &&
-                        sanitizedCharArray[streamPointer + 1] == '=') {
-                    lexicalTokenList.add(new Word(29, "!=", currentLineNumber));
+            else if (current == '!') {
+                if (has(streamPointer + 1) && at(streamPointer + 1) == '=') {
+                    sink.add(TokenKind.NEQ, currentLineNumber);
                     streamPointer += 2;
                 } else {
-                    lexicalTokenList.add(new Word(11, "!", currentLineNumber));
+                    sink.add(TokenKind.NOT, currentLineNumber);
                     streamPointer++;
                 }
+                return true;
             }
             // 逻辑OR操作符识别
-            else if (sanitizedCharArray[streamPointer] == '|') {
-                if (streamPointer + 1 < sanitizedCharArray.length &&
-                        sanitizedCharArray[streamPointer + 1] == '|') {
-                    lexicalTokenList.add(new Word(13, "||", currentLineNumber));
+            else if (current == '|') {
+                if (has(streamPointer + 1) && at(streamPointer + 1) == '|') {
+                    sink.add(TokenKind.OR, currentLineNumber);
                     streamPointer += 2;
+                    return true;
                 } else {
-                    System.out.println("|wrong");
+                    diagnostics.println("|wrong");
+                    finished = true;
                     break;
                 }
             }
             // 小于和小于等于操作符识别
-            else if (sanitizedCharArray[streamPointer] == '<') {
-                if (streamPointer + 1 < sanitizedCharArray.length &&
-                        sanitizedCharArray[streamPointer + 1] == '=') {
-                    lexicalTokenList.add(new Word(25, "<=", currentLineNumber));
+            else if (current == '<') {
+                if (has(streamPointer + 1) && at(streamPointer + 1) == '=') {
+                    sink.add(TokenKind.LEQ, currentLineNumber);
                     streamPointer += 2;
                 } else {
-                    lexicalTokenList.add(new Word(24, "<", currentLineNumber));
+                    sink.add(TokenKind.LSS, currentLineNumber);
                     streamPointer++;
                 }
+                return true;
             }
             // 大于和大于等于操作符识别
-            else if (sanitizedCharArray[streamPointer] == '>') {
-                if (streamPointer + 1 < sanitizedCharArray.length &&
-                        sanitizedCharArray[streamPointer + 1] == '=') {
-                    lexicalTokenList.add(new Word(27, ">=", currentLineNumber));
+            else if (current == '>') {
+                if (has(streamPointer + 1) && at(streamPointer + 1) == '=') {
+                    sink.add(TokenKind.GEQ, currentLineNumber);
                     streamPointer += 2;
                 } else {
-                    lexicalTokenList.add(new Word(26, ">", currentLineNumber));
+                    sink.add(TokenKind.GRE, currentLineNumber);
                     streamPointer++;
                 }
+                return true;
             }
             // 等于和赋值操作符识别
-            else if (sanitizedCharArray[streamPointer] == '=') {
-                if (streamPointer + 1 < sanitizedCharArray.length &&
-                        sanitizedCharArray[streamPointer + 1] == '=') {
-                    lexicalTokenList.add(new Word(28, "==", currentLineNumber));
+            else if (current == '=') {
+                if (has(streamPointer + 1) && at(streamPointer + 1) == '=') {
+                    sink.add(TokenKind.EQL, currentLineNumber);
                     streamPointer += 2;
                 } else {
-                    lexicalTokenList.add(new Word(30, "=", currentLineNumber));
+                    sink.add(TokenKind.ASSIGN, currentLineNumber);
                     streamPointer++;
                 }
+                return true;
             }
             // 其他单字符操作符处理
-            else if (operatorSymbolMap.containsKey(sanitizedCharArray[streamPointer])) {
-                lexicalTokenList.add(new Word(operatorSymbolMap.get(sanitizedCharArray[streamPointer]),
-                        String.valueOf(sanitizedCharArray[streamPointer]),
-                        currentLineNumber));
+            else if (current < 128 && SINGLE_CHAR_OPERATORS[current] != 0) {
+                sink.add(SINGLE_CHAR_OPERATORS[current], currentLineNumber);
                 streamPointer++;
+                return true;
             }
             // 未识别字符错误输出
             else {
-                System.out.println("Unrecognized character: " + sanitizedCharArray[streamPointer]);
+                diagnostics.println("Unrecognized character: " + current);
                 streamPointer++;
             }
         }
+        return false;
     }
 }
@@ -17,6 +17,12 @@ public class FuncTable {
     /* 外层作用域引用 - 指向包含当前作用域的上级函数表实例 */
     private FuncTable parentScope;
 
+    /* 登记序号 - 函数名到其登记先后次序的映射，供只读视图判断可见性 */
+    private HashMap<String, Integer> registrationOrder = new HashMap<>();
+
+    /* 可见函数数量 - 只读视图只能看到登记序号小于该值的函数，-1 表示不限 */
+    private int visibleCount = -1;
+
     /**
      * 默认构造器 - 创建独立的函数符号表实例
      * 用于全局作用域或根级函数定义环境
@@ -51,6 +57,56 @@ public class FuncTable {
      */
     public void add(String identifier, FuncSymbol symbol) {
         symbolRegistry.put(identifier, symbol);
+        if (!registrationOrder.containsKey(identifier)) {
+            registrationOrder.put(identifier, registrationOrder.size());
+        }
+    }
+
+    /**
+     * 创建当前内容的独立副本
+     * 
+     * @return 与本表互不影响的新函数表
+     */
+    public FuncTable copy() {
+        FuncTable table = new FuncTable();
+        table.symbolRegistry.putAll(symbolRegistry);
+        table.registrationOrder.putAll(registrationOrder);
+        table.parentScope = parentScope;
+        return table;
+    }
+
+    /**
+     * 获取已登记的函数数量
+     * 
+     * @return 登记过的不同函数名个数
+     */
+    public int size() {
+        return registrationOrder.size();
+    }
+
+    /**
+     * 创建只读视图 - 只能看到最先登记的若干个函数
+     * 视图与本表共享存储，本表之后只能继续登记新的函数；登记全部完成后多个线程可以同时查询各自的视图
+     * 
+     * @param count 可见的函数数量
+     * @return 函数表的只读视图
+     */
+    public FuncTable visibleUpTo(int count) {
+        FuncTable view = new FuncTable();
+        view.symbolRegistry = symbolRegistry;
+        view.registrationOrder = registrationOrder;
+        view.parentScope = parentScope;
+        view.visibleCount = count;
+        return view;
+    }
+
+    // 视图中登记序号不小于可见数量的函数视为尚未定义
+    private boolean isVisible(String identifier) {
+        if (visibleCount < 0) {
+            return true;
+        }
+        Integer order = registrationOrder.get(identifier);
+        return order != null && order < visibleCount;
     }
 
     /**
@@ -61,7 +117,7 @@ public class FuncTable {
      * @return 对应的函数符号对象，不存在则返回null
      */
     public FuncSymbol get(String identifier) {
-        return symbolRegistry.get(identifier);
+        return isVisible(identifier) ? symbolRegistry.get(identifier) : null;
     }
 
     /**
@@ -72,6 +128,6 @@ public class FuncTable {
      * @return 存在返回true，否则返回false
      */
     public boolean contains(String identifier) {
-        return symbolRegistry.containsKey(identifier);
+        return symbolRegistry.containsKey(identifier) && isVisible(identifier);
     }
 }
@@ -0,0 +1,277 @@
+package Word;
+
+import java.util.Arrays;
+
+/**
+ * 词法单元前瞻窗口 - 语法分析器与流式词法分析器之间的缓冲区
+ *
+ * 词法单元以"结构数组"的方式保存在环形的并行 int 数组中：类别、行号和一个附加值，
+ * 不为每个单元分配 Word 对象。语法分析器按绝对下标访问词法单元，
+ * 访问到尚未生成的位置时才向 {@link Producer} 拉取；
+ * 语法分析器向前推进后调用 {@link #release(int)}，之前的槽位即可复用，
+ * 因此窗口大小只取决于语法分析器的最大前瞻距离。
+ *
+ * 关键字和运算符的文本由类别直接得到；标识符和数字在词法分析时驻留，
+ * 附加值记录驻留编号，相同拼写共享同一个 String；字符串的附加值记录格式信息。
+ * 只有语法分析器真正需要把词法单元挂到AST上时，才通过 {@link #word(int)} 物化为 Word。
+ */
+public class TokenBuffer {
+
+    /**
+     * 词法单元的生产者，即词法分析器
+     */
+    public interface Producer {
+        /**
+         * 生成下一个词法单元并追加到缓冲区
+         *
+         * @return 输入已经结束、没有生成新词法单元时返回 false
+         */
+        boolean produceNext(TokenBuffer sink);
+    }
+
+    private final Producer producer;
+    private boolean exhausted = false;
+    /* 冻结后不再回收槽位，缓冲区内容不再变化 */
+    private boolean frozen = false;
+
+    /* 环形并行数组，容量为2的幂 */
+    private int[] kinds = new int[64];
+    private int[] lines = new int[64];
+    /* 附加值 - 标识符和数字为驻留编号；字符串低位为格式是否合法，其余位为 %d/%c 个数 */
+    private int[] aux = new int[64];
+    /* 字符串字面量的文本，其余类别为 null */
+    private String[] texts = new String[64];
+    private int mask = 63;
+
+    /* 窗口中最早的仍需保留的词法单元下标 */
+    private int first = 0;
+    /* 已生成的词法单元总数，即下一个词法单元的下标 */
+    private int end = 0;
+
+    /* 驻留的文本，下标即驻留编号 */
+    private String[] interned = new String[64];
+    private int internedCount = 0;
+    /* 驻留哈希表 - 开放寻址，保存驻留编号+1，0 表示空槽，容量为2的幂 */
+    private int[] internSlots = new int[128];
+
+    public TokenBuffer(Producer producer) {
+        this.producer = producer;
+    }
+
+    /**
+     * 追加一个关键字或运算符
+     */
+    public void add(int kind, int line) {
+        add(kind, line, 0, null);
+    }
+
+    /**
+     * 追加一个标识符或数字
+     *
+     * @param internedId {@link #intern(char[], int, int)} 返回的驻留编号
+     */
+    public void addInterned(int kind, int internedId, int line) {
+        add(kind, line, internedId, null);
+    }
+
+    /**
+     * 追加一个格式字符串
+     */
+    public void addFormat(String text, int line, int formatCount, boolean valid) {
+        add(TokenKind.STRCON, line, (formatCount << 1) | (valid ? 1 : 0), text);
+    }
+
+    private void add(int kind, int line, int value, String text) {
+        if (end - first == kinds.length) {
+            grow();
+        }
+        int slot = end & mask;
+        kinds[slot] = kind;
+        lines[slot] = line;
+        aux[slot] = value;
+        texts[slot] = text;
+        end++;
+    }
+
+    // 前瞻距离超过窗口容量时加倍，保持下标到槽位的映射不变
+    private void grow() {
+        int capacity = kinds.length * 2;
+        int[] newKinds = new int[capacity];
+        int[] newLines = new int[capacity];
+        int[] newAux = new int[capacity];
+        String[] newTexts = new String[capacity];
+        int newMask = capacity - 1;
+        for (int index = first; index < end; index++) {
+            int from = index & mask;
+            int to = index & newMask;
+            newKinds[to] = kinds[from];
+            newLines[to] = lines[from];
+            newAux[to] = aux[from];
+            newTexts[to] = texts[from];
+        }
+        kinds = newKinds;
+        lines = newLines;
+        aux = newAux;
+        texts = newTexts;
+        mask = newMask;
+    }
+
+    /**
+     * 驻留字符数组中 [offset, offset+length) 这段文本
+     * 表中已有相同拼写时直接返回已有编号，不产生任何分配
+     *
+     * @return 驻留编号
+     */
+    public int intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slotMask = internSlots.length - 1;
+        int slot = mix(hash) & slotMask;
+        while (internSlots[slot] != 0) {
+            int id = internSlots[slot] - 1;
+            String candidate = interned[id];
+            if (candidate.hashCode() == hash && sameChars(candidate, chars, offset, length)) {
+                return id;
+            }
+            slot = (slot + 1) & slotMask;
+        }
+        if (internedCount == interned.length) {
+            interned = Arrays.copyOf(interned, internedCount * 2);
+        }
+        int id = internedCount++;
+        interned[id] = new String(chars, offset, length);
+        internSlots[slot] = id + 1;
+        if (internedCount * 2 > internSlots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * 获取驻留编号对应的文本
+     */
+    public String interned(int internedId) {
+        return interned[internedId];
+    }
+
+    private static boolean sameChars(String candidate, char[] chars, int offset, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        internSlots = new int[internSlots.length * 2];
+        int slotMask = internSlots.length - 1;
+        for (int id = 0; id < internedCount; id++) {
+            int slot = mix(interned[id].hashCode()) & slotMask;
+            while (internSlots[slot] != 0) {
+                slot = (slot + 1) & slotMask;
+            }
+            internSlots[slot] = id + 1;
+        }
+    }
+
+    // 打散哈希值的高位，避免开放寻址时聚集
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * 获取到目前为止已生成的词法单元总数
+     */
+    public int produced() {
+        return end;
+    }
+
+    /**
+     * 确认下标 index 处有词法单元，必要时向词法分析器拉取
+     *
+     * @return 输入在此之前已经结束时返回 false
+     */
+    public boolean has(int index) {
+        while (index >= end && !exhausted) {
+            if (!producer.produceNext(this)) {
+                exhausted = true;
+            }
+        }
+        if (index < first) {
+            throw new IllegalStateException("词法单元 " + index + " 已经释放");
+        }
+        return index < end;
+    }
+
+    /**
+     * 一次性生成剩余的全部词法单元，此后不再回收槽位
+     * 冻结后缓冲区只读，多个语法分析器可以在不同线程中按任意下标同时访问
+     */
+    public void freeze() {
+        while (!exhausted) {
+            if (!producer.produceNext(this)) {
+                exhausted = true;
+            }
+        }
+        frozen = true;
+    }
+
+    /**
+     * 声明下标小于 index 的词法单元不再需要，其槽位可以复用；冻结后不起作用
+     */
+    public void release(int index) {
+        if (!frozen && index > first) {
+            first = Math.min(index, end);
+        }
+    }
+
+    /**
+     * 获取词法单元类别，越界时返回 NONE
+     */
+    public int kind(int index) {
+        return has(index) ? kinds[index & mask] : TokenKind.NONE;
+    }
+
+    /**
+     * 获取词法单元所在行号，越界时返回 0
+     */
+    public int line(int index) {
+        return has(index) ? lines[index & mask] : 0;
+    }
+
+    /**
+     * 获取词法单元的文本
+     */
+    public String lexeme(int index) {
+        int slot = index & mask;
+        int kind = kinds[slot];
+        if (kind == TokenKind.IDENFR || kind == TokenKind.INTCON) {
+            return interned[aux[slot]];
+        }
+        if (kind == TokenKind.STRCON) {
+            return texts[slot];
+        }
+        return TokenKind.spelling(kind);
+    }
+
+    /**
+     * 把词法单元物化为 Word（字符串为 FormatWord），越界时返回空白 Word
+     */
+    public Word word(int index) {
+        if (!has(index)) {
+            return new Word();
+        }
+        int slot = index & mask;
+        if (kinds[slot] == TokenKind.STRCON) {
+            return new FormatWord(TokenKind.STRCON, texts[slot], lines[slot],
+                    aux[slot] >>> 1, (aux[slot] & 1) != 0);
+        }
+        return new Word(kinds[slot], lexeme(index), lines[slot]);
+    }
+}
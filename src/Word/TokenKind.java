@@ -0,0 +1,69 @@
+package Word;
+
+/**
+ * 词法单元类别编码表
+ *
+ * 编码与词法分析器输出的类别编号一一对应（IDENFR=1 ... RBRACE=38），
+ * 关键字和运算符的拼写是固定的，可以直接由类别编码得到，无需从源码中截取。
+ */
+public final class TokenKind {
+    public static final int NONE = 0;
+    public static final int IDENFR = 1;
+    public static final int INTCON = 2;
+    public static final int STRCON = 3;
+    public static final int MAINTK = 4;
+    public static final int CONSTTK = 5;
+    public static final int INTTK = 6;
+    public static final int BREAKTK = 7;
+    public static final int CONTINUETK = 8;
+    public static final int IFTK = 9;
+    public static final int ELSETK = 10;
+    public static final int NOT = 11;
+    public static final int AND = 12;
+    public static final int OR = 13;
+    public static final int WHILETK = 14;
+    public static final int GETINTTK = 15;
+    public static final int PRINTFTK = 16;
+    public static final int RETURNTK = 17;
+    public static final int PLUS = 18;
+    public static final int MINU = 19;
+    public static final int VOIDTK = 20;
+    public static final int MULT = 21;
+    public static final int DIV = 22;
+    public static final int MOD = 23;
+    public static final int LSS = 24;
+    public static final int LEQ = 25;
+    public static final int GRE = 26;
+    public static final int GEQ = 27;
+    public static final int EQL = 28;
+    public static final int NEQ = 29;
+    public static final int ASSIGN = 30;
+    public static final int SEMICN = 31;
+    public static final int COMMA = 32;
+    public static final int LPARENT = 33;
+    public static final int RPARENT = 34;
+    public static final int LBRACK = 35;
+    public static final int RBRACK = 36;
+    public static final int LBRACE = 37;
+    public static final int RBRACE = 38;
+
+    /* 固定拼写表 - 下标为类别编码，标识符、数字和字符串为 null */
+    private static final String[] SPELLINGS = {
+            "", null, null, null, "main", "const", "int", "break", "continue", "if", "else",
+            "!", "&&", "||", "while", "getint", "printf", "return", "+", "-", "void", "*", "/",
+            "%", "<", "<=", ">", ">=", "==", "!=", "=", ";", ",", "(", ")", "[", "]", "{", "}"
+    };
+
+    private TokenKind() {
+    }
+
+    /**
+     * 获取关键字或运算符的固定拼写
+     *
+     * @param kind 类别编码
+     * @return 固定拼写；标识符、数字、字符串返回 null
+     */
+    public static String spelling(int kind) {
+        return SPELLINGS[kind];
+    }
+}